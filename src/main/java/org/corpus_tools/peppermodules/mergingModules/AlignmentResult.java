@@ -0,0 +1,305 @@
+/**
+ * Copyright 2015 Humboldt-Universität zu Berlin.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.mergingModules;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.corpus_tools.salt.common.STextualDS;
+import org.corpus_tools.salt.common.STextualRelation;
+import org.corpus_tools.salt.common.SToken;
+import org.corpus_tools.salt.graph.Relation;
+
+/**
+ * The result of aligning the normalized text of an other {@link STextualDS}
+ * with the normalized text of a base {@link STextualDS}. The result is
+ * computed once by {@link MergerMapper#alignTexts} and consumed by
+ * {@link MergerMapper#mergeTokens}, so that the offset and the token lists do
+ * not need to be computed twice for the same pair of texts.
+ */
+public class AlignmentResult {
+	private final STextualDS baseText;
+	private final STextualDS otherText;
+	private final int offset;
+	private final boolean baseTextBigger;
+	/**
+	 * the placement found by the approximate alignment or null, if the texts
+	 * match exactly
+	 **/
+	private final ApproximateAligner.Alignment approximation;
+	/** tokens of the base text, computed on demand **/
+	private List<SToken> baseTextTokens = null;
+	/** tokens of the other text, computed on demand **/
+	private List<SToken> otherTextTokens = null;
+	/**
+	 * The equivalent {@link SToken} objects found during alignment, a token of
+	 * the other text is mapped to its equivalent token of the base text.
+	 **/
+	private final Map<SToken, SToken> equivalentTokens = new HashMap<>();
+
+	/**
+	 * @param baseText
+	 *            the base {@link STextualDS}
+	 * @param otherText
+	 *            the other {@link STextualDS}
+	 * @param offset
+	 *            the position of the smaller normalized text in the bigger
+	 *            normalized text or -1 if the texts are not alignable
+	 * @param baseTextBigger
+	 *            true if the normalized base text is at least as long as the
+	 *            normalized other text
+	 */
+	public AlignmentResult(STextualDS baseText, STextualDS otherText, int offset, boolean baseTextBigger) {
+		this.baseText = baseText;
+		this.otherText = otherText;
+		this.offset = offset;
+		this.baseTextBigger = baseTextBigger;
+		this.approximation = null;
+	}
+
+	/**
+	 * Creates the result for texts, which only match approximately.
+	 * 
+	 * @param baseText
+	 *            the base {@link STextualDS}
+	 * @param otherText
+	 *            the other {@link STextualDS}
+	 * @param baseTextBigger
+	 *            true if the normalized base text is at least as long as the
+	 *            normalized other text
+	 * @param approximation
+	 *            the placement of the smaller text in the bigger text
+	 */
+	public AlignmentResult(STextualDS baseText, STextualDS otherText, boolean baseTextBigger, ApproximateAligner.Alignment approximation) {
+		this.baseText = baseText;
+		this.otherText = otherText;
+		this.offset = approximation.getStart();
+		this.baseTextBigger = baseTextBigger;
+		this.approximation = approximation;
+	}
+
+	public STextualDS getBaseText() {
+		return baseText;
+	}
+
+	public STextualDS getOtherText() {
+		return otherText;
+	}
+
+	/**
+	 * @return the position of the smaller normalized text in the bigger
+	 *         normalized text or -1 if the texts are not alignable
+	 */
+	public int getOffset() {
+		return offset;
+	}
+
+	/**
+	 * @return true if the texts only match approximately
+	 */
+	public boolean isApproximate() {
+		return approximation != null;
+	}
+
+	/**
+	 * @return the number of edits between both texts, 0 for exactly matching
+	 *         texts
+	 */
+	public int getErrors() {
+		return (approximation != null) ? approximation.getErrors() : 0;
+	}
+
+	/**
+	 * Maps the start of an interval in the normalized smaller text to the
+	 * normalized bigger text.
+	 * 
+	 * @param smallerPosition
+	 *            a position in the normalized smaller text
+	 * @return the corresponding position in the normalized bigger text or -1
+	 *         if there is none
+	 */
+	public int toBiggerStart(int smallerPosition) {
+		if (approximation == null) {
+			return offset + smallerPosition;
+		}
+		return lookup(approximation.getSmallerStartToBigger(), smallerPosition);
+	}
+
+	/**
+	 * Maps the end of an interval in the normalized smaller text to the
+	 * normalized bigger text.
+	 * 
+	 * @param smallerPosition
+	 *            a position in the normalized smaller text
+	 * @return the corresponding position in the normalized bigger text or -1
+	 *         if there is none
+	 */
+	public int toBiggerEnd(int smallerPosition) {
+		if (approximation == null) {
+			return offset + smallerPosition;
+		}
+		return lookup(approximation.getSmallerEndToBigger(), smallerPosition);
+	}
+
+	/**
+	 * Maps the start of an interval in the normalized bigger text to the
+	 * normalized smaller text.
+	 * 
+	 * @param biggerPosition
+	 *            a position in the normalized bigger text
+	 * @return the corresponding position in the normalized smaller text. For
+	 *         exactly matching texts, the position might be outside of the
+	 *         smaller text, for approximately matching texts -1 is returned
+	 *         then.
+	 */
+	public int toSmallerStart(int biggerPosition) {
+		if (approximation == null) {
+			return biggerPosition - offset;
+		}
+		return lookup(approximation.getBiggerStartToSmaller(), biggerPosition - offset);
+	}
+
+	/**
+	 * Maps the end of an interval in the normalized bigger text to the
+	 * normalized smaller text.
+	 * 
+	 * @param biggerPosition
+	 *            a position in the normalized bigger text
+	 * @return the corresponding position in the normalized smaller text. For
+	 *         exactly matching texts, the position might be outside of the
+	 *         smaller text, for approximately matching texts -1 is returned
+	 *         then.
+	 */
+	public int toSmallerEnd(int biggerPosition) {
+		if (approximation == null) {
+			return biggerPosition - offset;
+		}
+		return lookup(approximation.getBiggerEndToSmaller(), biggerPosition - offset);
+	}
+
+	private static int lookup(int[] mapping, int index) {
+		return ((index >= 0) && (index < mapping.length)) ? mapping[index] : -1;
+	}
+
+	/**
+	 * @return true if both texts are alignable
+	 */
+	public boolean isAlignable() {
+		return offset != -1;
+	}
+
+	/**
+	 * @return true if the normalized base text is at least as long as the
+	 *         normalized other text
+	 */
+	public boolean isBaseTextBigger() {
+		return baseTextBigger;
+	}
+
+	/**
+	 * @return the bigger of both texts
+	 */
+	public STextualDS getBiggerText() {
+		return baseTextBigger ? baseText : otherText;
+	}
+
+	/**
+	 * @return the smaller of both texts
+	 */
+	public STextualDS getSmallerText() {
+		return baseTextBigger ? otherText : baseText;
+	}
+
+	/**
+	 * Sets the tokens of both texts, so that they do not need to be collected
+	 * from the graphs.
+	 * 
+	 * @param baseTextTokens
+	 *            all tokens of the base text
+	 * @param otherTextTokens
+	 *            all tokens of the other text
+	 */
+	public void setTextTokens(List<SToken> baseTextTokens, List<SToken> otherTextTokens) {
+		this.baseTextTokens = baseTextTokens;
+		this.otherTextTokens = otherTextTokens;
+	}
+
+	/**
+	 * @return all tokens of the base text
+	 */
+	public List<SToken> getBaseTextTokens() {
+		if (baseTextTokens == null) {
+			baseTextTokens = collectTokens(baseText);
+		}
+		return baseTextTokens;
+	}
+
+	/**
+	 * @return all tokens of the other text
+	 */
+	public List<SToken> getOtherTextTokens() {
+		if (otherTextTokens == null) {
+			otherTextTokens = collectTokens(otherText);
+		}
+		return otherTextTokens;
+	}
+
+	/**
+	 * @return all tokens of the smaller text
+	 */
+	public List<SToken> getSmallerTextTokens() {
+		return baseTextBigger ? getOtherTextTokens() : getBaseTextTokens();
+	}
+
+	/**
+	 * Adds a pair of equivalent tokens.
+	 *
+	 * @param otherTextToken
+	 *            token of the other text
+	 * @param baseTextToken
+	 *            equivalent token of the base text
+	 */
+	public void addEquivalentToken(SToken otherTextToken, SToken baseTextToken) {
+		equivalentTokens.put(otherTextToken, baseTextToken);
+	}
+
+	/**
+	 * @param otherTextToken
+	 *            token of the other text
+	 * @return the equivalent token of the base text or null if there is none
+	 */
+	public SToken getEquivalentToken(SToken otherTextToken) {
+		return equivalentTokens.get(otherTextToken);
+	}
+
+	/**
+	 * Returns all tokens connected to the given text via a
+	 * {@link STextualRelation}.
+	 */
+	private static List<SToken> collectTokens(STextualDS text) {
+		List<SToken> textTokens = new ArrayList<>();
+		for (Relation e : text.getGraph().getInRelations(text.getId())) {
+			if (e instanceof STextualRelation) {
+				textTokens.add(((STextualRelation) e).getSource());
+			}
+		}
+		return textTokens;
+	}
+}
@@ -0,0 +1,633 @@
+/**
+ * Copyright 2015 Humboldt-Universität zu Berlin.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.mergingModules;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Places a smaller normalized text inside a bigger one allowing up to a given
+ * number of edits (insertions, deletions and substitutions of characters).
+ * This is used by {@link MergerMapper} when the property
+ * {@link MergerProperties#PROP_MAX_ALIGNMENT_ERRORS} is set and both texts do
+ * not match exactly. Like the exact alignment, the comparison is case
+ * insensitive. <br/>
+ * The alignment works in two steps:
+ * <ol>
+ * <li>Candidate placements: the smaller text is cut into maxErrors+1 pieces.
+ * Any placement with at most maxErrors edits contains at least one piece
+ * unchanged, so all exact occurrences of the pieces (found with a rolling
+ * hash) give the candidate diagonals.</li>
+ * <li>Verification: each candidate is verified with Myers' bit-vector
+ * algorithm, restricted to a band of 2*maxErrors+1 diagonals around the
+ * candidate (in blocks of 64 rows, as done by Edlib). The best placement is
+ * traced back to a mapping of positions between both texts.</li>
+ * </ol>
+ * Both steps are linear in the length of the texts for a fixed number of
+ * errors.
+ */
+public class ApproximateAligner {
+	/**
+	 * the minimal number of candidate placements to be verified, for short
+	 * texts more candidates are verified until {@link #VERIFICATION_BUDGET}
+	 * is reached
+	 **/
+	private static final int MIN_CANDIDATES = 16;
+	/** the number of band columns to be computed for all candidates **/
+	private static final long VERIFICATION_BUDGET = 1L << 22;
+	/** the maximal number of distinct diagonals collected from piece hits **/
+	private static final int MAX_DIAGONALS = 100000;
+	/** a value standing for cells which cannot be reached **/
+	private static final int INFINITY = Integer.MAX_VALUE / 4;
+	private static final long HASH_BASE = 0x100000001b3L;
+
+	/**
+	 * The placement of the smaller text inside the bigger text.
+	 */
+	public static class Alignment {
+		private final int start;
+		private final int end;
+		private final int errors;
+		private final int[] smallerStartToBigger;
+		private final int[] smallerEndToBigger;
+		private final int[] biggerStartToSmaller;
+		private final int[] biggerEndToSmaller;
+
+		private Alignment(int start, int end, int errors, int[] smallerStartToBigger, int[] smallerEndToBigger, int[] biggerStartToSmaller, int[] biggerEndToSmaller) {
+			this.start = start;
+			this.end = end;
+			this.errors = errors;
+			this.smallerStartToBigger = smallerStartToBigger;
+			this.smallerEndToBigger = smallerEndToBigger;
+			this.biggerStartToSmaller = biggerStartToSmaller;
+			this.biggerEndToSmaller = biggerEndToSmaller;
+		}
+
+		/**
+		 * @return the position in the bigger text, where the smaller text
+		 *         starts
+		 */
+		public int getStart() {
+			return start;
+		}
+
+		/**
+		 * @return the position in the bigger text, where the smaller text
+		 *         ends
+		 */
+		public int getEnd() {
+			return end;
+		}
+
+		/**
+		 * @return the number of edits needed to transform the smaller text
+		 *         into the bigger text between start and end
+		 */
+		public int getErrors() {
+			return errors;
+		}
+
+		/**
+		 * Characters inserted in the bigger text map several positions of the
+		 * bigger text to the same position of the smaller text. A start
+		 * position is mapped behind such insertions.
+		 * 
+		 * @return a table of length <code>smaller.length()+1</code>, the entry
+		 *         at index i is the position in the bigger text corresponding
+		 *         to position i in the smaller text, when used as the start of
+		 *         an interval
+		 */
+		public int[] getSmallerStartToBigger() {
+			return smallerStartToBigger;
+		}
+
+		/**
+		 * An end position is mapped in front of characters inserted in the
+		 * bigger text.
+		 * 
+		 * @return a table of length <code>smaller.length()+1</code>, the entry
+		 *         at index i is the position in the bigger text corresponding
+		 *         to position i in the smaller text, when used as the end of an
+		 *         interval
+		 */
+		public int[] getSmallerEndToBigger() {
+			return smallerEndToBigger;
+		}
+
+		/**
+		 * A start position is mapped behind characters deleted from the
+		 * smaller text.
+		 * 
+		 * @return a table of length <code>end-start+1</code>, the entry at
+		 *         index i is the position in the smaller text corresponding
+		 *         to position start+i in the bigger text, when used as the
+		 *         start of an interval
+		 */
+		public int[] getBiggerStartToSmaller() {
+			return biggerStartToSmaller;
+		}
+
+		/**
+		 * An end position is mapped in front of characters deleted from the
+		 * smaller text.
+		 * 
+		 * @return a table of length <code>end-start+1</code>, the entry at
+		 *         index i is the position in the smaller text corresponding
+		 *         to position start+i in the bigger text, when used as the end
+		 *         of an interval
+		 */
+		public int[] getBiggerEndToSmaller() {
+			return biggerEndToSmaller;
+		}
+	}
+
+	/**
+	 * Searches the best placement of the smaller text inside the bigger text
+	 * with at most maxErrors edits.
+	 *
+	 * @param smallerText
+	 *            the normalized text to be placed
+	 * @param biggerText
+	 *            the normalized text to place the smaller text in
+	 * @param maxErrors
+	 *            the maximal number of edits
+	 * @return the best placement or null, if there is none with at most
+	 *         maxErrors edits
+	 */
+	public static Alignment align(String smallerText, String biggerText, int maxErrors) {
+		char[] p = toLowerCase(smallerText);
+		char[] t = toLowerCase(biggerText);
+		if ((maxErrors <= 0) || (p.length <= maxErrors) || (t.length < p.length - maxErrors)) {
+			// each placement of a text not longer than the number of errors
+			// would be valid
+			return null;
+		}
+		long columnsPerCandidate = (long) (p.length + 2 * maxErrors) * ((2 * maxErrors + 64) >>> 6);
+		int maxCandidates = (int) Math.max(MIN_CANDIDATES, Math.min(Integer.MAX_VALUE, VERIFICATION_BUDGET / columnsPerCandidate));
+		// the chars of both texts as index into the distinct chars of p, so
+		// that the match masks only need one entry per char of p
+		char[] alphabet = alphabet(p);
+		int[] pChars = indexOf(p, alphabet);
+		int[] tChars = indexOf(t, alphabet);
+		Band best = null;
+		for (int diagonal : findCandidates(p, t, maxErrors, maxCandidates)) {
+			Band band = new Band(p, t, pChars, tChars, alphabet.length, diagonal, maxErrors);
+			band.compute(false);
+			if ((band.errors <= maxErrors) && ((best == null) || (band.errors < best.errors))) {
+				best = band;
+			}
+		}
+		if (best == null) {
+			return null;
+		}
+		// compute the best band again, this time keeping the bit-vectors for
+		// the traceback
+		best.compute(true);
+		return best.traceback();
+	}
+
+	/**
+	 * Returns the distinct chars of the given text in ascending order.
+	 */
+	private static char[] alphabet(char[] text) {
+		char[] sorted = Arrays.copyOf(text, text.length);
+		Arrays.sort(sorted);
+		int size = 0;
+		for (int i = 0; i < sorted.length; i++) {
+			if ((i == 0) || (sorted[i] != sorted[i - 1])) {
+				sorted[size++] = sorted[i];
+			}
+		}
+		return Arrays.copyOf(sorted, size);
+	}
+
+	/**
+	 * Returns for each char of the text its index in the alphabet or -1, if
+	 * it is not contained.
+	 */
+	private static int[] indexOf(char[] text, char[] alphabet) {
+		int[] indexes = new int[text.length];
+		for (int i = 0; i < text.length; i++) {
+			int index = Arrays.binarySearch(alphabet, text[i]);
+			indexes[i] = (index >= 0) ? index : -1;
+		}
+		return indexes;
+	}
+
+	private static char[] toLowerCase(String text) {
+		char[] chr = text.toCharArray();
+		for (int i = 0; i < chr.length; i++) {
+			chr[i] = Character.toLowerCase(chr[i]);
+		}
+		return chr;
+	}
+
+	/**
+	 * Cuts p into k+1 pieces and returns the diagonals (the position in t
+	 * minus the position in p) of their exact occurrences in t. The diagonals
+	 * hit by most pieces come first, at most maxCandidates diagonals are
+	 * returned.
+	 */
+	private static int[] findCandidates(char[] p, char[] t, int k, int maxCandidates) {
+		int m = p.length;
+		int n = t.length;
+		int pieceLength = m / (k + 1);
+		// the hashes of all pieces sorted, to be searched by binary search
+		long[][] pieces = new long[k + 1][];
+		long power = 1;
+		for (int i = 1; i < pieceLength; i++) {
+			power *= HASH_BASE;
+		}
+		for (int i = 0; i <= k; i++) {
+			pieces[i] = new long[] { hash(p, i * pieceLength, pieceLength), i };
+		}
+		Arrays.sort(pieces, new Comparator<long[]>() {
+			@Override
+			public int compare(long[] o1, long[] o2) {
+				return Long.compare(o1[0], o2[0]);
+			}
+		});
+		long[] hashes = new long[k + 1];
+		for (int i = 0; i <= k; i++) {
+			hashes[i] = pieces[i][0];
+		}
+		final Map<Integer, Integer> votes = new HashMap<>();
+		if (n >= pieceLength) {
+			long h = hash(t, 0, pieceLength);
+			for (int x = 0; x + pieceLength <= n; x++) {
+				if (x > 0) {
+					h = (h - t[x - 1] * power) * HASH_BASE + t[x + pieceLength - 1];
+				}
+				int idx = Arrays.binarySearch(hashes, h);
+				if (idx >= 0) {
+					while ((idx > 0) && (hashes[idx - 1] == h)) {
+						idx--;
+					}
+					for (; (idx <= k) && (hashes[idx] == h); idx++) {
+						int pieceStart = (int) pieces[idx][1] * pieceLength;
+						int diagonal = x - pieceStart;
+						if ((diagonal >= -k) && (diagonal <= n - m + k) && (regionMatches(p, pieceStart, t, x, pieceLength))) {
+							Integer count = votes.get(diagonal);
+							if (count != null) {
+								votes.put(diagonal, count + 1);
+							} else if (votes.size() < MAX_DIAGONALS) {
+								votes.put(diagonal, 1);
+							}
+						}
+					}
+				}
+			}
+		}
+		List<Integer> diagonals = new ArrayList<>(votes.keySet());
+		Collections.sort(diagonals, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer o1, Integer o2) {
+				int result = votes.get(o2).compareTo(votes.get(o1));
+				return (result != 0) ? result : o1.compareTo(o2);
+			}
+		});
+		int[] candidates = new int[Math.min(maxCandidates, diagonals.size())];
+		for (int i = 0; i < candidates.length; i++) {
+			candidates[i] = diagonals.get(i);
+		}
+		return candidates;
+	}
+
+	private static long hash(char[] chr, int start, int length) {
+		long h = 0;
+		for (int i = start; i < start + length; i++) {
+			h = h * HASH_BASE + chr[i];
+		}
+		return h;
+	}
+
+	private static boolean regionMatches(char[] a, int aStart, char[] b, int bStart, int length) {
+		for (int i = 0; i < length; i++) {
+			if (a[aStart + i] != b[bStart + i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * The dynamic programming matrix D of p against t, restricted to the
+	 * diagonals diagonal-k to diagonal+k. Row i stands for the first i chars
+	 * of p, column j for the first j chars of the window of t starting at
+	 * base=diagonal-k. Column j contains the rows j-2k to j. The first 2k
+	 * columns are computed as a small matrix, the following columns are
+	 * computed with Myers' algorithm on the vertical deltas of these 2k+1 rows,
+	 * shifting the rows down by one for each column. Cells leaving the band
+	 * are replaced by upper bounds (the neighboring cell plus one), so that
+	 * every value is the cost of a real alignment.
+	 */
+	private static class Band {
+		private final char[] p;
+		private final char[] t;
+		/** the chars of p and t as index into the distinct chars of p **/
+		private final int[] pChars;
+		private final int[] tChars;
+		/** the number of distinct chars of p **/
+		private final int alphabetSize;
+		private final int m;
+		private final int n;
+		private final int k;
+		/** the position in t of column 0 **/
+		private final int base;
+		/** the number of rows in a column **/
+		private final int width;
+		/** the number of 64 bit words to store one column **/
+		private final int words;
+		/** the last column **/
+		private final int columns;
+		/** the last column of the small matrix **/
+		private final int initColumns;
+
+		/** the first 2k+1 columns **/
+		private int[][] init;
+		/** stored vertical deltas for each column after the small matrix **/
+		private long[] storedPv;
+		private long[] storedMv;
+		/** stored value of the first row in each column **/
+		private int[] storedTop;
+
+		/** the number of edits of the best placement **/
+		private int errors = INFINITY;
+		/** the column of the best placement **/
+		private int end = -1;
+
+		/** sliding match masks for each distinct char of p **/
+		private long[][] masks;
+		private int[] maskColumns;
+
+		private Band(char[] p, char[] t, int[] pChars, int[] tChars, int alphabetSize, int diagonal, int k) {
+			this.p = p;
+			this.t = t;
+			this.pChars = pChars;
+			this.tChars = tChars;
+			this.alphabetSize = alphabetSize;
+			this.m = p.length;
+			this.n = t.length;
+			this.k = k;
+			this.base = diagonal - k;
+			this.width = 2 * k + 1;
+			this.words = (width + 63) >>> 6;
+			this.columns = Math.min(m + 2 * k, n - base);
+			this.initColumns = Math.min(2 * k, columns);
+		}
+
+		private int cost(int i, int j) {
+			int pos = base + j - 1;
+			return ((i <= m) && (pos >= 0) && (pos < n) && (p[i - 1] == t[pos])) ? 0 : 1;
+		}
+
+		private void compute(boolean store) {
+			errors = INFINITY;
+			end = -1;
+			// the small matrix for the first columns, starting is free
+			// everywhere inside t
+			init = new int[width][initColumns + 1];
+			for (int j = 0; j <= initColumns; j++) {
+				init[0][j] = ((base + j >= 0) && (base + j <= n)) ? 0 : INFINITY;
+			}
+			for (int i = 1; i < width; i++) {
+				init[i][0] = Math.min(INFINITY, init[i - 1][0] + 1);
+				for (int j = 1; j <= initColumns; j++) {
+					int value = Math.min(init[i - 1][j - 1] + cost(i, j), Math.min(init[i - 1][j], init[i][j - 1]) + 1);
+					init[i][j] = Math.min(INFINITY, value);
+				}
+			}
+			if (m < width) {
+				for (int j = 0; j <= initColumns; j++) {
+					offer(init[m][j], j);
+				}
+			}
+			if (columns <= initColumns) {
+				return;
+			}
+			// Myers' algorithm on the vertical deltas, bit b of column j is
+			// the delta between row j-2k+b and the row above
+			long[] pv = new long[words];
+			long[] mv = new long[words];
+			for (int b = 1; b < width; b++) {
+				int delta = init[b][2 * k] - init[b - 1][2 * k];
+				if (delta > 0) {
+					pv[b >>> 6] |= 1L << b;
+				} else if (delta < 0) {
+					mv[b >>> 6] |= 1L << b;
+				}
+			}
+			int top = init[0][2 * k];
+			if (store) {
+				storedPv = new long[(columns - 2 * k) * words];
+				storedMv = new long[(columns - 2 * k) * words];
+				storedTop = new int[columns - 2 * k + 1];
+				storedTop[0] = top;
+			}
+			masks = new long[alphabetSize][];
+			maskColumns = new int[alphabetSize];
+			for (int e = 0; (e < 2 * k) && (e < m); e++) {
+				addMaskBit(pChars[e], 2 * k, e + 1);
+			}
+			long[] eq = new long[words];
+			int lastBit = width - 1;
+			for (int j = 2 * k + 1; j <= columns; j++) {
+				// shift the band down by one row, the new last row leaves the
+				// band and is one more than the row above
+				shiftRight(pv, 1);
+				shiftRight(mv, 1);
+				pv[lastBit >>> 6] |= 1L << lastBit;
+				mv[lastBit >>> 6] &= ~(1L << lastBit);
+				if (j - 1 < m) {
+					addMaskBit(pChars[j - 1], j, 2 * k);
+				}
+				int c = tChars[base + j - 1];
+				if ((c >= 0) && (masks[c] != null)) {
+					shiftRight(masks[c], j - maskColumns[c]);
+					maskColumns[c] = j;
+					System.arraycopy(masks[c], 0, eq, 0, words);
+				} else {
+					Arrays.fill(eq, 0);
+				}
+				// the row above the band left it in this column, it is one
+				// more than in the previous column
+				int hin = 1;
+				for (int w = 0; w < words; w++) {
+					long pvw = pv[w];
+					long mvw = mv[w];
+					long eqw = eq[w];
+					long xv = eqw | mvw;
+					if (hin < 0) {
+						eqw |= 1L;
+					}
+					long xh = (((eqw & pvw) + pvw) ^ pvw) | eqw;
+					long ph = mvw | ~(xh | pvw);
+					long mh = pvw & xh;
+					int hout = 0;
+					if ((ph & Long.MIN_VALUE) != 0) {
+						hout = 1;
+					} else if ((mh & Long.MIN_VALUE) != 0) {
+						hout = -1;
+					}
+					ph <<= 1;
+					mh <<= 1;
+					if (hin < 0) {
+						mh |= 1L;
+					} else if (hin > 0) {
+						ph |= 1L;
+					}
+					pv[w] = mh | ~(xv | ph);
+					mv[w] = ph & xv;
+					hin = hout;
+				}
+				top += 1 + (int) (pv[0] & 1L) - (int) (mv[0] & 1L);
+				if (store) {
+					System.arraycopy(pv, 0, storedPv, (j - 2 * k - 1) * words, words);
+					System.arraycopy(mv, 0, storedMv, (j - 2 * k - 1) * words, words);
+					storedTop[j - 2 * k] = top;
+				}
+				int firstRow = j - 2 * k;
+				if ((m >= firstRow) && (m <= j)) {
+					offer(top + sumDeltas(pv, 0, mv, 0, m - firstRow), j);
+				}
+			}
+			masks = null;
+			maskColumns = null;
+		}
+
+		private void offer(int value, int column) {
+			if (value < errors) {
+				errors = value;
+				end = column;
+			}
+		}
+
+		/**
+		 * Sets the bit for a char of p in its sliding mask, after moving the
+		 * mask to the given column.
+		 */
+		private void addMaskBit(int c, int column, int bit) {
+			if (masks[c] == null) {
+				masks[c] = new long[words];
+			} else {
+				shiftRight(masks[c], column - maskColumns[c]);
+			}
+			maskColumns[c] = column;
+			masks[c][bit >>> 6] |= 1L << bit;
+		}
+
+		/** Returns the sum of the vertical deltas of the bits 1 to upTo. **/
+		private int sumDeltas(long[] pv, int pvOffset, long[] mv, int mvOffset, int upTo) {
+			int sum = 0;
+			for (int w = 0; (w << 6) <= upTo; w++) {
+				long mask = -1L;
+				if (w == 0) {
+					mask &= ~1L;
+				}
+				int last = upTo - (w << 6);
+				if (last < 63) {
+					mask &= (1L << (last + 1)) - 1;
+				}
+				sum += Long.bitCount(pv[pvOffset + w] & mask) - Long.bitCount(mv[mvOffset + w] & mask);
+			}
+			return sum;
+		}
+
+		/** Returns the value of a cell, which must have been computed. **/
+		private int value(int i, int j) {
+			if (j <= initColumns) {
+				return (i < width) ? init[i][j] : INFINITY;
+			}
+			int firstRow = j - 2 * k;
+			if ((i < firstRow) || (i > j)) {
+				return INFINITY;
+			}
+			int offset = (j - 2 * k - 1) * words;
+			return storedTop[j - 2 * k] + sumDeltas(storedPv, offset, storedMv, offset, i - firstRow);
+		}
+
+		private Alignment traceback() {
+			// the path is traced from the end, so the first visit of a row
+			// (column) gives its last column (row) on the path
+			int[] rowFirstColumn = new int[m + 1];
+			int[] rowLastColumn = new int[m + 1];
+			int[] columnFirstRow = new int[end + 1];
+			int[] columnLastRow = new int[end + 1];
+			Arrays.fill(rowLastColumn, -1);
+			Arrays.fill(columnLastRow, -1);
+			int i = m;
+			int j = end;
+			while (i > 0) {
+				visit(i, j, rowFirstColumn, rowLastColumn, columnFirstRow, columnLastRow);
+				int current = value(i, j);
+				if ((j > 0) && (value(i - 1, j - 1) + cost(i, j) == current)) {
+					i--;
+					j--;
+				} else if (value(i - 1, j) + 1 == current) {
+					i--;
+				} else if ((j > 0) && (value(i, j - 1) + 1 == current)) {
+					j--;
+				} else {
+					throw new IllegalStateException("Cannot trace back the alignment at row " + i + " and column " + j + ".");
+				}
+			}
+			visit(i, j, rowFirstColumn, rowLastColumn, columnFirstRow, columnLastRow);
+			int start = j;
+			for (int row = 0; row <= m; row++) {
+				rowFirstColumn[row] += base;
+				rowLastColumn[row] += base;
+			}
+			return new Alignment(base + start, base + end, errors, rowLastColumn, rowFirstColumn, Arrays.copyOfRange(columnLastRow, start, end + 1), Arrays.copyOfRange(columnFirstRow, start, end + 1));
+		}
+
+		private void visit(int i, int j, int[] rowFirstColumn, int[] rowLastColumn, int[] columnFirstRow, int[] columnLastRow) {
+			rowFirstColumn[i] = j;
+			if (rowLastColumn[i] == -1) {
+				rowLastColumn[i] = j;
+			}
+			columnFirstRow[j] = i;
+			if (columnLastRow[j] == -1) {
+				columnLastRow[j] = i;
+			}
+		}
+	}
+
+	/** Shifts a multi-word bit-vector by the given number of bits towards bit 0. **/
+	private static void shiftRight(long[] a, int shift) {
+		if (shift <= 0) {
+			return;
+		}
+		int wordShift = shift >>> 6;
+		int bitShift = shift & 63;
+		for (int i = 0; i < a.length; i++) {
+			int src = i + wordShift;
+			long lo = (src < a.length) ? a[src] : 0L;
+			if (bitShift == 0) {
+				a[i] = lo;
+			} else {
+				long hi = (src + 1 < a.length) ? a[src + 1] : 0L;
+				a[i] = (lo >>> bitShift) | (hi << (64 - bitShift));
+			}
+		}
+	}
+}
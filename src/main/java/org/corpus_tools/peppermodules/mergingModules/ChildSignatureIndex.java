@@ -0,0 +1,266 @@
+/**
+ * Copyright 2015 Humboldt-Universität zu Berlin.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.mergingModules;
+
+import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.corpus_tools.salt.SALT_TYPE;
+import org.corpus_tools.salt.common.SDocumentGraph;
+import org.corpus_tools.salt.common.SDominanceRelation;
+import org.corpus_tools.salt.common.SSpan;
+import org.corpus_tools.salt.common.SSpanningRelation;
+import org.corpus_tools.salt.common.SStructure;
+import org.corpus_tools.salt.core.SNode;
+import org.corpus_tools.salt.core.SRelation;
+
+/**
+ * An index over the {@link SSpan} and {@link SStructure} nodes of a base
+ * {@link SDocumentGraph}, which are keyed by their node type and the set of
+ * their direct children. It is used by {@link MergeHandler} to find the
+ * equivalent of a node of an other graph with a single lookup, instead of
+ * intersecting the parents of all children. <br/>
+ * The index is built once per base graph and has to be updated via
+ * {@link #addParent(SNode, SALT_TYPE, Collection)} for each span or structure
+ * created afterwards. If several nodes share the same children, the one added
+ * first is returned. <br/>
+ * Besides, the index counts the parents of each child, so that
+ * {@link #hasOtherParents(SALT_TYPE, Collection)} can tell, whether a node
+ * having further children might precede the node returned.
+ */
+public class ChildSignatureIndex {
+	/** maps the signature of a node to the nodes having it **/
+	private final Map<Signature, Parents> parents = new HashMap<>();
+	/** maps each child to the number of its indexed parents per node type **/
+	private final Map<SALT_TYPE, Map<SNode, Integer>> parentCounts = new EnumMap<>(SALT_TYPE.class);
+
+	/**
+	 * Creates the index for all spans and structures of the given graph.
+	 * 
+	 * @param baseGraph
+	 *            the graph to be indexed
+	 */
+	public ChildSignatureIndex(SDocumentGraph baseGraph) {
+		if (baseGraph.getSpans() != null) {
+			for (SSpan span : baseGraph.getSpans()) {
+				addParent(span, SALT_TYPE.SSPAN, getChildren(span, SSpanningRelation.class));
+			}
+		}
+		if (baseGraph.getStructures() != null) {
+			for (SStructure structure : baseGraph.getStructures()) {
+				addParent(structure, SALT_TYPE.SSTRUCTURE, getChildren(structure, SDominanceRelation.class));
+			}
+		}
+	}
+
+	private static Collection<SNode> getChildren(SNode parent, Class<?> relationType) {
+		Collection<SNode> children = new ArrayList<>();
+		if (parent.getOutRelations() != null) {
+			for (SRelation<SNode, SNode> relation : parent.getOutRelations()) {
+				if (relationType.isInstance(relation)) {
+					children.add(relation.getTarget());
+				}
+			}
+		}
+		return children;
+	}
+
+	/**
+	 * Adds a node to the index. If there is already a node of the same type
+	 * with the same children, it keeps its precedence.
+	 * 
+	 * @param parent
+	 *            the span or structure to be added
+	 * @param nodeType
+	 *            the type of the node
+	 * @param children
+	 *            the direct children of the node
+	 */
+	public void addParent(SNode parent, SALT_TYPE nodeType, Collection<? extends SNode> children) {
+		if ((parent != null) && (!children.isEmpty()) && (!children.contains(null))) {
+			Signature signature = new Signature(nodeType, children);
+			Parents entry = parents.get(signature);
+			if (entry == null) {
+				entry = new Parents(parent);
+				parents.put(signature, entry);
+			}
+			entry.count++;
+			Map<SNode, Integer> counts = parentCounts.get(nodeType);
+			if (counts == null) {
+				counts = new IdentityHashMap<>();
+				parentCounts.put(nodeType, counts);
+			}
+			for (SNode child : signature.children) {
+				Integer count = counts.get(child);
+				counts.put(child, (count == null) ? 1 : count + 1);
+			}
+		}
+	}
+
+	/**
+	 * Returns the node of the given type, whose children are exactly the given
+	 * nodes.
+	 * 
+	 * @param nodeType
+	 *            the type of the node looked for
+	 * @param children
+	 *            the children of the node looked for, the order and
+	 *            duplicates are ignored
+	 * @return the node added first having this signature or null if there is
+	 *         none
+	 */
+	public SNode getParent(SALT_TYPE nodeType, Collection<? extends SNode> children) {
+		if (children.isEmpty() || children.contains(null)) {
+			return null;
+		}
+		Parents entry = parents.get(new Signature(nodeType, children));
+		return (entry == null) ? null : entry.first;
+	}
+
+	/**
+	 * Returns whether every one of the given children has an indexed parent
+	 * of the given type, whose children are not exactly the given nodes. Only
+	 * then a node having further children is a parent of all given children
+	 * and might precede the node returned by
+	 * {@link #getParent(SALT_TYPE, Collection)}.
+	 * 
+	 * @param nodeType
+	 *            the type of the parents
+	 * @param children
+	 *            the children of the node looked for
+	 * @return false, if no other node of the given type is a parent of all
+	 *         children
+	 */
+	public boolean hasOtherParents(SALT_TYPE nodeType, Collection<? extends SNode> children) {
+		if (children.isEmpty() || children.contains(null)) {
+			return false;
+		}
+		Parents entry = parents.get(new Signature(nodeType, children));
+		int sharing = (entry == null) ? 0 : entry.count;
+		Map<SNode, Integer> counts = parentCounts.get(nodeType);
+		if (counts == null) {
+			return false;
+		}
+		for (SNode child : children) {
+			Integer count = counts.get(child);
+			if ((count == null) || (count <= sharing)) {
+				// all parents of this child have exactly the given children
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return the number of indexed signatures
+	 */
+	public int size() {
+		return parents.size();
+	}
+
+	/**
+	 * The nodes sharing a signature, only the first one is kept.
+	 */
+	private static final class Parents {
+		private final SNode first;
+		private int count = 0;
+
+		private Parents(SNode first) {
+			this.first = first;
+		}
+	}
+
+	/**
+	 * The node type together with the distinct children ordered by their
+	 * identity hash code.
+	 */
+	private static final class Signature {
+		private static final Comparator<SNode> IDENTITY_ORDER = new Comparator<SNode>() {
+			@Override
+			public int compare(SNode node, SNode other) {
+				return Integer.compare(System.identityHashCode(node), System.identityHashCode(other));
+			}
+		};
+		private final SALT_TYPE nodeType;
+		private final SNode[] children;
+		private final int hash;
+
+		private Signature(SALT_TYPE nodeType, Collection<? extends SNode> children) {
+			this.nodeType = nodeType;
+			Map<SNode, Boolean> distinct = new IdentityHashMap<>(children.size());
+			for (SNode child : children) {
+				distinct.put(child, Boolean.TRUE);
+			}
+			this.children = distinct.keySet().toArray(new SNode[distinct.size()]);
+			Arrays.sort(this.children, IDENTITY_ORDER);
+			int h = nodeType.hashCode();
+			for (SNode child : this.children) {
+				h = 31 * h + System.identityHashCode(child);
+			}
+			this.hash = h;
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof Signature)) {
+				return false;
+			}
+			Signature other = (Signature) obj;
+			if ((hash != other.hash) || (nodeType != other.nodeType) || (children.length != other.children.length)) {
+				return false;
+			}
+			for (int i = 0; i < children.length; i++) {
+				if (children[i] != other.children[i]) {
+					return containsAll(other.children, children);
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * Fallback for children having the same identity hash code, whose
+		 * order is not determined by sorting.
+		 */
+		private static boolean containsAll(SNode[] nodes, SNode[] others) {
+			Map<SNode, Boolean> set = new IdentityHashMap<>(nodes.length);
+			for (SNode node : nodes) {
+				set.put(node, Boolean.TRUE);
+			}
+			for (SNode other : others) {
+				if (!set.containsKey(other)) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+}
@@ -0,0 +1,171 @@
+/**
+ * Copyright 2015 Humboldt-Universität zu Berlin.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.mergingModules;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Adapts the limit of a {@link MergerAdmission} to the heap pressure. After
+ * each garbage collection, the occupancy of the old generation is read. If it
+ * reaches the threshold, the limit is halved. If it falls clearly below the
+ * threshold, the limit is raised step by step up to its maximum again.
+ */
+public class HeapGovernor implements NotificationListener {
+	private static final Logger logger = LoggerFactory.getLogger(Merger.MODULE_NAME);
+	/**
+	 * the type of notifications sent by the garbage collectors, the same as
+	 * com.sun.management.GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION
+	 **/
+	private static final String GC_NOTIFICATION = "com.sun.management.gc.notification";
+	/**
+	 * the part of the threshold the occupancy has to fall below, before the
+	 * limit is raised again
+	 **/
+	private static final double HEADROOM = 0.8;
+
+	private final MergerAdmission admission;
+	/** the occupancy of the old generation, at which the limit is lowered **/
+	private final double threshold;
+	private final MergerMetrics metrics;
+	/** the garbage collectors this object listens to **/
+	private final List<NotificationEmitter> emitters = new ArrayList<>();
+
+	/**
+	 * @param admission
+	 *            the admission whose limit is adapted
+	 * @param threshold
+	 *            the occupancy of the old generation after a garbage
+	 *            collection between 0 and 1, at which the limit is lowered
+	 * @param metrics
+	 *            the metrics to report occupancies and adjustments to, might
+	 *            be null
+	 */
+	public HeapGovernor(MergerAdmission admission, double threshold, MergerMetrics metrics) {
+		this.admission = admission;
+		this.threshold = threshold;
+		this.metrics = metrics;
+	}
+
+	/**
+	 * Starts listening to the garbage collectors.
+	 */
+	public synchronized void start() {
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+			if (gc instanceof NotificationEmitter) {
+				NotificationEmitter emitter = (NotificationEmitter) gc;
+				emitter.addNotificationListener(this, null, null);
+				emitters.add(emitter);
+			}
+		}
+		if (emitters.isEmpty()) {
+			logger.warn("[Merger] No garbage collector sends notifications, the number of merged documents is not adapted to the heap occupancy. ");
+		}
+	}
+
+	/**
+	 * Stops listening to the garbage collectors.
+	 */
+	public synchronized void stop() {
+		for (NotificationEmitter emitter : emitters) {
+			try {
+				emitter.removeNotificationListener(this);
+			} catch (ListenerNotFoundException e) {
+				// already removed
+			}
+		}
+		emitters.clear();
+	}
+
+	@Override
+	public void handleNotification(Notification notification, Object handback) {
+		if (GC_NOTIFICATION.equals(notification.getType())) {
+			double occupancy = readOccupancy();
+			if (occupancy >= 0) {
+				adjust(occupancy);
+			}
+		}
+	}
+
+	/**
+	 * Adapts the limit of the admission to the given occupancy.
+	 * 
+	 * @param occupancy
+	 *            the occupancy of the old generation between 0 and 1
+	 * @return the limit after the adjustment
+	 */
+	public synchronized int adjust(double occupancy) {
+		if (metrics != null) {
+			metrics.addHeapOccupancy(occupancy);
+		}
+		int oldLimit = admission.getLimit();
+		int newLimit = oldLimit;
+		if (occupancy >= threshold) {
+			newLimit = admission.setLimit(oldLimit / 2);
+		} else if (occupancy < threshold * HEADROOM) {
+			newLimit = admission.setLimit(oldLimit + Math.max(1, admission.getMaximum() / 8));
+		}
+		if (newLimit != oldLimit) {
+			logger.debug("[Merger] Heap occupancy is {}, changed limit of merged documents from {} to {}. ", occupancy, oldLimit, newLimit);
+			if (metrics != null) {
+				metrics.addConcurrencyAdjustment(oldLimit, newLimit);
+			}
+		}
+		return newLimit;
+	}
+
+	/**
+	 * Reads the occupancy of the old generation after the last garbage
+	 * collection. The old generation is the heap pool supporting a usage
+	 * threshold. If there is no such pool, the occupancy of the entire heap is
+	 * returned.
+	 * 
+	 * @return the occupancy between 0 and 1 or -1, if it is unknown
+	 */
+	public static double readOccupancy() {
+		double occupancy = -1;
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP && pool.isUsageThresholdSupported() && pool.isCollectionUsageThresholdSupported()) {
+				MemoryUsage usage = pool.getCollectionUsage();
+				if (usage != null && usage.getMax() > 0) {
+					occupancy = Math.max(occupancy, (double) usage.getUsed() / usage.getMax());
+				}
+			}
+		}
+		if (occupancy < 0) {
+			MemoryUsage usage = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+			if (usage.getMax() > 0) {
+				occupancy = (double) usage.getUsed() / usage.getMax();
+			}
+		}
+		return occupancy;
+	}
+}
@@ -0,0 +1,139 @@
+/**
+ * Copyright 2015 Humboldt-Universität zu Berlin.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.mergingModules;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.corpus_tools.pepper.modules.exceptions.PepperModuleException;
+import org.corpus_tools.salt.core.SNode;
+
+/**
+ * A {@link NodeMapping} comparing nodes by identity. The mapping is an open
+ * addressing hash table with linear probing over two parallel arrays, so that
+ * no object is allocated per entry and a lookup neither calls
+ * {@link Object#equals(Object)} nor {@link Object#hashCode()} of the nodes.
+ */
+public class IdentityNodeMapping implements NodeMapping {
+	private static final int MIN_CAPACITY = 16;
+	/** the mapped nodes, null marks an empty slot **/
+	private SNode[] keys;
+	/** the equivalents at the same position as their key **/
+	private SNode[] values;
+	private int size = 0;
+
+	public IdentityNodeMapping() {
+		this(MIN_CAPACITY);
+	}
+
+	/**
+	 * @param expectedSize
+	 *            the number of nodes expected to be mapped
+	 */
+	public IdentityNodeMapping(int expectedSize) {
+		int capacity = MIN_CAPACITY;
+		// keep the load factor below 0.5
+		while (capacity < expectedSize * 2) {
+			capacity <<= 1;
+		}
+		this.keys = new SNode[capacity];
+		this.values = new SNode[capacity];
+	}
+
+	private static int slot(SNode node, int mask) {
+		int h = System.identityHashCode(node);
+		// spread the bits, since identity hash codes might be clustered
+		h ^= (h >>> 16);
+		h *= 0x85ebca6b;
+		h ^= (h >>> 13);
+		return h & mask;
+	}
+
+	@Override
+	public SNode get(SNode node) {
+		if (node == null) {
+			return null;
+		}
+		int mask = keys.length - 1;
+		for (int i = slot(node, mask);; i = (i + 1) & mask) {
+			SNode key = keys[i];
+			if (key == node) {
+				return values[i];
+			} else if (key == null) {
+				return null;
+			}
+		}
+	}
+
+	@Override
+	public void put(SNode node, SNode equivalent) {
+		if (node == null) {
+			throw new PepperModuleException("Cannot map null to a node. ");
+		}
+		int mask = keys.length - 1;
+		for (int i = slot(node, mask);; i = (i + 1) & mask) {
+			SNode key = keys[i];
+			if (key == node) {
+				values[i] = equivalent;
+				return;
+			} else if (key == null) {
+				keys[i] = node;
+				values[i] = equivalent;
+				if (++size * 2 > keys.length) {
+					rehash(keys.length * 2);
+				}
+				return;
+			}
+		}
+	}
+
+	private void rehash(int capacity) {
+		SNode[] oldKeys = keys;
+		SNode[] oldValues = values;
+		keys = new SNode[capacity];
+		values = new SNode[capacity];
+		int mask = capacity - 1;
+		for (int j = 0; j < oldKeys.length; j++) {
+			if (oldKeys[j] != null) {
+				int i = slot(oldKeys[j], mask);
+				while (keys[i] != null) {
+					i = (i + 1) & mask;
+				}
+				keys[i] = oldKeys[j];
+				values[i] = oldValues[j];
+			}
+		}
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public Collection<SNode> keys() {
+		List<SNode> retVal = new ArrayList<>(size);
+		for (SNode key : keys) {
+			if (key != null) {
+				retVal.add(key);
+			}
+		}
+		return retVal;
+	}
+}
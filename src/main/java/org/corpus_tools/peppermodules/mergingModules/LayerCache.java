@@ -0,0 +1,159 @@
+/**
+ * Copyright 2015 Humboldt-Universität zu Berlin.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.mergingModules;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.corpus_tools.salt.SaltFactory;
+import org.corpus_tools.salt.common.SDocumentGraph;
+import org.corpus_tools.salt.core.SLayer;
+import org.corpus_tools.salt.core.SNode;
+import org.corpus_tools.salt.core.SRelation;
+import org.corpus_tools.salt.util.SaltUtil;
+
+/**
+ * Maps the {@link SLayer}s of other graphs to the {@link SLayer}s of a base
+ * graph by their name and collects the nodes and relations to be added to
+ * them. Looking up a layer by its name in the graph means to scan all layers,
+ * therefore each name is only looked up once and layers created for names not
+ * contained in the base graph are remembered. <br/>
+ * Nodes and relations are not added to a layer immediately, but on
+ * {@link #flush()} all at once for each layer.
+ */
+class LayerCache {
+	/** graph into which layers are copied **/
+	private final SDocumentGraph baseGraph;
+	/** maps the name of a layer to the layer of the base graph **/
+	private final Map<String, SLayer> layersByName = new HashMap<>();
+	/** nodes to be added to each layer **/
+	private final Map<SLayer, List<SNode>> pendingNodes = new LinkedHashMap<>();
+	/** relations to be added to each layer **/
+	private final Map<SLayer, List<SRelation>> pendingRelations = new LinkedHashMap<>();
+
+	LayerCache(SDocumentGraph baseGraph) {
+		this.baseGraph = baseGraph;
+	}
+
+	/**
+	 * Returns the layer of the base graph having the same name as the given
+	 * layer. If no such layer exists in base graph, it will be created and all
+	 * annotations of the given layer will be moved to it.
+	 * 
+	 * @param otherLayer
+	 *            layer of an other graph
+	 * @return the equivalent layer of the base graph
+	 */
+	SLayer getBaseLayer(SLayer otherLayer) {
+		String name = otherLayer.getName();
+		SLayer baseLayer = layersByName.get(name);
+		if (baseLayer == null) {
+			List<SLayer> layers = baseGraph.getLayerByName(name);
+			if ((layers != null) && (!layers.isEmpty())) {
+				baseLayer = layers.get(0);
+			} else {
+				baseLayer = SaltFactory.createSLayer();
+				baseLayer.setName(name);
+				SaltUtil.moveAnnotations(otherLayer, baseLayer);
+				SaltUtil.moveMetaAnnotations(otherLayer, baseLayer);
+				baseGraph.addLayer(baseLayer);
+			}
+			layersByName.put(name, baseLayer);
+		}
+		return baseLayer;
+	}
+
+	/**
+	 * Adds the given node to the given layer on the next {@link #flush()}.
+	 */
+	void addNode(SLayer layer, SNode node) {
+		List<SNode> nodes = pendingNodes.get(layer);
+		if (nodes == null) {
+			nodes = new ArrayList<>();
+			pendingNodes.put(layer, nodes);
+		}
+		nodes.add(node);
+	}
+
+	/**
+	 * Adds the given relation to the given layer on the next {@link #flush()}.
+	 */
+	void addRelation(SLayer layer, SRelation relation) {
+		List<SRelation> relations = pendingRelations.get(layer);
+		if (relations == null) {
+			relations = new ArrayList<>();
+			pendingRelations.put(layer, relations);
+		}
+		relations.add(relation);
+	}
+
+	/**
+	 * Adds all given nodes to the given layer, which are not contained in it
+	 * yet.
+	 * 
+	 * @param layer
+	 *            the layer to add the nodes to
+	 * @param nodes
+	 *            the nodes to be added
+	 */
+	static void addNodes(SLayer layer, Collection<? extends SNode> nodes) {
+		Set<SNode> contained = layer.getNodes();
+		for (SNode node : nodes) {
+			if ((contained == null) || (!contained.contains(node))) {
+				layer.addNode(node);
+			}
+		}
+	}
+
+	/**
+	 * Adds all given relations to the given layer, which are not contained in
+	 * it yet.
+	 * 
+	 * @param layer
+	 *            the layer to add the relations to
+	 * @param relations
+	 *            the relations to be added
+	 */
+	static void addRelations(SLayer layer, Collection<? extends SRelation> relations) {
+		Set<SRelation> contained = layer.getRelations();
+		for (SRelation relation : relations) {
+			if ((contained == null) || (!contained.contains(relation))) {
+				layer.addRelation(relation);
+			}
+		}
+	}
+
+	/**
+	 * Adds all collected nodes and relations to their layers.
+	 */
+	void flush() {
+		for (Map.Entry<SLayer, List<SNode>> entry : pendingNodes.entrySet()) {
+			addNodes(entry.getKey(), entry.getValue());
+		}
+		pendingNodes.clear();
+		for (Map.Entry<SLayer, List<SRelation>> entry : pendingRelations.entrySet()) {
+			addRelations(entry.getKey(), entry.getValue());
+		}
+		pendingRelations.clear();
+	}
+}
@@ -18,12 +18,14 @@
 package org.corpus_tools.peppermodules.mergingModules;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import org.corpus_tools.pepper.modules.exceptions.PepperModuleException;
 import org.corpus_tools.salt.SALT_TYPE;
@@ -34,26 +36,22 @@ import org.corpus_tools.salt.common.SSpan;
 import org.corpus_tools.salt.common.SStructure;
 import org.corpus_tools.salt.common.SStructuredNode;
 import org.corpus_tools.salt.common.STextualDS;
-import org.corpus_tools.salt.common.STextualRelation;
 import org.corpus_tools.salt.common.SToken;
-import org.corpus_tools.salt.core.GraphTraverseHandler;
 import org.corpus_tools.salt.core.SAnnotation;
-import org.corpus_tools.salt.core.SGraph.GRAPH_TRAVERSE_TYPE;
 import org.corpus_tools.salt.core.SLayer;
 import org.corpus_tools.salt.core.SMetaAnnotation;
 import org.corpus_tools.salt.core.SNode;
 import org.corpus_tools.salt.core.SRelation;
 import org.corpus_tools.salt.graph.IdentifiableElement;
-import org.corpus_tools.salt.graph.Relation;
 import org.corpus_tools.salt.util.SaltUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * This class handles the merging of higher document-structure, which means the
- * bottom-up traversal. stores all {@link SRelation} objects which have already
- * been traversed, this is necessary, to first detect cycles and second to not
- * traverse a super tree twice, e.g:
+ * This class handles the merging of higher document-structure, which means
+ * merging the nodes of the other graph bottom-up. The order is computed by
+ * {@link MergeOrder}, so that each node is merged after all of its children
+ * and only once, even if it is reachable via several parents, e.g:
  * 
  * <pre>
  *           a
@@ -63,16 +61,19 @@ import org.slf4j.LoggerFactory;
  *         c   d
  * </pre>
  * 
- * In this sample, the relation between a and b should be traversed only once.
- * With normal bottom-up it would be traversed twice, therefore we need to store
- * already traversed relations to avoid this.
+ * In this sample, b is merged only once, after c and d and before a.
  * 
  * @author Florian Zipser
  * @author Jakob Schmolling
  * 
  */
-class MergeHandler implements GraphTraverseHandler {
+class MergeHandler {
 	public static final Logger logger = LoggerFactory.getLogger(Merger.MODULE_NAME);
+	/**
+	 * marks a node, for which no shared parent was found while planning a
+	 * parallel merge
+	 **/
+	private static final SNode NO_PARENT = SaltFactory.createSNode();
 	/** graph whose nodes and relations are to copy **/
 	private SDocumentGraph otherGraph = null;
 
@@ -113,23 +114,46 @@ class MergeHandler implements GraphTraverseHandler {
 	 * a map to relate nodes contained by otherGraph to nodes from baseGraph,
 	 * which are mergable. Key is other node, value is base node.
 	 **/
-	private Map<SNode, SNode> node2NodeMap = null;
+	private NodeMapping node2NodeMap = null;
 	/**
 	 * current used {@link TokenMergeContainer} object, containing all mergable
 	 * tokens
 	 **/
 	private TokenMergeContainer container = null;
 
-	public MergeHandler(Map<SNode, SNode> node2NodeMap, SDocumentGraph otherGraph, SDocumentGraph baseGraph, TokenMergeContainer container) {
+	/**
+	 * index over spans and structures of baseGraph, used to find equivalents
+	 * of spans and structures of otherGraph
+	 **/
+	private ChildSignatureIndex childSignatureIndex = null;
+
+	private ChildSignatureIndex getChildSignatureIndex() {
+		if (childSignatureIndex == null) {
+			if (container != null) {
+				childSignatureIndex = container.getChildSignatureIndex(getBaseGraph());
+			} else {
+				childSignatureIndex = new ChildSignatureIndex(getBaseGraph());
+			}
+		}
+		return childSignatureIndex;
+	}
+
+	/** the layers of baseGraph and the nodes and relations to be added **/
+	private LayerCache layerCache = null;
+
+	public MergeHandler(NodeMapping node2NodeMap, SDocumentGraph otherGraph, SDocumentGraph baseGraph, TokenMergeContainer container) {
 		this.node2NodeMap = node2NodeMap;
 		setOtherGraph(otherGraph);
 		setBaseGraph(baseGraph);
 		this.container = container;
+		this.layerCache = new LayerCache(baseGraph);
 	}
 
 	/**
 	 * Copies all {@link SPointingRelation}s from <code>otherGraph</code> to
-	 * <code>baseGraph</code> and even copies their annotations and layers.
+	 * <code>baseGraph</code> and even copies their annotations and layers. A
+	 * relation is skipped, if <code>baseGraph</code> already contains a
+	 * pointing relation with the same source, target and type.
 	 * 
 	 * @param otherGraph
 	 *            graph containing the {@link SPointingRelation}s to be copied
@@ -137,96 +161,248 @@ class MergeHandler implements GraphTraverseHandler {
 	 *            target graph
 	 */
 	public void mergeSPointingRelations(SDocumentGraph otherGraph, SDocumentGraph baseGraph) {
-		for (SPointingRelation otherRel : otherGraph.getPointingRelations()) {
+		List<SPointingRelation> otherRels = otherGraph.getPointingRelations();
+		if ((otherRels == null) || (otherRels.isEmpty())) {
+			return;
+		}
+		Set<PointingRelationKey> baseRels = new HashSet<>();
+		if (baseGraph.getPointingRelations() != null) {
+			for (SPointingRelation baseRel : baseGraph.getPointingRelations()) {
+				baseRels.add(new PointingRelationKey(baseRel.getSource(), baseRel.getTarget(), baseRel.getType()));
+			}
+		}
+		int unmatched = 0;
+		for (SPointingRelation otherRel : otherRels) {
 			SNode baseSourceNode = node2NodeMap.get(otherRel.getSource());
 			SNode baseTargetNode = node2NodeMap.get(otherRel.getTarget());
 
 			if (baseSourceNode == null) {
-				logger.warn("[Merger] Cannot merge SPointingRelation '" + otherRel.getId() + "', because no matching node was found in target graph for source node '" + otherRel.getSource() + "'. ");
+				logger.debug("[Merger] Cannot merge SPointingRelation '{}', because no matching node was found in target graph for source node '{}'. ", otherRel.getId(), otherRel.getSource());
+				unmatched++;
 			} else if (baseTargetNode == null) {
-				logger.warn("[Merger] Cannot merge SPointingRelation '" + otherRel.getId() + "', because no matching node was found in source graph for source node '" + otherRel.getTarget() + "'. ");
-			} else {
-				List<SRelation<SNode, SNode>> rels = baseGraph.getRelations(baseSourceNode.getId(), baseTargetNode.getId());
-				boolean skip = false;
-				if ((rels != null) && (rels.size() > 0)) {
-					for (Relation rel : rels) {
-						if (rel instanceof SPointingRelation) {
-							// there is already a pointing relation between
-							// nodes
-
-							if (((SPointingRelation) rel).getType().equals(otherRel.getType())) {
-								// skip relation when base graph already
-								// contains an
-								// equal relation
-								skip = true;
-								break;
-							}
-						}
+				logger.debug("[Merger] Cannot merge SPointingRelation '{}', because no matching node was found in target graph for target node '{}'. ", otherRel.getId(), otherRel.getTarget());
+				unmatched++;
+			} else if (baseRels.add(new PointingRelationKey(baseSourceNode, baseTargetNode, otherRel.getType()))) {
+				// base graph does not contain an equal relation yet
+				SPointingRelation baseRel = SaltFactory.createSPointingRelation();
+				baseRel.setSource((SStructuredNode) baseSourceNode);
+				baseRel.setTarget((SStructuredNode) baseTargetNode);
+				baseRel.setType(otherRel.getType());
+				SaltUtil.moveAnnotations(otherRel, baseRel);
+				SaltUtil.moveMetaAnnotations(otherRel, baseRel);
+				baseGraph.addRelation(baseRel);
+				copySLayers(otherRel, baseRel);
+			}
+		}
+		layerCache.flush();
+		if (unmatched > 0) {
+			String documentId = (otherGraph.getDocument() != null) ? SaltUtil.getGlobalId(otherGraph.getDocument().getIdentifier()) : otherGraph.getId();
+			logger.warn("[Merger] Cannot merge {} of {} SPointingRelations of document '{}', because no matching node was found in target graph for their source or target node. ", unmatched, otherRels.size(), documentId);
+		}
+	}
+
+	/**
+	 * Identifies a {@link SPointingRelation} by its source, target and type.
+	 * Nodes are compared by identity.
+	 */
+	private static final class PointingRelationKey {
+		private final SNode source;
+		private final SNode target;
+		private final String type;
+
+		private PointingRelationKey(SNode source, SNode target, String type) {
+			this.source = source;
+			this.target = target;
+			this.type = type;
+		}
+
+		@Override
+		public int hashCode() {
+			return (31 * System.identityHashCode(source) + System.identityHashCode(target)) * 31 + Objects.hashCode(type);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof PointingRelationKey)) {
+				return false;
+			}
+			PointingRelationKey other = (PointingRelationKey) obj;
+			return (source == other.source) && (target == other.target) && Objects.equals(type, other.type);
+		}
+	}
+
+	/**
+	 * Merges all tokens of <code>otherGraph</code> into <code>baseGraph</code>
+	 * in a single pass. This is used instead of {@link #mergeBottomUp(List)}
+	 * for graphs only containing tokens and texts, since tokens have no
+	 * children to be merged first and no parents to be looked up.
+	 */
+	public void mergeTokensInBulk() {
+		TextualRelationIndex textRelIndex = container.getTextualRelationIndex(getOtherGraph());
+		for (STextualDS otherText : getOtherGraph().getTextualDSs()) {
+			for (SToken otherToken : textRelIndex.getTokens(otherText)) {
+				SNode baseToken = node2NodeMap.get(otherToken);
+				if (baseToken == null) {
+					baseToken = createToken(otherToken);
+					if (baseToken == null) {
+						continue;
 					}
+					node2NodeMap.put(otherToken, baseToken);
 				}
-				if (!skip) {
-					SPointingRelation baseRel = SaltFactory.createSPointingRelation();
-					baseRel.setSource((SStructuredNode) baseSourceNode);
-					baseRel.setTarget((SStructuredNode) baseTargetNode);
-					baseRel.setType(otherRel.getType());
-					SaltUtil.moveAnnotations(otherRel, baseRel);
-					SaltUtil.moveMetaAnnotations(otherRel, baseRel);
-					baseGraph.addRelation(baseRel);
-					copySLayers(otherRel, baseRel);
-				}
+				moveAnnosForRelations(otherToken, baseToken);
+				copySLayers(otherToken, baseToken);
+				SaltUtil.moveAnnotations(otherToken, baseToken);
+				SaltUtil.moveMetaAnnotations(otherToken, baseToken);
+			}
+		}
+		// tokens not connected to any text cannot be aligned
+		for (SToken otherToken : getOtherGraph().getTokens()) {
+			if (textRelIndex.getText(otherToken) == null) {
+				logger.warn("[Merger] Could not create token in target graph matching to node '" + SaltUtil.getGlobalId(otherToken.getIdentifier()) + "', because it is not connected to any text. ");
 			}
 		}
+		layerCache.flush();
 	}
 
 	/**
-	 * set of already visited {@link SRelation}s while traversing, this is
-	 * necessary to avoid cycles
-	 **/
-	private Set<SRelation> visitedRelations = new HashSet<>();
+	 * Merges all nodes of <code>otherGraph</code> reachable from the given
+	 * roots bottom-up into <code>baseGraph</code>. {@link SPointingRelation}s
+	 * are not followed, they need to be merged afterwards via
+	 * {@link #mergeSPointingRelations(SDocumentGraph, SDocumentGraph)}.
+	 * 
+	 * @param roots
+	 *            the nodes to start with
+	 */
+	public void mergeBottomUp(List<SNode> roots) {
+		MergeOrder order = new MergeOrder(getOtherGraph());
+		if ((getProperties() != null) && (getProperties().isParallelMerge())) {
+			mergeInParallel(order, roots);
+		} else {
+			for (SNode node : order.next(roots)) {
+				mergeNode(node, null);
+			}
+		}
+		layerCache.flush();
+	}
 
 	/**
-	 * Called by Pepper as callback, when otherGraph is traversed. Currently
-	 * only returns <code>true</code> to traverse the entire graph.
+	 * Partitions the roots into components sharing no descendants and plans
+	 * the merge of each component in a fork-join task. Planning only reads the
+	 * base graph, it computes the bottom-up order of the component and looks
+	 * up the equivalents of spans and structures, whose children all have an
+	 * equivalent before merging. Nested spans and structures are looked up
+	 * while merging. Afterwards the components are merged one after another in
+	 * the order of their roots, so that the base graph is only changed by the
+	 * current thread and the result does not depend on the scheduling. Nodes
+	 * are created grouped by component, so their order and identifiers differ
+	 * from {@link #mergeBottomUp(List)} without parallel merging.
 	 */
-	@Override
-	public boolean checkConstraint(GRAPH_TRAVERSE_TYPE traversalType, String traversalId, SRelation sRelation, SNode currNode, long order) {
-		boolean retVal = true;
-		if (sRelation != null) {
-			if (sRelation instanceof SPointingRelation) {
-				// in case of relation is pointing relation, ignore it, it will
-				// be processed later
-
-				retVal = false;
-			} else {
-				if (visitedRelations.contains(sRelation)) {
-					retVal = false;
-				} else {
-					visitedRelations.add(sRelation);
-				}
+	private void mergeInParallel(MergeOrder order, List<SNode> roots) {
+		if (getOtherGraph().getTextualDSs() != null) {
+			// texts are shared by all components and not merged here
+			for (STextualDS text : getOtherGraph().getTextualDSs()) {
+				order.exclude(text);
+			}
+		}
+		if (getOtherGraph().getTimeline() != null) {
+			order.exclude(getOtherGraph().getTimeline());
+		}
+		List<List<SNode>> components = order.partition(roots);
+		logger.debug("[Merger] Merging {} independent components of document-structure in parallel. ", components.size());
+		// create the index before planning, planning must not change anything
+		getChildSignatureIndex();
+		List<SNode>[] orders = newNodeLists(components.size());
+		SNode[][] plannedParents = new SNode[components.size()][];
+		ForkJoinPool.commonPool().invoke(new PlanTask(order, components, orders, plannedParents, 0, components.size()));
+		for (int i = 0; i < orders.length; i++) {
+			for (int j = 0; j < orders[i].size(); j++) {
+				mergeNode(orders[i].get(j), plannedParents[i][j]);
 			}
 		}
-		return (retVal);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<SNode>[] newNodeLists(int size) {
+		return new List[size];
 	}
 
 	/**
-	 * Called by Pepper as callback, when otherGraph is traversed. Currently is
-	 * empty.
+	 * Plans the merge of a range of components, see
+	 * {@link MergeHandler#mergeInParallel(MergeOrder, List)}.
 	 */
-	@Override
-	public void nodeReached(GRAPH_TRAVERSE_TYPE traversalType, String traversalId, SNode currNode, SRelation sRelation, SNode otherNode, long order) {
+	private class PlanTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final MergeOrder order;
+		private final List<List<SNode>> components;
+		private final List<SNode>[] orders;
+		private final SNode[][] plannedParents;
+		private final int start;
+		private final int end;
+
+		private PlanTask(MergeOrder order, List<List<SNode>> components, List<SNode>[] orders, SNode[][] plannedParents, int start, int end) {
+			this.order = order;
+			this.components = components;
+			this.orders = orders;
+			this.plannedParents = plannedParents;
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		protected void compute() {
+			if (end - start <= 1) {
+				for (int i = start; i < end; i++) {
+					plan(i);
+				}
+			} else {
+				int middle = (start + end) >>> 1;
+				invokeAll(new PlanTask(order, components, orders, plannedParents, start, middle), new PlanTask(order, components, orders, plannedParents, middle, end));
+			}
+		}
+
+		private void plan(int component) {
+			List<SNode> nodes = order.next(components.get(component));
+			SNode[] parents = new SNode[nodes.size()];
+			if (!getProperties().isCopyNodes()) {
+				for (int i = 0; i < nodes.size(); i++) {
+					SNode node = nodes.get(i);
+					List<SNode> children = null;
+					SALT_TYPE sTypeNode = null;
+					if (node instanceof SSpan) {
+						children = getChildren(node, SALT_TYPE.SSPANNING_RELATION);
+						sTypeNode = SALT_TYPE.SSPAN;
+					} else if (node instanceof SStructure) {
+						children = getChildren(node, SALT_TYPE.SDOMINANCE_RELATION);
+						sTypeNode = SALT_TYPE.SSTRUCTURE;
+					}
+					if ((children != null) && (!children.contains(null))) {
+						// children not merged yet are looked up when merging
+						List<SNode> sharedParents = getSharedParent(children, sTypeNode, null);
+						parents[i] = sharedParents.isEmpty() ? NO_PARENT : sharedParents.get(0);
+					}
+				}
+			}
+			orders[component] = nodes;
+			plannedParents[component] = parents;
+		}
 	}
 
 	/**
-	 * Called by Pepper as callback, when otherGraph is traversed.
+	 * Merges a single node, whose children have already been merged.
+	 * 
+	 * @param currNode
+	 *            the node to be merged
+	 * @param plannedParent
+	 *            the equivalent found while planning, {@link #NO_PARENT} or
+	 *            null
 	 */
-	@Override
-	public void nodeLeft(GRAPH_TRAVERSE_TYPE traversalType, String traversalId, SNode currNode, SRelation relation, SNode otherNode, long order) {
+	private void mergeNode(SNode currNode, SNode plannedParent) {
 		if (currNode instanceof SToken) {
-			mergeNode(currNode, null, SALT_TYPE.STOKEN);
+			mergeNode(currNode, null, SALT_TYPE.STOKEN, null);
 		} else if (currNode instanceof SSpan) {
-			mergeNode(currNode, SALT_TYPE.SSPANNING_RELATION, SALT_TYPE.SSPAN);
+			mergeNode(currNode, SALT_TYPE.SSPANNING_RELATION, SALT_TYPE.SSPAN, plannedParent);
 		} else if (currNode instanceof SStructure) {
-			mergeNode(currNode, SALT_TYPE.SDOMINANCE_RELATION, SALT_TYPE.SSTRUCTURE);
+			mergeNode(currNode, SALT_TYPE.SDOMINANCE_RELATION, SALT_TYPE.SSTRUCTURE, plannedParent);
 		} else if (currNode instanceof STextualDS) {
 			// base text should be merged already
 		} else {
@@ -239,9 +415,12 @@ class MergeHandler implements GraphTraverseHandler {
 	 * @param currNode
 	 * @param sTypeRelations
 	 * @param sTypeNode
+	 * @param plannedParent
+	 *            the equivalent found while planning, {@link #NO_PARENT} or
+	 *            null
 	 * @return
 	 */
-	private void mergeNode(SNode currNode, SALT_TYPE sTypeRelations, SALT_TYPE sTypeNode) {
+	private void mergeNode(SNode currNode, SALT_TYPE sTypeRelations, SALT_TYPE sTypeNode, SNode plannedParent) {
 		SNode baseNode = null;
 
 		// list of all equivalents to children of current node in base document
@@ -253,7 +432,7 @@ class MergeHandler implements GraphTraverseHandler {
 			// list all parents in base document sharing the children
 			List<SNode> sharedParents = new ArrayList<>();
 			if (childrens.size() > 0) {
-				sharedParents = getSharedParent(childrens, sTypeNode);
+				sharedParents = getSharedParent(childrens, sTypeNode, plannedParent);
 			}
 			if (sharedParents.size() > 0) {
 				// an equivalent to current node in base document was found
@@ -267,25 +446,8 @@ class MergeHandler implements GraphTraverseHandler {
 			switch (sTypeNode) {
 			case STOKEN: {
 				baseNode = node2NodeMap.get(currNode);
-				if (baseNode != null) {
-					// Match found
-				} else {
-					STextualRelation textRel = null;
-					for (SRelation rel : currNode.getOutRelations()) {
-						if (rel instanceof STextualRelation) {
-							textRel = (STextualRelation) rel;
-							break;
-						}
-					}
-					// Find the alignment of the current token to create a new
-					// one
-					Integer start = container.getAlignedTokenStart((STextualDS) node2NodeMap.get(textRel.getTarget()), (SToken) currNode);
-					Integer length = container.getAlignedTokenLength((STextualDS) node2NodeMap.get(textRel.getTarget()), (SToken) currNode);
-					if ((start != -1) && (length != -1)) {
-						baseNode = baseGraph.createToken((STextualDS) node2NodeMap.get(textRel.getTarget()), start, start + length);
-					} else {
-						logger.warn("[Merger] Could not create token in target graph matching to node '" + SaltUtil.getGlobalId(currNode.getIdentifier()) + "', because start (" + start + ") or length (" + length + ") was empty. ");
-					}
+				if (baseNode == null) {
+					baseNode = createToken((SToken) currNode);
 				}
 				break;
 			}
@@ -295,6 +457,7 @@ class MergeHandler implements GraphTraverseHandler {
 					toSTokens.add((SToken) sNode);
 				}
 				baseNode = baseGraph.createSpan(toSTokens);
+				getChildSignatureIndex().addParent(baseNode, SALT_TYPE.SSPAN, childrens);
 				break;
 			}
 			case SSTRUCTURE: {
@@ -303,6 +466,7 @@ class MergeHandler implements GraphTraverseHandler {
 					baseStructureNodes.add((SStructuredNode) sNode);
 				}
 				baseNode = baseGraph.createStructure(baseStructureNodes);
+				getChildSignatureIndex().addParent(baseNode, SALT_TYPE.SSTRUCTURE, childrens);
 				break;
 			}
 			default:
@@ -321,59 +485,55 @@ class MergeHandler implements GraphTraverseHandler {
 		}
 	}
 
+	/**
+	 * Creates a token in <code>baseGraph</code> for a token of
+	 * <code>otherGraph</code> having no equivalent, at the position the token
+	 * was aligned to.
+	 * 
+	 * @param otherToken
+	 *            the token of <code>otherGraph</code>
+	 * @return the created token or null, if the token was not aligned
+	 */
+	private SToken createToken(SToken otherToken) {
+		STextualDS otherText = container.getTextualRelationIndex(getOtherGraph()).getText(otherToken);
+		// Find the alignment of the current token to create a new one
+		STextualDS baseText = (STextualDS) node2NodeMap.get(otherText);
+		int start = container.getAlignedTokenStart(baseText, otherToken);
+		int length = container.getAlignedTokenLength(baseText, otherToken);
+		if ((start != -1) && (length != -1)) {
+			SToken baseToken = baseGraph.createToken(baseText, start, start + length);
+			container.addToTextualRelationIndex(baseGraph, baseToken);
+			return baseToken;
+		}
+		logger.warn("[Merger] Could not create token in target graph matching to node '" + SaltUtil.getGlobalId(otherToken.getIdentifier()) + "', because start (" + start + ") or length (" + length + ") was empty. ");
+		return null;
+	}
+
 	/**
 	 * Copies the {@link SNode} or {@link SRelation} objects passed as
 	 * <code>other</code> to all layers, the object passed as <code>base</code>
 	 * is connected with. If no such layer exists in target graph, it will be
-	 * created and all its annotations will be moved.
+	 * created and all its annotations will be moved. The layers are looked up
+	 * in the {@link LayerCache}, the object is added to them on
+	 * {@link LayerCache#flush()}.
 	 * 
 	 * @param other
 	 * @param base
 	 */
-	private static void copySLayers(IdentifiableElement other, IdentifiableElement base) {
+	private void copySLayers(IdentifiableElement other, IdentifiableElement base) {
 		if ((other instanceof SRelation) && (base instanceof SRelation)) {
 			SRelation otherRel = (SRelation) other;
-			SRelation baseRel = (SRelation) base;
-			if ((otherRel.getLayers() != null) && (otherRel.getLayers().size() != 0)) {
-				SDocumentGraph baseGraph = ((SDocumentGraph) baseRel.getGraph());
-				Iterator<SLayer> it = otherRel.getLayers().iterator();
-				while (it.hasNext()) {
-					SLayer otherLayer = it.next();
-					List<SLayer> layers = baseGraph.getLayerByName(otherLayer.getName());
-					SLayer baseLayer = null;
-					if ((layers != null) && (!layers.isEmpty())) {
-						baseLayer = layers.get(0);
-					}
-					if (baseLayer == null) {
-						baseLayer = SaltFactory.createSLayer();
-						baseLayer.setName(otherLayer.getName());
-						SaltUtil.moveAnnotations(otherLayer, baseLayer);
-						SaltUtil.moveMetaAnnotations(otherLayer, baseLayer);
-						baseGraph.addLayer(baseLayer);
-					}
-					baseRel.addLayer(baseLayer);
+			Set<SLayer> otherLayers = otherRel.getLayers();
+			if ((otherLayers != null) && (otherLayers.size() != 0)) {
+				for (SLayer otherLayer : otherLayers) {
+					layerCache.addRelation(layerCache.getBaseLayer(otherLayer), (SRelation) base);
 				}
 			}
 		} else if ((other instanceof SNode) && (base instanceof SNode)) {
-			SNode otherNode = (SNode) other;
-			SNode baseNode = (SNode) base;
-			if ((otherNode.getLayers() != null) && (otherNode.getLayers().size() != 0)) {
-				SDocumentGraph baseGraph = ((SDocumentGraph) baseNode.getGraph());
-
-				for (SLayer otherLayer : otherNode.getLayers()) {
-					List<SLayer> layers = baseGraph.getLayerByName(otherLayer.getName());
-					SLayer baseLayer = null;
-					if ((layers != null) && (!layers.isEmpty())) {
-						baseLayer = layers.get(0);
-					}
-					if (baseLayer == null) {
-						baseLayer = SaltFactory.createSLayer();
-						baseLayer.setName(otherLayer.getName());
-						SaltUtil.moveAnnotations(otherLayer, baseLayer);
-						SaltUtil.moveMetaAnnotations(otherLayer, baseLayer);
-						baseGraph.addLayer(baseLayer);
-					}
-					baseNode.addLayer(baseLayer);
+			Set<SLayer> otherLayers = ((SNode) other).getLayers();
+			if ((otherLayers != null) && (otherLayers.size() != 0)) {
+				for (SLayer otherLayer : otherLayers) {
+					layerCache.addNode(layerCache.getBaseLayer(otherLayer), (SNode) base);
 				}
 			}
 		}
@@ -383,34 +543,58 @@ class MergeHandler implements GraphTraverseHandler {
 	 * Retrieves the {@link SRelation}s between given nodes and moves their
 	 * {@link SAnnotation} and {@link SMetaAnnotation} objects. Further
 	 * {@link SLayer}s will be copied and the stype (see
-	 * {@link SRelation#getSTypes()}).
+	 * {@link SRelation#getSTypes()}). An other relation corresponds to the
+	 * first out-relation of the base node having the same class and the
+	 * equivalent target.
 	 * 
 	 * @param otherNode
 	 * @param baseNode
 	 */
 	private void moveAnnosForRelations(SNode otherNode, SNode baseNode) {
 		if ((otherNode != null) && (baseNode != null)) {
+			List<SRelation> baseRels = baseNode.getOutRelations();
+			if ((baseRels == null) || (baseRels.isEmpty())) {
+				return;
+			}
+			// the out-relations of the base node grouped by their target
+			Map<SNode, List<SRelation>> baseRelsByTarget = new HashMap<>(baseRels.size() * 2);
+			for (SRelation baseRel : baseRels) {
+				List<SRelation> rels = baseRelsByTarget.get(baseRel.getTarget());
+				if (rels == null) {
+					rels = new ArrayList<>(1);
+					baseRelsByTarget.put((SNode) baseRel.getTarget(), rels);
+				}
+				rels.add(baseRel);
+			}
 			for (SRelation otherRel : otherNode.getOutRelations()) {
-				SNode baseChildNode = node2NodeMap.get(otherRel.getTarget());
-				for (SRelation baseRel : baseNode.getOutRelations()) {
-					// check if this is the same relation
-					if (baseRel.getTarget().equals(baseChildNode)
-							&& Objects.equals(baseRel.getClass(), otherRel.getClass())) {
-						SaltUtil.moveAnnotations(otherRel, baseRel);
-						SaltUtil.moveMetaAnnotations(otherRel, baseRel);
-						if(baseRel.getType() == null) {
-							// Only copy base type if the base relation does 
-							// not already has a type.
-							baseRel.setType(otherRel.getType());
+				List<SRelation> rels = baseRelsByTarget.get(node2NodeMap.get((SNode) otherRel.getTarget()));
+				if (rels != null) {
+					for (SRelation baseRel : rels) {
+						// check if this is the same relation
+						if (Objects.equals(baseRel.getClass(), otherRel.getClass())) {
+							moveRelationContent(otherRel, baseRel);
+							break;
 						}
-						copySLayers(otherRel, baseRel);
-						break;
 					}
 				}
 			}
 		}
 	}
 
+	/**
+	 * Moves the annotations, meta annotations, type and layers of
+	 * <code>otherRel</code> to its equivalent <code>baseRel</code>. The type
+	 * is only copied, if the base relation does not have a type yet.
+	 */
+	private void moveRelationContent(SRelation otherRel, SRelation baseRel) {
+		SaltUtil.moveAnnotations(otherRel, baseRel);
+		SaltUtil.moveMetaAnnotations(otherRel, baseRel);
+		if (baseRel.getType() == null) {
+			baseRel.setType(otherRel.getType());
+		}
+		copySLayers(otherRel, baseRel);
+	}
+
 	/**
 	 * Returns a list of nodes in base document. The returned nodes are
 	 * equivalents to the direct children of the passed parent node. The
@@ -441,20 +625,75 @@ class MergeHandler implements GraphTraverseHandler {
 		return children;
 	}
 
+	/**
+	 * Checks that no other parent of all children precedes the given parent
+	 * in the in-relations of the first child. Such a parent, for instance a
+	 * span covering further tokens, is the first shared parent found by
+	 * scanning the relations and therefore has precedence over the parent
+	 * with exactly the given children. The check is only necessary, if
+	 * {@link ChildSignatureIndex#hasOtherParents(SALT_TYPE, java.util.Collection)}
+	 * is true.
+	 */
+	private boolean isFirstSharedParent(SNode parent, List<SNode> children, SALT_TYPE sTypeNode) {
+		Set<SNode> distinctChildren = new HashSet<>(children);
+		for (SRelation rel : children.get(0).getInRelations()) {
+			SNode candidate = (SNode) rel.getSource();
+			if (candidate == parent) {
+				return true;
+			}
+			if ((SALT_TYPE.class2SaltType(candidate.getClass()).contains(sTypeNode)) && (candidate.getOutRelations().size() >= distinctChildren.size())) {
+				Set<SNode> candidateChildren = new HashSet<>();
+				for (SRelation outRel : candidate.getOutRelations()) {
+					candidateChildren.add((SNode) outRel.getTarget());
+				}
+				if (candidateChildren.containsAll(distinctChildren)) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
 	/**
 	 * Returns a list of nodes that are the parents of every node in the given
 	 * base list. Only relations with the given {@link SALT_TYPE} will be
-	 * considered.
+	 * considered. A node having exactly the given children is looked up in the
+	 * {@link ChildSignatureIndex} first. It is returned, if no other parent of
+	 * all children precedes it in the relations of the first child, otherwise
+	 * the parents of all children are intersected.
 	 * 
 	 * @param children
 	 *            list of nodes whose parents are looked for
 	 * @param sTypeNode
 	 *            regarded types of relations
+	 * @param plannedParent
+	 *            a shared parent already found before merging started,
+	 *            {@link #NO_PARENT} if none was found or null if the children
+	 *            were not planned, it is returned when the index contains no
+	 *            node
 	 * @return a list of parents
 	 */
-	private List<SNode> getSharedParent(List<SNode> children, SALT_TYPE sTypeNode) {
+	private List<SNode> getSharedParent(List<SNode> children, SALT_TYPE sTypeNode, SNode plannedParent) {
 		List<SNode> sharedParents = new ArrayList<>();
-		if ((children.size() > 0) && (children.get(0) != null)) {
+		if (children.contains(null)) {
+			// a child without equivalent in base graph can not have a parent
+			// there
+			return sharedParents;
+		}
+		if (children.size() > 0) {
+			SNode indexedParent = getChildSignatureIndex().getParent(sTypeNode, children);
+			if ((indexedParent != null) && ((!getChildSignatureIndex().hasOtherParents(sTypeNode, children)) || (isFirstSharedParent(indexedParent, children, sTypeNode)))) {
+				sharedParents.add(indexedParent);
+				return sharedParents;
+			}
+			if (plannedParent == NO_PARENT) {
+				// the base graph had no shared parent when planning, parents
+				// created since then are contained in the index
+				return sharedParents;
+			} else if (plannedParent != null) {
+				sharedParents.add(plannedParent);
+				return sharedParents;
+			}
 			List<SRelation> rels = children.get(0).getInRelations();
 			if ((rels != null) && (rels.size() > 0)) {
 				// A merge candidate has to be connected to every base node
@@ -462,8 +701,11 @@ class MergeHandler implements GraphTraverseHandler {
 					sharedParents.add(baseRelation.getSource());
 				}
 				for (SNode baseNode : children) {
-					List<SNode> parents = new ArrayList<>();
-					if(baseNode != null && baseNode.getInRelations() != null) {
+					if (sharedParents.isEmpty()) {
+						break;
+					}
+					Set<SNode> parents = new HashSet<>();
+					if (baseNode.getInRelations() != null) {
 						for (SRelation<SNode, SNode> sRelation : baseNode.getInRelations()) {
 							SNode parent = sRelation.getSource();
 							if (SALT_TYPE.class2SaltType(parent.getClass()).contains(sTypeNode)) {
@@ -0,0 +1,237 @@
+/**
+ * Copyright 2015 Humboldt-Universität zu Berlin.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.mergingModules;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.corpus_tools.salt.common.SDocumentGraph;
+import org.corpus_tools.salt.common.SOrderRelation;
+import org.corpus_tools.salt.common.SPointingRelation;
+import org.corpus_tools.salt.common.STextualDS;
+import org.corpus_tools.salt.common.STimeline;
+import org.corpus_tools.salt.common.STimelineRelation;
+import org.corpus_tools.salt.core.SNode;
+import org.corpus_tools.salt.core.SRelation;
+
+/**
+ * Computes the order in which {@link MergeHandler} merges the nodes of an
+ * other graph into the base graph. The order is bottom-up, so that each node
+ * comes after all of its children, which are reachable via any relation
+ * except {@link SPointingRelation}s, {@link SOrderRelation}s and
+ * {@link STimelineRelation}s. The children of a node are visited in the order
+ * of its out-relations, starting with the given roots, which is the order in
+ * which a depth first traversal leaves the nodes. <br/>
+ * In contrast to the traversal, each node is contained only once, even if it
+ * has several parents, and the order is computed iteratively. Relations
+ * closing a cycle are ignored. <br/>
+ * An instance remembers the nodes already ordered, so that subsequent calls of
+ * {@link #next(List)} only return new nodes. Calls for disjoint sets of nodes,
+ * see {@link #partition(List)}, may run concurrently.
+ */
+public class MergeOrder {
+	/** the graph containing the nodes **/
+	private final SDocumentGraph graph;
+	/** maps each node of the graph to its position in the graph **/
+	private final Map<SNode, Integer> ordinals;
+	/**
+	 * marks the nodes already ordered, a node is entered when it is pushed to
+	 * the stack. This is a plain array, so that disjoint nodes can be marked
+	 * concurrently.
+	 **/
+	private final boolean[] entered;
+
+	/**
+	 * @param graph
+	 *            the graph containing the nodes to be ordered
+	 */
+	public MergeOrder(SDocumentGraph graph) {
+		this.graph = graph;
+		List<SNode> nodes = graph.getNodes();
+		this.ordinals = new IdentityHashMap<>(nodes.size());
+		for (SNode node : nodes) {
+			ordinals.put(node, ordinals.size());
+		}
+		this.entered = new boolean[nodes.size()];
+	}
+
+	/**
+	 * Returns all nodes reachable from the given roots in bottom-up order.
+	 * 
+	 * @param graph
+	 *            the graph containing the nodes
+	 * @param roots
+	 *            the nodes to start with
+	 * @return the nodes in the order they are to be merged
+	 */
+	public static List<SNode> bottomUp(SDocumentGraph graph, List<SNode> roots) {
+		return new MergeOrder(graph).next(roots);
+	}
+
+	/**
+	 * Excludes the given node from all orders computed afterwards.
+	 * 
+	 * @param node
+	 *            the node to be excluded
+	 */
+	public void exclude(SNode node) {
+		Integer ordinal = ordinals.get(node);
+		if (ordinal != null) {
+			entered[ordinal] = true;
+		}
+	}
+
+	/**
+	 * Partitions the given roots into components, which share no descendants
+	 * except {@link STextualDS} objects and the {@link STimeline}. Relations,
+	 * which are not followed when ordering, do not connect components. The
+	 * components are ordered by their first root and each component keeps the
+	 * order of the given roots.
+	 * 
+	 * @param roots
+	 *            the roots to be partitioned
+	 * @return the roots of each component
+	 */
+	public List<List<SNode>> partition(List<SNode> roots) {
+		// union-find over the node ordinals
+		int[] components = new int[entered.length];
+		for (int i = 0; i < components.length; i++) {
+			components[i] = i;
+		}
+		for (SRelation relation : graph.getRelations()) {
+			if ((!isFollowed(relation)) || (relation.getTarget() instanceof STextualDS)) {
+				continue;
+			}
+			Integer source = ordinals.get(relation.getSource());
+			Integer target = ordinals.get(relation.getTarget());
+			if ((source != null) && (target != null)) {
+				int sourceComponent = find(components, source);
+				int targetComponent = find(components, target);
+				if (sourceComponent != targetComponent) {
+					components[Math.max(sourceComponent, targetComponent)] = Math.min(sourceComponent, targetComponent);
+				}
+			}
+		}
+		Map<Integer, List<SNode>> rootsByComponent = new LinkedHashMap<>();
+		for (SNode root : roots) {
+			Integer ordinal = ordinals.get(root);
+			Integer component = (ordinal == null) ? -1 : find(components, ordinal);
+			List<SNode> componentRoots = rootsByComponent.get(component);
+			if (componentRoots == null) {
+				componentRoots = new ArrayList<>();
+				rootsByComponent.put(component, componentRoots);
+			}
+			componentRoots.add(root);
+		}
+		return new ArrayList<>(rootsByComponent.values());
+	}
+
+	private static int find(int[] components, int ordinal) {
+		int root = ordinal;
+		while (components[root] != root) {
+			root = components[root];
+		}
+		// path compression
+		while (components[ordinal] != root) {
+			int next = components[ordinal];
+			components[ordinal] = root;
+			ordinal = next;
+		}
+		return root;
+	}
+
+	/**
+	 * Returns all nodes reachable from the given roots in bottom-up order,
+	 * which have not been returned by a previous call.
+	 * 
+	 * @param roots
+	 *            the nodes to start with
+	 * @return the nodes in the order they are to be merged
+	 */
+	public List<SNode> next(List<SNode> roots) {
+		List<SNode> order = new ArrayList<>();
+		SNode[] stackNodes = new SNode[16];
+		List<SRelation>[] stackRelations = newRelationStack(16);
+		int[] stackPositions = new int[16];
+		for (SNode root : roots) {
+			Integer rootOrdinal = ordinals.get(root);
+			if ((rootOrdinal == null) || entered[rootOrdinal]) {
+				continue;
+			}
+			entered[rootOrdinal] = true;
+			int top = 0;
+			stackNodes[0] = root;
+			stackRelations[0] = root.getOutRelations();
+			stackPositions[0] = 0;
+			while (top >= 0) {
+				List<SRelation> relations = stackRelations[top];
+				SNode child = null;
+				while ((relations != null) && (stackPositions[top] < relations.size())) {
+					SRelation relation = relations.get(stackPositions[top]++);
+					if (!isFollowed(relation)) {
+						continue;
+					}
+					SNode target = (SNode) relation.getTarget();
+					Integer ordinal = ordinals.get(target);
+					if ((ordinal != null) && (!entered[ordinal])) {
+						entered[ordinal] = true;
+						child = target;
+						break;
+					}
+				}
+				if (child != null) {
+					if (++top == stackNodes.length) {
+						int capacity = stackNodes.length * 2;
+						stackNodes = Arrays.copyOf(stackNodes, capacity);
+						stackRelations = Arrays.copyOf(stackRelations, capacity);
+						stackPositions = Arrays.copyOf(stackPositions, capacity);
+					}
+					stackNodes[top] = child;
+					stackRelations[top] = child.getOutRelations();
+					stackPositions[top] = 0;
+				} else {
+					order.add(stackNodes[top]);
+					stackNodes[top] = null;
+					stackRelations[top] = null;
+					top--;
+				}
+			}
+		}
+		return order;
+	}
+
+	/**
+	 * Returns whether the target of the given relation is a child to be merged
+	 * before the source. {@link SPointingRelation}s are merged afterwards,
+	 * {@link SOrderRelation}s only connect nodes of the same level and
+	 * {@link STimelineRelation}s lead to the {@link STimeline}, which is not
+	 * merged here.
+	 */
+	private static boolean isFollowed(SRelation relation) {
+		return (!(relation instanceof SPointingRelation)) && (!(relation instanceof SOrderRelation)) && (!(relation instanceof STimelineRelation));
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<SRelation>[] newRelationStack(int capacity) {
+		return new List[capacity];
+	}
+}
@@ -28,9 +28,13 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.locks.Condition;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.corpus_tools.pepper.common.DOCUMENT_STATUS;
 import org.corpus_tools.pepper.common.PepperConfiguration;
@@ -176,6 +180,19 @@ public class Merger extends PepperManipulatorImpl implements PepperManipulator {
 		this.baseCorpusStructure = baseCorpusStructure;
 	}
 
+	/** counters collected by all {@link MergerMapper} objects **/
+	private final MergerMetrics metrics = new MergerMetrics();
+
+	/**
+	 * Returns the counters collected by all {@link MergerMapper} objects of
+	 * this merger.
+	 * 
+	 * @return
+	 */
+	public MergerMetrics getMetrics() {
+		return metrics;
+	}
+
 	/**
 	 * Creates a table of type {@link Multimap}, which contains a slot of
 	 * matching elements as value. The key is the {@link Identifier}. Only real
@@ -297,47 +314,196 @@ public class Merger extends PepperManipulatorImpl implements PepperManipulator {
 	}
 
 	// =========================> synchronization to avoid deadlocks in mapper
-	private volatile Lock mergerMappersLock = new ReentrantLock();
-	private volatile Condition mergerMappersCondition = mergerMappersLock.newCondition();
-	private volatile int numberOfMergerMappers = 0;
-
-	/**
-	 * waits until less or equal merger-mappers are active than the half of the
-	 * maximal amount of documents are this behavior should prevent from
-	 * possible deadlocks in merger mapper, when a base document is blocked and
-	 * the mapper waits for a permission to load the 'other' document in main
-	 * memory. For instance when 2 mappers are active and only 2 documents are
-	 * allowed to be loaded: when both mappers have loaded the base document no
-	 * place is left for the 'other document', so they will block each other.
+	/**
+	 * The permits for starting merger mappers. Each slot acquires as many
+	 * permits as it is estimated to cost, see {@link #estimateCost(List)}. Is
+	 * null, if no limit is given by the job.
+	 **/
+	private volatile MergerAdmission admission = null;
+	/** adapts {@link #admission} to the heap occupancy, if enabled **/
+	private volatile HeapGovernor heapGovernor = null;
+	/**
+	 * the permits acquired for a slot, until the mapper for the slot is
+	 * created
+	 **/
+	private final Map<String, Integer> admittedCosts = new ConcurrentHashMap<>();
+
+	/**
+	 * Creates the permits for starting merger mappers. If
+	 * {@link MergerProperties#PROP_MAX_RESIDENT_NODES} is set, the permits are
+	 * the budget of nodes and relations, still at most half of the maximal
+	 * amount of documents can hold permits at the same time. Otherwise the
+	 * number of permits is the half of the maximal amount of documents. If
+	 * {@link MergerProperties#PROP_MAX_HEAP_OCCUPANCY} is set, the number of
+	 * permits is adapted to the heap occupancy.
 	 */
-	private void waitForMergerMapper() {
-		mergerMappersLock.lock();
-		try {
-			if (getModuleController() != null && getModuleController().getJob() != null) {
-				while (numberOfMergerMappers >= Double.valueOf(Math.floor(getModuleController().getJob().getMaxNumberOfDocuments() / 2)).intValue()) {
-					mergerMappersCondition.await();
-				}
+	private MergerAdmission getAdmission() {
+		if (admission == null) {
+			if (getModuleController() == null || getModuleController().getJob() == null) {
+				return null;
 			}
-			numberOfMergerMappers++;
+			MergerProperties props = (MergerProperties) getProperties();
+			int maxMappers = getModuleController().getJob().getMaxNumberOfDocuments() / 2;
+			int budget = props.getMaxResidentNodes();
+			if (budget <= 0) {
+				budget = maxMappers;
+			}
+			admission = new MergerAdmission(budget, maxMappers);
+			if (props.getMaxHeapOccupancy() > 0) {
+				heapGovernor = new HeapGovernor(admission, props.getMaxHeapOccupancy(), getMetrics());
+				heapGovernor.start();
+			}
+		}
+		return admission;
+	}
+
+	/**
+	 * Removes the {@link HeapGovernor} from the garbage collectors, if it was
+	 * started.
+	 */
+	private synchronized void stopHeapGovernor() {
+		if (heapGovernor != null) {
+			heapGovernor.stop();
+			heapGovernor = null;
+		}
+	}
+
+	/**
+	 * Estimates the number of permits needed for merging the given slot. If
+	 * {@link MergerProperties#PROP_MAX_RESIDENT_NODES} is set, this is the
+	 * number of nodes and relations of all documents in the slot. A slot
+	 * costing more than the entire budget is merged alone, see
+	 * {@link MergerAdmission#acquire(int)}. Otherwise each slot costs one
+	 * permit.
+	 */
+	private int estimateCost(List<Identifier> givenSlot) {
+		if (((MergerProperties) getProperties()).getMaxResidentNodes() <= 0) {
+			return 1;
+		}
+		long cost = 0;
+		for (Identifier sDocumentId : givenSlot) {
+			DocumentController docController = getDocumentId2DC().get(SaltUtil.getGlobalId(sDocumentId));
+			if (docController != null) {
+				cost += docController.getSize_nodes() + docController.getSize_relations();
+			}
+		}
+		return (int) Math.max(1, Math.min(cost, Integer.MAX_VALUE));
+	}
+
+	/**
+	 * waits until enough permits are available to merge the given slot. The
+	 * number of mappers is bounded by half of the maximal amount of documents
+	 * and optionally by the budget of nodes and relations. This behavior should prevent
+	 * from possible deadlocks in merger mapper, when a base document is
+	 * blocked and the mapper waits for a permission to load the 'other'
+	 * document in main memory. For instance when 2 mappers are active and only
+	 * 2 documents are allowed to be loaded: when both mappers have loaded the
+	 * base document no place is left for the 'other document', so they will
+	 * block each other.
+	 * 
+	 * @return the number of acquired permits, which has to be passed to
+	 *         {@link #releaseMergerMapper(int)}
+	 */
+	private int waitForMergerMapper(List<Identifier> givenSlot) {
+		MergerAdmission admission = getAdmission();
+		if (admission == null) {
+			return 0;
+		}
+		try {
+			return admission.acquire(estimateCost(givenSlot));
 		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
 			throw new PepperModuleException(this, "A problem occured in deadlock permission for merger mapper processes. ", e);
-		} finally {
-			mergerMappersLock.unlock();
 		}
 	}
 
 	/**
-	 * Reduces the internal count of active mappers by one.
+	 * Releases the permits acquired for a slot.
 	 * 
-	 * @see #waitForMergerMapper()
+	 * @param cost
+	 *            the number of permits returned by
+	 *            {@link #waitForMergerMapper(List)}
+	 * @see #waitForMergerMapper(List)
 	 */
-	public void releaseMergerMapper() {
-		mergerMappersLock.lock();
-		try {
-			numberOfMergerMappers--;
-			mergerMappersCondition.signal();
-		} finally {
-			mergerMappersLock.unlock();
+	public void releaseMergerMapper(int cost) {
+		MergerAdmission admission = this.admission;
+		if (admission != null) {
+			admission.release(cost);
+		}
+	}
+
+	/**
+	 * Acquires the permits to merge the given slot, if they are available at
+	 * once.
+	 * 
+	 * @return the number of acquired permits, which has to be passed to
+	 *         {@link #releaseMergerMapper(int)}, or -1 if not enough permits
+	 *         are available
+	 */
+	private int tryAdmitMergerMapper(List<Identifier> givenSlot) {
+		MergerAdmission admission = getAdmission();
+		if (admission == null) {
+			return 0;
+		}
+		return admission.tryAcquire(estimateCost(givenSlot));
+	}
+
+	/**
+	 * Acquires the permits to hold another document in main memory, if they
+	 * are available at once. This is used for documents kept awake until their
+	 * slot is complete and for documents prefetched by a mapper.
+	 * 
+	 * @param sDocumentId
+	 *            the identifier of the document
+	 * @return the number of acquired permits, which has to be passed to
+	 *         {@link #releaseMergerMapper(int)}, or -1 if not enough permits
+	 *         are available
+	 */
+	public int tryAdmitDocument(Identifier sDocumentId) {
+		return tryAdmitMergerMapper(Collections.singletonList(sDocumentId));
+	}
+
+	/**
+	 * the threads waking up documents in advance, see
+	 * {@link MergerProperties#PROP_PREFETCH_DOCUMENTS}
+	 **/
+	private ThreadPoolExecutor prefetchExecutor = null;
+
+	/**
+	 * Returns the executor for waking up documents in advance. Its threads
+	 * belong to the thread group of the mappers and there are not more of
+	 * them than mappers running at the same time.
+	 */
+	public synchronized Executor getPrefetchExecutor() {
+		if (prefetchExecutor == null) {
+			int maxThreads = 1;
+			if ((getModuleController() != null) && (getModuleController().getJob() != null)) {
+				maxThreads = Math.max(1, getModuleController().getJob().getMaxNumberOfDocuments() / 2);
+			}
+			final ThreadGroup group = getMapperThreadGroup();
+			final String prefix = getName() + "_prefetch_";
+			prefetchExecutor = new ThreadPoolExecutor(maxThreads, maxThreads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+				private final AtomicInteger number = new AtomicInteger();
+
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(group, runnable, prefix + number.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+			prefetchExecutor.allowCoreThreadTimeOut(true);
+		}
+		return prefetchExecutor;
+	}
+
+	/**
+	 * Stops the threads waking up documents in advance.
+	 */
+	private synchronized void stopPrefetching() {
+		if (prefetchExecutor != null) {
+			prefetchExecutor.shutdown();
+			prefetchExecutor = null;
 		}
 	}
 
@@ -348,6 +514,175 @@ public class Merger extends PepperManipulatorImpl implements PepperManipulator {
 	 **/
 	private Set<String> documentsToMerge = new HashSet<>();
 
+	/**
+	 * the slots merged while their documents arrive, see
+	 * {@link MergerProperties#PROP_PROGRESSIVE_MERGE}
+	 **/
+	private final Map<String, ProgressiveSlot> progressiveSlots = new ConcurrentHashMap<>();
+
+	/**
+	 * the slots, which could not be admitted when they were ready to start,
+	 * in the order of their arrival. Each slot is mapped to the identifier to
+	 * start its mapper with.
+	 **/
+	private final Map<String, Identifier> pendingSlots = new LinkedHashMap<>();
+
+	/**
+	 * Starts the mapper for the slot of the given document with the permits
+	 * acquired for it.
+	 */
+	private void startSlot(Identifier sElementId, int admittedCost) {
+		String slotId = sElementId.getId();
+		admittedCosts.put(slotId, admittedCost);
+		ProgressiveSlot slot = progressiveSlots.get(slotId);
+		if (slot != null) {
+			slot.setStarted(true);
+		}
+		try {
+			start(sElementId);
+		} catch (Exception e) {
+			throw new PepperModuleException("Any exception occured while merging documents corresponding to '" + sElementId + "'. ", e);
+		}
+		if ((slot != null) && (givenSlots.get(slotId).size() == mappingTable.get(slotId).size())) {
+			// all partners have been offered to the mapper
+			progressiveSlots.remove(slotId);
+		}
+	}
+
+	/**
+	 * Starts the pending slots in the order of their arrival, as long as
+	 * permits are available. When merging progressively, the thread receiving
+	 * the documents must not wait for permits, since running mappers hold
+	 * their permits while waiting for documents only this thread can deliver.
+	 * 
+	 * @param wait
+	 *            if true, waits for the permits of each slot, which is only
+	 *            allowed when all documents have been received
+	 */
+	private void startPendingSlots(boolean wait) {
+		Iterator<Map.Entry<String, Identifier>> it = pendingSlots.entrySet().iterator();
+		while (it.hasNext()) {
+			Map.Entry<String, Identifier> pending = it.next();
+			List<Identifier> givenSlot = givenSlots.get(pending.getKey());
+			int admittedCost = wait ? waitForMergerMapper(givenSlot) : tryAdmitMergerMapper(givenSlot);
+			if (admittedCost < 0) {
+				break;
+			}
+			it.remove();
+			startSlot(pending.getValue(), admittedCost);
+		}
+	}
+
+	/**
+	 * Sends the given document to sleep and releases its place in main memory.
+	 * This is also used by a {@link MergerMapper} to send a document back to
+	 * sleep, which it has woken up in advance, but will not merge.
+	 */
+	public void sendToSleep(DocumentController documentController) {
+		documentController.sendToSleep_FORCE();
+		// this is a bit hacky, but necessary
+		if (documentController.isAsleep()) {
+			getModuleController().getJob().releaseDocument(documentController);
+			logger.trace("[Merger] " + "Sent document '{}' to sleep. ", documentController.getGlobalId());
+		} else {
+			logger.warn("Was not able to send document '{}' to sleep. ", documentController.getGlobalId());
+		}
+	}
+
+	/**
+	 * Keeps the given document in main memory, since it is merged at once.
+	 */
+	private void keepAwake(DocumentController documentController) {
+		getMetrics().addAvoidedSleep();
+		logger.trace("[Merger] " + "Kept document '{}' in memory. ", documentController.getGlobalId());
+	}
+
+	/**
+	 * decides which documents are kept in memory until their slot is
+	 * complete, see {@link MergerProperties#PROP_MAX_RESIDENT_WAIT}
+	 **/
+	private ResidencyPolicy residencyPolicy = null;
+
+	/**
+	 * Sends documents kept in memory to sleep, since their slot was not
+	 * completed in time.
+	 */
+	private void evict(List<ResidencyPolicy.Resident> residents) {
+		for (ResidencyPolicy.Resident resident : residents) {
+			sendToSleep(resident.getDocumentController());
+			releaseMergerMapper(resident.getPermits());
+			getMetrics().addResidencyMiss();
+		}
+	}
+
+	/**
+	 * Merges the slot of the given document while its documents arrive. The
+	 * mapper of a slot is started as soon as the base document has arrived and
+	 * permits are available, otherwise the slot is pending until permits are
+	 * released, see {@link #startPendingSlots(boolean)}. Each partner is handed over to the mapper when it arrives and is merged
+	 * into the base document, as soon as the mapper has finished the previous
+	 * one. A partner is only kept in memory, if the mapper is waiting for it.
+	 * 
+	 * @param documentController
+	 *            the arrived document
+	 * @param sElementId
+	 *            the identifier of the arrived document
+	 * @param mappableSlot
+	 *            all documents of the slot
+	 * @param givenSlot
+	 *            the documents of the slot arrived so far
+	 */
+	private void mergeProgressively(DocumentController documentController, Identifier sElementId, List<SNode> mappableSlot, List<Identifier> givenSlot) {
+		String slotId = sElementId.getId();
+		ProgressiveSlot slot = progressiveSlots.get(slotId);
+		if (slot == null) {
+			int expectedPartners = mappableSlot.size();
+			for (SNode node : mappableSlot) {
+				if (node.getGraph() == getBaseCorpusStructure()) {
+					expectedPartners--;
+				}
+			}
+			slot = new ProgressiveSlot(expectedPartners);
+			progressiveSlots.put(slotId, slot);
+		}
+		boolean isBase = ((SDocument) sElementId.getIdentifiableElement()).getGraph() == getBaseCorpusStructure();
+		// if the base document is not part of the slot, the mapper is started
+		// with the first partner
+		boolean startsMapper = !slot.isStarted() && !pendingSlots.containsKey(slotId) && (isBase || slot.getExpectedPartners() == mappableSlot.size());
+		// slots pending before are started first
+		int admittedCost = (startsMapper && pendingSlots.isEmpty()) ? tryAdmitMergerMapper(givenSlot) : -1;
+		if ((startsMapper && admittedCost >= 0) || (!startsMapper && slot.isWaiting())) {
+			keepAwake(documentController);
+		} else {
+			sendToSleep(documentController);
+		}
+		if (!isBase) {
+			MappingSubject partner = new MappingSubject();
+			partner.setIdentifier(sElementId);
+			partner.setDocumentController(documentController);
+			partner.setMappingResult(DOCUMENT_STATUS.IN_PROGRESS);
+			slot.offer(partner);
+		}
+		if (givenSlot.size() == mappableSlot.size()) {
+			for (Identifier sDocumentId : givenSlot) {
+				documentsToMerge.remove(SaltUtil.getGlobalId(sDocumentId));
+			}
+			if (slot.isStarted()) {
+				progressiveSlots.remove(slotId);
+			}
+		}
+		if (startsMapper) {
+			if (isBase) {
+				slot.setBaseId(sElementId);
+			}
+			if (admittedCost < 0) {
+				pendingSlots.put(slotId, sElementId);
+			} else {
+				startSlot(sElementId, admittedCost);
+			}
+		}
+	}
+
 	/**
 	 * {@inheritDoc PepperModule#start()} Overrides parent method, to enable the
 	 * parallel working in more than one {@link DocumentController} objects at a
@@ -379,6 +714,20 @@ public class Merger extends PepperManipulatorImpl implements PepperManipulator {
 
 			return;
 		}
+		try {
+			mergeSlots();
+		} finally {
+			// the governor must not stay registered, when merging failed
+			stopHeapGovernor();
+			stopPrefetching();
+		}
+	}
+
+	/**
+	 * Receives all documents, merges each slot as soon as it is complete and
+	 * finally merges the corpora.
+	 */
+	private void mergeSlots() {
 		enhanceBaseCorpusStructure();
 		if ((logger.isDebugEnabled()) && (mappingTable != null)) {
 			StringBuilder mergerMapping = new StringBuilder();
@@ -404,6 +753,11 @@ public class Merger extends PepperManipulatorImpl implements PepperManipulator {
 		// creating new thread group for mapper threads
 		setMapperThreadGroup(new ThreadGroup(Thread.currentThread().getThreadGroup(), this.getName() + "_mapperGroup"));
 		givenSlots = new Hashtable<>();
+		int maxResidents = Integer.MAX_VALUE;
+		if (getModuleController().getJob() != null) {
+			maxResidents = getModuleController().getJob().getMaxNumberOfDocuments() / 2;
+		}
+		residencyPolicy = new ResidencyPolicy(((MergerProperties) getProperties()).getMaxResidentWait(), maxResidents);
 		boolean isStart = true;
 		Identifier sElementId = null;
 		DocumentController documentController = null;
@@ -426,19 +780,56 @@ public class Merger extends PepperManipulatorImpl implements PepperManipulator {
 			logger.trace("[Merger] New document has arrived {}. ", SaltUtil.getGlobalId(sElementId));
 			documentsToMerge.add(SaltUtil.getGlobalId(sElementId));
 
-			// send all documents to sleep
-			if (logger.isTraceEnabled()) {
-				logger.trace("[Merger] " + "Waiting for further documents, {} documents are in queue. ", documentsToMerge.size());
+			boolean isProgressive = ((MergerProperties) getProperties()).isProgressiveMerge();
+			if (isProgressive) {
+				// use the permits released by finished mappers
+				startPendingSlots(false);
 			}
-			documentController.sendToSleep_FORCE();
-			// this is a bit hacky, but necessary
-			if (documentController.isAsleep()) {
-				getModuleController().getJob().releaseDocument(documentController);
-				logger.trace("[Merger] " + "Sent document '{}' to sleep. ", documentController.getGlobalId());
+			if (isProgressive && mappableSlot.size() > 1) {
+				mergeProgressively(documentController, sElementId, mappableSlot, givenSlot);
+				continue;
+			}
+			boolean isComplete = givenSlot.size() == mappableSlot.size();
+			long now = System.currentTimeMillis();
+			evict(residencyPolicy.evictExpired(now));
+			residencyPolicy.arrived(sElementId.getId(), now);
+			int admittedCost = -1;
+			if (isComplete) {
+				// the documents of a complete slot are kept in memory, if its
+				// mapper can be started at once
+				List<ResidencyPolicy.Resident> residents = residencyPolicy.complete(sElementId.getId());
+				admittedCost = tryAdmitMergerMapper(givenSlot);
+				if (admittedCost < 0) {
+					// free the memory for the mappers
+					evict(residents);
+					evict(residencyPolicy.evictAll());
+					sendToSleep(documentController);
+				} else {
+					// the kept documents stay in memory until the mapper has
+					// merged them, so the mapper holds their permits
+					for (ResidencyPolicy.Resident resident : residents) {
+						admittedCost += resident.getPermits();
+						getMetrics().addResidencyHit();
+					}
+					keepAwake(documentController);
+				}
 			} else {
-				logger.warn("Was not able to send document '{}' to sleep. ", documentController.getGlobalId());
+				int permits = -1;
+				if (residencyPolicy.shouldKeep(mappableSlot.size() - givenSlot.size())) {
+					permits = tryAdmitDocument(sElementId);
+				}
+				if (permits >= 0) {
+					residencyPolicy.keep(sElementId.getId(), documentController, permits, now);
+					logger.trace("[Merger] " + "Kept document '{}' in memory until its slot is complete. ", documentController.getGlobalId());
+				} else {
+					// send all documents to sleep
+					if (logger.isTraceEnabled()) {
+						logger.trace("[Merger] " + "Waiting for further documents, {} documents are in queue. ", documentsToMerge.size());
+					}
+					sendToSleep(documentController);
+				}
 			}
-			if (givenSlot.size() == mappableSlot.size()) {
+			if (isComplete) {
 				try {
 					for (Identifier sDocumentId : givenSlot) {
 						DocumentController docController = getDocumentId2DC().get(SaltUtil.getGlobalId(sDocumentId));
@@ -447,17 +838,38 @@ public class Merger extends PepperManipulatorImpl implements PepperManipulator {
 						}
 						documentsToMerge.remove(docController.getGlobalId());
 					}
-					// waits until enough spaces for documents is available to
-					// start mapper
-					waitForMergerMapper();
+					if ((admittedCost < 0) && (isProgressive)) {
+						// this thread must not wait, see startPendingSlots()
+						pendingSlots.put(sElementId.getId(), sElementId);
+					} else {
+						if (admittedCost < 0) {
+							// waits until enough spaces for documents is
+							// available to start mapper
+							admittedCost = waitForMergerMapper(givenSlot);
+						}
+						admittedCosts.put(sElementId.getId(), admittedCost);
 
-					start(sElementId);
+						start(sElementId);
+					}
 				} catch (Exception e) {
 					throw new PepperModuleException("Any exception occured while merging documents corresponding to '" + sElementId + "'. ", e);
 				}
 			}
 		}
 
+		// documents of incomplete slots are not kept any longer
+		evict(residencyPolicy.evictAll());
+		// no further partners arrive, the mappers merge the arrived ones
+		for (Map.Entry<String, ProgressiveSlot> slot : progressiveSlots.entrySet()) {
+			if (givenSlots.get(slot.getKey()).size() < mappingTable.get(slot.getKey()).size()) {
+				logger.warn("[Merger] Not all documents to be merged with '{}' have arrived, merging the arrived ones only. ", slot.getKey());
+			}
+			slot.getValue().close();
+		}
+		// all documents have arrived, so waiting for permits is safe now
+		startPendingSlots(true);
+		progressiveSlots.clear();
+
 		Collection<PepperMapperController> controllers = null;
 		Set<PepperMapperController> alreadyWaitedFor = new HashSet<>();
 		// wait until all documents are processed
@@ -506,6 +918,8 @@ public class Merger extends PepperManipulatorImpl implements PepperManipulator {
 	 */
 	@Override
 	public void end() throws PepperModuleException {
+		stopHeapGovernor();
+		logger.debug("[Merger] {}", metrics);
 		List<SCorpusGraph> removeCorpusStructures = new ArrayList<>();
 		Iterator<SCorpusGraph> it = getSaltProject().getCorpusGraphs().iterator();
 		while (it.hasNext()) {
@@ -539,6 +953,10 @@ public class Merger extends PepperManipulatorImpl implements PepperManipulator {
 		MergerMapper mapper = new MergerMapper();
 		if (sElementId.getIdentifiableElement() instanceof SDocument) {
 			mapper.setMerger(this);
+			Integer admittedCost = admittedCosts.remove(sElementId.getId());
+			if (admittedCost != null) {
+				mapper.setAdmittedCost(admittedCost);
+			}
 			if ((givenSlots == null) || (givenSlots.size() == 0)) {
 				throw new PepperModuleException(this, "This should not have been happend and seems to be a bug of module. The problem is, that 'givenSlots' is null or empty in method 'createPepperMapper()'");
 			}
@@ -546,6 +964,16 @@ public class Merger extends PepperManipulatorImpl implements PepperManipulator {
 			if (givenSlot == null) {
 				throw new PepperModuleException(this, "This should not have been happend and seems to be a bug of module. The problem is, that a 'givenSlot' in 'givenSlots' is null or empty in method 'createPepperMapper()'. The sElementId '" + sElementId + "' was not contained in list: " + givenSlots);
 			}
+			ProgressiveSlot progressiveSlot = progressiveSlots.get(sElementId.getId());
+			if (progressiveSlot != null) {
+				// the partners are handed over to the mapper while they arrive
+				mapper.setProgressiveSlot(progressiveSlot);
+				if (progressiveSlot.getBaseId() != null) {
+					givenSlot = Collections.singletonList(progressiveSlot.getBaseId());
+				} else {
+					givenSlot = Collections.emptyList();
+				}
+			}
 			boolean noBase = true;
 			for (Identifier id : givenSlot) {
 				MappingSubject mappingSubject = new MappingSubject();
@@ -0,0 +1,174 @@
+/**
+ * Copyright 2015 Humboldt-Universität zu Berlin.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.mergingModules;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides how many {@link MergerMapper} objects of a {@link Merger} may run at
+ * the same time. Each mapper acquires as many permits as it is estimated to
+ * cost. The number of permits is bounded by a maximum, but can be lowered and
+ * raised while merging, see {@link HeapGovernor}. Further the number of
+ * acquisitions holding permits at the same time can be bounded, therefore each
+ * acquisition costs at least the maximum divided by that bound.
+ */
+public class MergerAdmission {
+	/** time to wait before checking again, whether the limit has changed **/
+	private static final long RETRY_MILLIS = 500;
+
+	/** a {@link Semaphore} whose number of permits can be reduced **/
+	private static class AdjustableSemaphore extends Semaphore {
+		private static final long serialVersionUID = 1L;
+
+		AdjustableSemaphore(int permits) {
+			super(permits, true);
+		}
+
+		@Override
+		protected void reducePermits(int reduction) {
+			super.reducePermits(reduction);
+		}
+	}
+
+	private final AdjustableSemaphore permits;
+	/** the maximal number of permits **/
+	private final int maximum;
+	/** the minimal number of permits of an acquisition **/
+	private final int minimalCost;
+	/** the current number of permits **/
+	private volatile int limit;
+
+	/**
+	 * @param maximum
+	 *            the maximal number of permits, at least 1
+	 */
+	public MergerAdmission(int maximum) {
+		this(maximum, maximum);
+	}
+
+	/**
+	 * @param maximum
+	 *            the maximal number of permits, at least 1
+	 * @param maxAcquisitions
+	 *            the maximal number of acquisitions holding permits at the
+	 *            same time, at least 1
+	 */
+	public MergerAdmission(int maximum, int maxAcquisitions) {
+		this.maximum = Math.max(1, maximum);
+		this.limit = this.maximum;
+		this.permits = new AdjustableSemaphore(this.maximum);
+		int acquisitions = Math.max(1, Math.min(maxAcquisitions, this.maximum));
+		this.minimalCost = (this.maximum + acquisitions - 1) / acquisitions;
+	}
+
+	/**
+	 * Computes the number of permits to be acquired for the given cost. The
+	 * cost is raised to the minimal cost and reduced to the current limit.
+	 */
+	private int grant(int cost) {
+		return Math.max(1, Math.min(Math.max(cost, minimalCost), limit));
+	}
+
+	/**
+	 * Waits until the given number of permits is available. A cost bigger than
+	 * the current limit is reduced to the limit, so that a big mapper can
+	 * still run alone. A cost smaller than the minimal cost is raised to it.
+	 * 
+	 * @param cost
+	 *            the estimated cost of a mapper
+	 * @return the number of acquired permits, which has to be passed to
+	 *         {@link #release(int)}
+	 */
+	public int acquire(int cost) throws InterruptedException {
+		while (true) {
+			int granted = grant(cost);
+			if (permits.tryAcquire(granted, RETRY_MILLIS, TimeUnit.MILLISECONDS)) {
+				return granted;
+			}
+		}
+	}
+
+	/**
+	 * Acquires the given number of permits, if they are available at once. A
+	 * cost bigger than the current limit is reduced to the limit, a cost
+	 * smaller than the minimal cost is raised to it.
+	 * 
+	 * @param cost
+	 *            the estimated cost of a mapper
+	 * @return the number of acquired permits, which has to be passed to
+	 *         {@link #release(int)}, or -1 if not enough permits are available
+	 */
+	public int tryAcquire(int cost) {
+		int granted = grant(cost);
+		return permits.tryAcquire(granted) ? granted : -1;
+	}
+
+	/**
+	 * Releases permits acquired by {@link #acquire(int)} or
+	 * {@link #tryAcquire(int)}.
+	 */
+	public void release(int granted) {
+		if (granted > 0) {
+			permits.release(granted);
+		}
+	}
+
+	/**
+	 * Changes the number of permits. Permits held by running mappers are not
+	 * taken back, so after lowering the limit, new mappers wait until enough
+	 * of them are released.
+	 * 
+	 * @param newLimit
+	 *            the new number of permits, which is kept between 1 and
+	 *            {@link #getMaximum()}
+	 * @return the number of permits after the change
+	 */
+	public synchronized int setLimit(int newLimit) {
+		newLimit = Math.max(1, Math.min(newLimit, maximum));
+		int delta = newLimit - limit;
+		if (delta > 0) {
+			permits.release(delta);
+		} else if (delta < 0) {
+			permits.reducePermits(-delta);
+		}
+		limit = newLimit;
+		return newLimit;
+	}
+
+	/**
+	 * @return the current number of permits
+	 */
+	public int getLimit() {
+		return limit;
+	}
+
+	/**
+	 * @return the minimal number of permits of an acquisition
+	 */
+	public int getMinimalCost() {
+		return minimalCost;
+	}
+
+	/**
+	 * @return the maximal number of permits
+	 */
+	public int getMaximum() {
+		return maximum;
+	}
+}
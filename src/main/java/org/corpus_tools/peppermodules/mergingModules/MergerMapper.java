@@ -18,17 +18,21 @@
 package org.corpus_tools.peppermodules.mergingModules;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.commons.lang3.tuple.Pair;
 import org.corpus_tools.pepper.common.DOCUMENT_STATUS;
 import org.corpus_tools.pepper.impl.PepperMapperImpl;
+import org.corpus_tools.pepper.modules.DocumentController;
 import org.corpus_tools.pepper.modules.MappingSubject;
 import org.corpus_tools.pepper.modules.PepperMapper;
 import org.corpus_tools.pepper.modules.exceptions.PepperModuleDataException;
@@ -43,16 +47,12 @@ import org.corpus_tools.salt.common.SSpanningRelation;
 import org.corpus_tools.salt.common.STextualDS;
 import org.corpus_tools.salt.common.STextualRelation;
 import org.corpus_tools.salt.common.SToken;
-import org.corpus_tools.salt.core.SGraph.GRAPH_TRAVERSE_TYPE;
 import org.corpus_tools.salt.core.SNode;
 import org.corpus_tools.salt.core.SRelation;
-import org.corpus_tools.salt.graph.Relation;
 import org.corpus_tools.salt.util.SaltUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.google.common.base.Objects;
-
 /**
  * This class does the real merging, the main task is to merge a set of document
  * graphs.
@@ -87,6 +87,38 @@ public class MergerMapper extends PepperMapperImpl implements PepperMapper {
 		this.merger = merger;
 	}
 
+	/**
+	 * The number of permits the {@link Merger} acquired before starting this
+	 * mapper.
+	 **/
+	private int admittedCost = 0;
+
+	/**
+	 * @param admittedCost
+	 *            the number of permits the {@link Merger} acquired before
+	 *            starting this mapper, they are released when the mapper is
+	 *            done
+	 */
+	public void setAdmittedCost(int admittedCost) {
+		this.admittedCost = admittedCost;
+	}
+
+	/**
+	 * The slot whose partners are handed over while they arrive or null, if
+	 * all partners are given as mapping subjects.
+	 **/
+	private ProgressiveSlot progressiveSlot = null;
+
+	/**
+	 * @param progressiveSlot
+	 *            the slot whose partners are handed over to this mapper while
+	 *            they arrive, see
+	 *            {@link MergerProperties#PROP_PROGRESSIVE_MERGE}
+	 */
+	public void setProgressiveSlot(ProgressiveSlot progressiveSlot) {
+		this.progressiveSlot = progressiveSlot;
+	}
+
 	/**
 	 * Determines which {@link SCorpusGraph} is the base corpus graph, in which
 	 * everything has to be merged in.
@@ -196,7 +228,7 @@ public class MergerMapper extends PepperMapperImpl implements PepperMapper {
 	@Override
 	public DOCUMENT_STATUS mapSDocument() {
 		this.initialize();
-		if (this.getMappingSubjects().size() > 1) {
+		if ((this.getMappingSubjects().size() > 1) || (progressiveSlot != null)) {
 
 			if (logger.isDebugEnabled()) {
 				StringBuilder str = new StringBuilder();
@@ -250,7 +282,7 @@ public class MergerMapper extends PepperMapperImpl implements PepperMapper {
 			getMappingSubjects().add(baseSubj);
 		}
 		if (getMerger() != null) {
-			getMerger().releaseMergerMapper();
+			getMerger().releaseMergerMapper(admittedCost);
 		}
 
 		return (DOCUMENT_STATUS.COMPLETED);
@@ -259,7 +291,7 @@ public class MergerMapper extends PepperMapperImpl implements PepperMapper {
 	/**
 	 * A map to relate nodes of one graph to nodes to another graph.
 	 */
-	private Map<SNode, SNode> node2NodeMap = null;
+	private NodeMapping node2NodeMap = null;
 
 	/**
 	 * Merges all document-structures pairwise by calling
@@ -275,46 +307,54 @@ public class MergerMapper extends PepperMapperImpl implements PepperMapper {
 		}
 		SDocument baseDocument = (SDocument) baseSubject.getIdentifier().getIdentifiableElement();
 
-		if ((baseSubject.getDocumentController() != null) && (getPepperMapperController() != null)) {
-			logger.trace("[Merger] Try to wake up base document {}. ", baseSubject.getDocumentController().getGlobalId());
-			// awake document
-			getPepperMapperController().getPermissionForProcessDoument(baseSubject.getDocumentController());
-			baseSubject.getDocumentController().awake();
-			logger.trace("[Merger] Successfully woke up base document {}. ", baseSubject.getDocumentController().getGlobalId());
-		}
+		wakeUp(baseSubject, "base");
 
 		// normalize all texts of base document, therefore the base document
 		// needs to be woken up
 		normalizePrimaryTexts(baseDocument);
 
-		// merge two document-structures pairwise
+		// merge two document-structures pairwise, partners still in main
+		// memory are merged first, so that they do not stay there while the
+		// others are woken up
+		List<MappingSubject> partners = new ArrayList<>();
+		List<MappingSubject> sleepingPartners = new ArrayList<>();
 		for (MappingSubject subj : this.getMappingSubjects()) {
 			// for all documents
 			SDocument otherDocument = (SDocument) subj.getIdentifier().getIdentifiableElement();
 			if (otherDocument != getBaseDocument()) {
-				if ((subj.getDocumentController() != null) && (getPepperMapperController() != null)) {
-					logger.trace("[Merger] Try to wake up other document {}. ", subj.getDocumentController().getGlobalId());
-					// awake document
-					getPepperMapperController().getPermissionForProcessDoument(subj.getDocumentController());
-					subj.getDocumentController().awake();
-					logger.trace("[Merger] Successfully woke up other document {}. ", subj.getDocumentController().getGlobalId());
-				}
-
-				normalizePrimaryTexts(otherDocument);
-
-				logger.debug("[Merger] Start merging of base document '{}' with {}. ", SaltUtil.getGlobalId(baseDocument.getIdentifier()), SaltUtil.getGlobalId(subj.getIdentifier()));
-				// merge the document content
-				mergeDocumentStructures(baseDocument, otherDocument);
-
-				// frees memory from other document
-				if (!isTestMode) {
-					getContainer().finishDocument(otherDocument);
-				}
-				if (subj.getDocumentController() != null) {
-					getMerger().done(otherDocument.getIdentifier(), DOCUMENT_STATUS.DELETED);
+				if ((subj.getDocumentController() != null) && (subj.getDocumentController().isAsleep())) {
+					sleepingPartners.add(subj);
+				} else {
+					partners.add(subj);
 				}
 			}
 		}
+		partners.addAll(sleepingPartners);
+		Prefetch next = null;
+		try {
+			for (int i = 0; i < partners.size(); i++) {
+				Prefetch current = next;
+				// wake up the next partner while merging the current one
+				next = (i + 1 < partners.size()) ? prefetch(partners.get(i + 1)) : null;
+				mergePartner(baseDocument, partners.get(i), current);
+			}
+		} catch (RuntimeException e) {
+			if (next != null) {
+				next.cancel();
+			}
+			throw e;
+		}
+		if (progressiveSlot != null) {
+			// merge partners while they arrive
+			MappingSubject subj = takePartner();
+			while (subj != null) {
+				SDocument otherDocument = (SDocument) subj.getIdentifier().getIdentifiableElement();
+				SaltUtil.moveAnnotations(otherDocument, baseDocument);
+				SaltUtil.moveMetaAnnotations(otherDocument, baseDocument);
+				mergePartner(baseDocument, subj, null);
+				subj = takePartner();
+			}
+		}
 
 		// frees memory from base document
 		if (!isTestMode) {
@@ -369,6 +409,182 @@ public class MergerMapper extends PepperMapperImpl implements PepperMapper {
 		}
 	}
 
+	/**
+	 * Wakes up the document of the given subject, if it was sent to sleep.
+	 * 
+	 * @return true if the document was woken up
+	 */
+	private boolean wakeUp(MappingSubject subj, String role) {
+		DocumentController documentController = subj.getDocumentController();
+		if ((documentController != null) && (getPepperMapperController() != null) && (documentController.isAsleep())) {
+			logger.trace("[Merger] Try to wake up {} document {}. ", role, documentController.getGlobalId());
+			// awake document
+			getPepperMapperController().getPermissionForProcessDoument(documentController);
+			documentController.awake();
+			logger.trace("[Merger] Successfully woke up {} document {}. ", role, documentController.getGlobalId());
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Waits for the next partner of {@link #progressiveSlot}.
+	 * 
+	 * @return the next partner or null, if all partners have been merged
+	 */
+	private MappingSubject takePartner() {
+		try {
+			return progressiveSlot.take();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new PepperModuleException(this, "Interrupted while waiting for the next document to be merged into '" + SaltUtil.getGlobalId(getBaseDocument().getIdentifier()) + "'. ", e);
+		}
+	}
+
+	/**
+	 * Merges the document of the given subject into the base document and
+	 * removes it afterwards.
+	 * 
+	 * @param prefetched
+	 *            the prefetch of the document or null, if the document has
+	 *            not been prefetched
+	 */
+	private void mergePartner(SDocument baseDocument, MappingSubject subj, Prefetch prefetched) {
+		SDocument otherDocument = (SDocument) subj.getIdentifier().getIdentifiableElement();
+		MergerMetrics metrics = (getMerger() != null) ? getMerger().getMetrics() : null;
+
+		long waitStart = System.nanoTime();
+		NormalizedTexts normalizedTexts = null;
+		if (prefetched != null) {
+			normalizedTexts = prefetched.get();
+		} else {
+			wakeUp(subj, "other");
+			normalizedTexts = normalizeTexts(otherDocument, false);
+		}
+		registerNormalizedTexts(otherDocument, normalizedTexts);
+
+		long mergeStart = System.nanoTime();
+		logger.debug("[Merger] Start merging of base document '{}' with {}. ", SaltUtil.getGlobalId(baseDocument.getIdentifier()), SaltUtil.getGlobalId(subj.getIdentifier()));
+		// merge the document content
+		mergeDocumentStructures(baseDocument, otherDocument);
+		if (metrics != null) {
+			metrics.addWakeWait(mergeStart - waitStart);
+			metrics.addMergeTime(System.nanoTime() - mergeStart);
+		}
+
+		// frees memory from other document
+		if (!isTestMode) {
+			getContainer().finishDocument(otherDocument);
+		}
+		if (subj.getDocumentController() != null) {
+			getMerger().done(otherDocument.getIdentifier(), DOCUMENT_STATUS.DELETED);
+		}
+	}
+
+	/**
+	 * Starts waking up and normalizing the document of the given subject in
+	 * another thread, see {@link MergerProperties#PROP_PREFETCH_DOCUMENTS}.
+	 * 
+	 * @return the started prefetch or null, if prefetching is disabled or the
+	 *         {@link Merger} has no permits left for another document in main
+	 *         memory
+	 */
+	private Prefetch prefetch(MappingSubject subj) {
+		if ((getMerger() == null) || (!((MergerProperties) getProperties()).isPrefetchDocuments())) {
+			return null;
+		}
+		int permits = getMerger().tryAdmitDocument(subj.getIdentifier());
+		if (permits < 0) {
+			logger.trace("[Merger] Not enough memory to prefetch document {}. ", SaltUtil.getGlobalId(subj.getIdentifier()));
+			return null;
+		}
+		Prefetch prefetch = new Prefetch(subj, permits);
+		try {
+			getMerger().getPrefetchExecutor().execute(prefetch.task);
+		} catch (RejectedExecutionException e) {
+			// the merger is shutting down
+			prefetch.release();
+			return null;
+		}
+		getMerger().getMetrics().addPrefetchedDocument();
+		return prefetch;
+	}
+
+	/**
+	 * Wakes up and normalizes the document of a partner in a thread of the
+	 * {@link Merger#getPrefetchExecutor()}, while the current partner is
+	 * merged. The permits acquired for holding the document in main memory
+	 * are released, as soon as the document is the current partner.
+	 */
+	private class Prefetch {
+		private final MappingSubject subj;
+		private final int permits;
+		private final FutureTask<NormalizedTexts> task;
+		private boolean released = false;
+		/** true if the document was woken up by this prefetch **/
+		private volatile boolean woken = false;
+
+		private Prefetch(final MappingSubject subj, int permits) {
+			this.subj = subj;
+			this.permits = permits;
+			this.task = new FutureTask<>(new Callable<NormalizedTexts>() {
+				@Override
+				public NormalizedTexts call() {
+					woken = wakeUp(subj, "next");
+					return normalizeTexts((SDocument) subj.getIdentifier().getIdentifiableElement(), true);
+				}
+			});
+		}
+
+		/**
+		 * Waits until the document is woken up and normalized.
+		 */
+		private NormalizedTexts get() {
+			try {
+				return task.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new PepperModuleException(MergerMapper.this, "Interrupted while waiting for a document to be woken up. ", e);
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof RuntimeException) {
+					throw (RuntimeException) e.getCause();
+				}
+				throw new PepperModuleException(MergerMapper.this, "Cannot wake up a document. ", e.getCause());
+			} finally {
+				release();
+			}
+		}
+
+		/**
+		 * Stops waiting for the document, when merging failed. A document
+		 * already woken up is sent to sleep again, since it will not be
+		 * merged.
+		 */
+		private void cancel() {
+			if (!task.cancel(false)) {
+				// the document is woken up already or just now
+				try {
+					task.get();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				} catch (ExecutionException e) {
+					logger.debug("[Merger] Prefetching document {} failed. ", SaltUtil.getGlobalId(subj.getIdentifier()), e.getCause());
+				}
+				if (woken && (!subj.getDocumentController().isAsleep())) {
+					getMerger().sendToSleep(subj.getDocumentController());
+				}
+			}
+			release();
+		}
+
+		private void release() {
+			if (!released) {
+				released = true;
+				getMerger().releaseMergerMapper(permits);
+			}
+		}
+	}
+
 	/**
 	 * This method merges the Document content of the other {@link SDocument} to
 	 * the base {@link SDocument} and uses the set of {@link SToken} which are
@@ -395,7 +611,7 @@ public class MergerMapper extends PepperMapperImpl implements PepperMapper {
 				initialSize = otherDoc.getDocumentGraph().getNodes().size();
 			}
 
-			node2NodeMap = new HashMap<>(initialSize);
+			node2NodeMap = new IdentityNodeMapping(initialSize);
 			boolean alignedTexts = false;
 			if (otherDoc.getDocumentGraph().getTextualDSs() != null) {
 				// there should be texts
@@ -421,12 +637,21 @@ public class MergerMapper extends PepperMapperImpl implements PepperMapper {
 				MergeHandler handler = new MergeHandler(node2NodeMap, otherGraph, baseGraph, getContainer());
 				handler.setProperties((MergerProperties) getProperties());
 
-				List<SNode> roots = getRoots(otherGraph);
-				if ((roots == null) || (roots.size() == 0)) {
+				boolean tokenOnly = (otherGraph.getTokens() != null) && (!otherGraph.getTokens().isEmpty()) && (isTokenOnly(otherGraph));
+				List<SNode> roots = tokenOnly ? null : getRoots(otherGraph);
+				if (tokenOnly) {
+					// tokens have no further children, merge them without
+					// computing roots and merge order
+					logger.trace("[Merger] Merging tokens of token-only document {} into {}", SaltUtil.getGlobalId(otherDoc.getIdentifier()), SaltUtil.getGlobalId(baseDoc.getIdentifier()));
+					handler.mergeTokensInBulk();
+					if (getMerger() != null) {
+						getMerger().getMetrics().addSkippedTraversal();
+					}
+				} else if ((roots == null) || (roots.size() == 0)) {
 					logger.warn("Cannot start the traversing for merging document-structure, since no tokens exist for document '" + SaltUtil.getGlobalId(otherGraph.getDocument().getIdentifier()) + "'.");
 				} else {
 					logger.trace("[Merger] Merging higher document-structure for [{}, {}]", SaltUtil.getGlobalId(baseDoc.getIdentifier()), SaltUtil.getGlobalId(otherDoc.getIdentifier()));
-					otherGraph.traverse(roots, GRAPH_TRAVERSE_TYPE.TOP_DOWN_DEPTH_FIRST, "merger_" + SaltUtil.getGlobalId(baseDoc.getIdentifier()), handler, false);
+					handler.mergeBottomUp(roots);
 					// finally merge pointing relations
 					handler.mergeSPointingRelations(otherGraph, baseGraph);
 					logger.trace("[Merger] Done with merging higher document-structure for [{}, {}]", SaltUtil.getGlobalId(baseDoc.getIdentifier()), SaltUtil.getGlobalId(otherDoc.getIdentifier()));
@@ -439,6 +664,15 @@ public class MergerMapper extends PepperMapperImpl implements PepperMapper {
 		}
 	}
 
+	/**
+	 * Returns true, if the given graph only contains texts, tokens and the
+	 * textual relations between them. Such a graph does not need to be
+	 * traversed for merging.
+	 */
+	private static boolean isTokenOnly(SDocumentGraph graph) {
+		return (graph.getNodes().size() == graph.getTokens().size() + graph.getTextualDSs().size()) && (graph.getRelations().size() == graph.getTextualRelations().size());
+	}
+
 	/**
 	 * Emits root nodes, which are roots for {@link SDominanceRelation} and
 	 * {@link SSpanningRelation} only. For instance for the sample:
@@ -569,93 +803,115 @@ public class MergerMapper extends PepperMapperImpl implements PepperMapper {
 	 *            normalized.
 	 */
 	protected void normalizePrimaryTexts(SDocument sDocument) {
+		registerNormalizedTexts(sDocument, normalizeTexts(sDocument, false));
+	}
+
+	/**
+	 * The normalized texts of a document and the positions of its tokens in
+	 * them. They are computed by {@link MergerMapper#normalizeTexts} without
+	 * changing the {@link TokenMergeContainer}, so that a document can be
+	 * normalized in another thread.
+	 */
+	private static class NormalizedTexts {
+		private final TextualRelationIndex textRelIndex;
+		private final List<STextualDS> texts = new ArrayList<>();
+		private final List<TextNormalizer.NormalizedText> normalized = new ArrayList<>();
+		/**
+		 * the start and end of each token in the normalized text, in the order
+		 * of {@link TextualRelationIndex#getRelations(STextualDS)}
+		 **/
+		private final List<int[]> tokenBoundaries = new ArrayList<>();
+
+		private NormalizedTexts(TextualRelationIndex textRelIndex) {
+			this.textRelIndex = textRelIndex;
+		}
+	}
+
+	/**
+	 * Normalizes all primary texts of the given {@link SDocument} and computes
+	 * the positions of the tokens in the normalized texts.
+	 * 
+	 * @param sDocument
+	 *            the {@link SDocument} for which the textual layer should be
+	 *            normalized.
+	 * @param inBackground
+	 *            true if called from another thread than the mapper, the
+	 *            {@link TokenMergeContainer} is not accessed then
+	 */
+	private NormalizedTexts normalizeTexts(SDocument sDocument, boolean inBackground) {
 		if (sDocument == null) {
 			throw new PepperModuleException(this, "Cannot normalize Text of the document since the SDocument reference is NULL");
 		}
 		if (sDocument.getDocumentGraph() != null) {
 			// check whether the document has any STextualDS
 			List<STextualDS> sTextualDSs = sDocument.getDocumentGraph().getTextualDSs();
+			TextNormalizer normalizer = ((MergerProperties) getProperties()).getTextNormalizer();
+			// group the relations by text once instead of scanning them for
+			// each text
+			TextualRelationIndex textRelIndex = inBackground ? new TextualRelationIndex(sDocument.getDocumentGraph()) : getContainer().getTextualRelationIndex(sDocument.getDocumentGraph());
+			NormalizedTexts result = new NormalizedTexts(textRelIndex);
 			for (STextualDS sTextualDS : sTextualDSs) {
 				// normalize all textual datasources
-				List<Integer> originalToNormalizedMapping = new ArrayList<>();
-				String normalizedText = createOriginalToNormalizedMapping(sTextualDS, originalToNormalizedMapping);
-				for (STextualRelation textRel : sDocument.getDocumentGraph().getTextualRelations()) {
-					if (textRel.getTarget().equals(sTextualDS)) {
-						SToken sToken = textRel.getSource();
-						if (textRel.getStart() >= originalToNormalizedMapping.size()) {
-							throw new PepperModuleInternalException(this, "Cannot find token " + SaltUtil.getGlobalId(textRel.getSource().getIdentifier()) + " in  'originalToNormalizedMapping' list. ");
-						}
-						// the start position of current token in normalized
-						// text
-						int normalizedTokenStart = originalToNormalizedMapping.get(textRel.getStart());
-						// the end position of current token in normalized text
-						int normalizedTokenEnd = 0;
-						if (textRel.getEnd() >= (originalToNormalizedMapping.size())) {
-							if (textRel.getEnd() >= (originalToNormalizedMapping.size() + 1)) {
-								throw new PepperModuleInternalException(this, "textRel.getEnd() >= (originalToNormalizedMapping.size()+1). ");
-							} else {
-								normalizedTokenEnd = originalToNormalizedMapping.get(originalToNormalizedMapping.size() - 1) + 1;
-							}
+				TextNormalizer.NormalizedText normalized = normalizer.normalize(sTextualDS.getText());
+				int[] originalToNormalizedMapping = normalized.getOriginalToNormalized();
+				List<STextualRelation> textRels = textRelIndex.getRelations(sTextualDS);
+				int[] boundaries = new int[textRels.size() * 2];
+				int i = 0;
+				for (STextualRelation textRel : textRels) {
+					if (textRel.getStart() >= originalToNormalizedMapping.length) {
+						throw new PepperModuleInternalException(this, "Cannot find token " + SaltUtil.getGlobalId(textRel.getSource().getIdentifier()) + " in  'originalToNormalizedMapping' list. ");
+					}
+					// the start position of current token in normalized
+					// text
+					int normalizedTokenStart = originalToNormalizedMapping[textRel.getStart()];
+					// the end position of current token in normalized text
+					int normalizedTokenEnd = 0;
+					if (textRel.getEnd() >= (originalToNormalizedMapping.length)) {
+						if (textRel.getEnd() >= (originalToNormalizedMapping.length + 1)) {
+							throw new PepperModuleInternalException(this, "textRel.getEnd() >= (originalToNormalizedMapping.length+1). ");
 						} else {
-							normalizedTokenEnd = originalToNormalizedMapping.get(textRel.getEnd());
+							normalizedTokenEnd = originalToNormalizedMapping[originalToNormalizedMapping.length - 1] + 1;
 						}
-						getContainer().addAlignedToken(sTextualDS, sToken, normalizedTokenStart, normalizedTokenEnd);
+					} else {
+						normalizedTokenEnd = originalToNormalizedMapping[textRel.getEnd()];
 					}
+					boundaries[i++] = normalizedTokenStart;
+					boundaries[i++] = normalizedTokenEnd;
 				}
-				getContainer().addNormalizedText(sDocument, sTextualDS, normalizedText);
+				result.texts.add(sTextualDS);
+				result.normalized.add(normalized);
+				result.tokenBoundaries.add(boundaries);
 			}
+			return result;
 		} else {
 			throw new PepperModuleInternalException(this, "Could not compute the normalized text for document '" + SaltUtil.getGlobalId(sDocument.getIdentifier()) + "', because the document contains no document graph. May be it has not been woken up. ");
 		}
 	}
 
 	/**
-	 * Creates a normalized text from the given {@link STextualDS} object and
-	 * returns it. Further a mapping passed as
-	 * <code>originalToNormalizedMapping</code>from the given text to the
-	 * normalized text is created.
-	 * 
-	 * @param sTextualDS
-	 * @param originalToNormalizedMapping
-	 * @return
+	 * Adds the normalized texts and the positions of the tokens computed by
+	 * {@link #normalizeTexts(SDocument, boolean)} to the
+	 * {@link TokenMergeContainer}.
 	 */
-	private String createOriginalToNormalizedMapping(STextualDS sTextualDS, List<Integer> originalToNormalizedMapping) {
-		StringBuilder normalizedTextBuilder = new StringBuilder();
-		int start = 0;
-		char[] chr = sTextualDS.getText().toCharArray();
-		for (char c : chr) {
-			String stringToEscape = ((MergerProperties) getProperties()).getEscapeMapping().get(String.valueOf(c));
-			if (stringToEscape == null) {
-				originalToNormalizedMapping.add(start);
-				normalizedTextBuilder.append(c);
-				start += 1;
-			} else {
-				if (stringToEscape.length() > 0) {
-					originalToNormalizedMapping.add(start);
-					for (int i = 0; i < stringToEscape.length(); i++) {
-						// one char is mapped to many. all chars have the same
-						// index in the original text
-						start += 1;
-					}
-					normalizedTextBuilder.append(stringToEscape);
-				} else {
-					// one char is mapped to the empty string.
-					originalToNormalizedMapping.add(start);
-				}
+	private void registerNormalizedTexts(SDocument sDocument, NormalizedTexts normalizedTexts) {
+		getContainer().setTextualRelationIndex(sDocument.getDocumentGraph(), normalizedTexts.textRelIndex);
+		for (int i = 0; i < normalizedTexts.texts.size(); i++) {
+			STextualDS sTextualDS = normalizedTexts.texts.get(i);
+			TextNormalizer.NormalizedText normalized = normalizedTexts.normalized.get(i);
+			int[] boundaries = normalizedTexts.tokenBoundaries.get(i);
+			List<STextualRelation> textRels = normalizedTexts.textRelIndex.getRelations(sTextualDS);
+			for (int j = 0; j < textRels.size(); j++) {
+				getContainer().addAlignedToken(sTextualDS, textRels.get(j).getSource(), boundaries[2 * j], boundaries[2 * j + 1]);
 			}
+			getContainer().addNormalizedText(sDocument, sTextualDS, normalized.getText());
+			// the reverse table is computed in the same pass, keep it in
+			// case the text becomes a base text
+			getContainer().setBaseTextPositionByNormalizedTextPosition(sTextualDS, normalized.getNormalizedToOriginal());
 		}
-		// add an additional entry for the position after the last character
-		// (imagine an empty token beginning and ending at last position of the
-		// text). This is necessary, because text positions are positions
-		// BETWEEN characters.
-		originalToNormalizedMapping.add(start++);
-
-		String normalizedText = normalizedTextBuilder.toString();
-		return normalizedText;
 	}
 
 	/**
-	 * This method creates a reverse mapping list for the given Text. If the
+	 * This method creates a reverse mapping table for the given Text. If the
 	 * given text is normalized including the removal of whitespaces, the
 	 * position of characters is changed. But if the position of a character in
 	 * the original text is needed, we need more information. This method
@@ -663,15 +919,16 @@ public class MergerMapper extends PepperMapperImpl implements PepperMapper {
 	 * 
 	 * @param sTextualDS
 	 *            The {@link STextualDS}
-	 * @return A list of integers. The integer at index i specifies the position
-	 *         of the i'th character of the normalized text in the original
-	 *         text. Example: Let c be the second character in the original text
-	 *         and a whitespace the first character in the original text. Since
-	 *         the whitespace is removed, c is the first character in the
-	 *         normalized text. The first element of the returned list will
-	 *         contain the number 2 since c was the second char, originally.
+	 * @return A table of integers. The integer at index i specifies the
+	 *         position of the i'th character of the normalized text in the
+	 *         original text. Example: Let c be the second character in the
+	 *         original text and a whitespace the first character in the
+	 *         original text. Since the whitespace is removed, c is the first
+	 *         character in the normalized text. The first element of the
+	 *         returned table will contain the number 2 since c was the second
+	 *         char, originally.
 	 */
-	protected List<Integer> createBaseTextNormOriginalMapping(STextualDS sTextualDS) {
+	protected int[] createBaseTextNormOriginalMapping(STextualDS sTextualDS) {
 		/**
 		 * Example1:
 		 * 
@@ -686,33 +943,7 @@ public class MergerMapper extends PepperMapperImpl implements PepperMapper {
 		 * 0->1 1->2 2->3 3->3 4->4 5->6 6->7
 		 * </pre>
 		 */
-		List<Integer> normalizedToOriginalMapping = new ArrayList<>();
-		int start = 0;
-		char[] chr = sTextualDS.getText().toCharArray();
-		for (char c : chr) {
-			String stringToEscape = ((MergerProperties) getProperties()).getEscapeMapping().get(String.valueOf(c));
-			if (stringToEscape == null) {
-				normalizedToOriginalMapping.add(start);
-			} else {
-				if (stringToEscape.length() > 0) {
-					char[] chr2 = stringToEscape.toCharArray();
-					for (int i = 0; i < chr2.length; i++) {
-						// one char is mapped to many. all chars have the same
-						// index in the original text
-						normalizedToOriginalMapping.add(start);
-					}
-				} else { // one char is mapped to the empty string.
-							// do nothing
-				}
-			}
-			start += 1;
-		}
-		// add an additional entry for the position after the last character
-		// (imagine an empty token beginning and ending at last position of the
-		// text). This is necessary, because text positions are positions
-		// BETWEEN characters.
-		normalizedToOriginalMapping.add(start++);
-		return normalizedToOriginalMapping;
+		return ((MergerProperties) getProperties()).getTextNormalizer().normalize(sTextualDS.getText()).getNormalizedToOriginal();
 	}
 
 	/** A list of all pairs of matching texts to be reported. **/
@@ -730,7 +961,8 @@ public class MergerMapper extends PepperMapperImpl implements PepperMapper {
 
 	/**
 	 * This method tries to find matching texts in base document and other
-	 * document. A cross product is computed.
+	 * document. The pairs of texts to be aligned are planned by a
+	 * {@link TextPairPlanner}, which avoids aligning pairs which cannot match.
 	 */
 	private boolean alignAllTexts(SDocument baseDoc, SDocument otherDoc) {
 		// ignore the base document and align all other
@@ -741,6 +973,7 @@ public class MergerMapper extends PepperMapperImpl implements PepperMapper {
 		if ((otherDoc.getDocumentGraph().getTextualDSs() != null) && (otherDoc.getDocumentGraph().getTextualDSs().size() > 0)) {
 			// The other document has at least one text
 			Set<SToken> nonEquivalentTokenInOtherTexts = new HashSet<>();
+			TextPairPlanner planner = new TextPairPlanner(otherDoc.getDocumentGraph().getTextualDSs(), getContainer(), (MergerProperties) getProperties());
 
 			for (STextualDS baseText : getBaseDocument().getDocumentGraph().getTextualDSs()) {
 				// for all texts of the base document
@@ -752,38 +985,36 @@ public class MergerMapper extends PepperMapperImpl implements PepperMapper {
 				if (otherDoc.getDocumentGraph().getTokens() != null) {
 					nonEquivalentTokenInOtherTexts.addAll(otherDoc.getDocumentGraph().getTokens());
 				}
-				for (STextualDS otherText : otherDoc.getDocumentGraph().getTextualDSs()) {
-					boolean tryMerge = true;
-					if(((MergerProperties) getProperties()).isOnlyMergeTextWithSameName()) {
-						tryMerge = Objects.equal(otherText.getName(), baseText.getName());
+				for (STextualDS otherText : planner.getPartners(baseText)) {
+					// align the current base text with all texts of
+					// the other document
+					boolean isAlignable = planner.isCandidate(baseText, otherText) && alignTexts(baseText, otherText, nonEquivalentTokenInOtherTexts, node2NodeMap);
+					if (isAlignable) {
+						retVal = true;
+						Pair<String, String> base = new ImmutablePair<>(baseText.getId(), "<base>" + baseText.getText());
+						Pair<String, String> other = new ImmutablePair<>(otherText.getId(), otherText.getText());
+						matchingTexts.add(new ImmutablePair<>(base, other));
+						matchingTextsIdx.add(SaltUtil.getGlobalId(otherText.getIdentifier()));
+						matchingTextsIdx.add(SaltUtil.getGlobalId(baseText.getIdentifier()));
+						noMatchingTexts.remove(other);
+						noMatchingTexts.remove(base);
+
+						// add matching texts to a list of all matching nodes
+						node2NodeMap.put(otherText, baseText);
+						mergeTokens(baseText, otherText, node2NodeMap);
 					}
-					if(tryMerge) {
-						// align the current base text with all texts of
-						// the other document
-						boolean isAlignable = alignTexts(baseText, otherText, nonEquivalentTokenInOtherTexts, node2NodeMap);
-						if (isAlignable) {
-							retVal = true;
-							Pair<String, String> base = new ImmutablePair<>(baseText.getId(), "<base>" + baseText.getText());
-							Pair<String, String> other = new ImmutablePair<>(otherText.getId(), otherText.getText());
-							matchingTexts.add(new ImmutablePair<>(base, other));
-							matchingTextsIdx.add(SaltUtil.getGlobalId(otherText.getIdentifier()));
-							matchingTextsIdx.add(SaltUtil.getGlobalId(baseText.getIdentifier()));
-							noMatchingTexts.remove(other);
-							noMatchingTexts.remove(base);
-	
-							// add matching texts to a list of all matching nodes
-							node2NodeMap.put(otherText, baseText);
-							mergeTokens(baseText, otherText, node2NodeMap);
-						}
-						if (!matchingTextsIdx.contains(SaltUtil.getGlobalId(otherText.getIdentifier()))) {
-							noMatchingTexts.add(new ImmutablePair<>(otherText.getId(), otherText.getText()));
-						}
+					if (!matchingTextsIdx.contains(SaltUtil.getGlobalId(otherText.getIdentifier()))) {
+						noMatchingTexts.add(new ImmutablePair<>(otherText.getId(), otherText.getText()));
 					}
 				}
 				if (!matchingTextsIdx.contains(SaltUtil.getGlobalId(baseText.getIdentifier()))) {
 					noMatchingTexts.add(new ImmutablePair<>(baseText.getId(), "<base>" + baseText.getText()));
 				}
 			} // for all texts of the base document
+			logger.debug("[Merger] Pruned {} of {} pairs of texts of documents {} and {} without alignment. ", planner.getPruned(), planner.getConsidered(), SaltUtil.getGlobalId(baseDoc.getIdentifier()), SaltUtil.getGlobalId(otherDoc.getIdentifier()));
+			if (getMerger() != null) {
+				getMerger().getMetrics().addTextPairs(planner.getConsidered(), planner.getPruned());
+			}
 		} // The other document has at least one text
 		return (retVal);
 	}
@@ -808,6 +1039,14 @@ public class MergerMapper extends PepperMapperImpl implements PepperMapper {
 	 * @return true on success and false on failure
 	 */
 	protected boolean alignTexts(STextualDS baseText, STextualDS otherText, Set<SToken> nonEquivalentTokenInOtherTexts, Map<SNode, SNode> equivalenceMap) {
+		return alignTexts(baseText, otherText, nonEquivalentTokenInOtherTexts, new NodeMapping.MapAdapter(equivalenceMap));
+	}
+
+	/**
+	 * Same as {@link #alignTexts(STextualDS, STextualDS, Set, Map)}, but
+	 * stores the equivalent tokens in a {@link NodeMapping}.
+	 */
+	protected boolean alignTexts(STextualDS baseText, STextualDS otherText, Set<SToken> nonEquivalentTokenInOtherTexts, NodeMapping equivalenceMap) {
 		if (baseText == null) {
 			throw new PepperModuleException(this, "Cannot align the Text of the documents since the base SDocument reference is NULL");
 		}
@@ -830,36 +1069,21 @@ public class MergerMapper extends PepperMapperImpl implements PepperMapper {
 			getContainer().setBaseTextPositionByNormalizedTextPosition(baseText, this.createBaseTextNormOriginalMapping(baseText));
 		}
 
-		int offset = -1;
-
-		// set the bigger and smaller text
-		STextualDS biggerText = baseText;
-		STextualDS smallerText = otherText;
+		if (normalizedBaseText.equals(normalizedOtherText) && alignIdenticalTexts(baseText, otherText, nonEquivalentTokenInOtherTexts, equivalenceMap)) {
+			return true;
+		}
 
-		if (normalizedBaseText.length() >= normalizedOtherText.length()) {
-			// if the other text fits into the base text by size
-			offset = indexOfOmitChars(normalizedBaseText.toLowerCase(), normalizedOtherText.toLowerCase(), true, ((MergerProperties) getProperties()).getPunctuations());
-		} // if the other text fits into the base text by size
-		else { // if the base text fits into the other text by size
-			offset = indexOfOmitChars(normalizedOtherText.toLowerCase(), normalizedBaseText.toLowerCase(), true, ((MergerProperties) getProperties()).getPunctuations());
-			biggerText = otherText;
-			smallerText = baseText;
-		} // if the base text fits into the other text by size
+		// compute the offset once, mergeTokens reuses the result
+		AlignmentResult alignment = computeAlignment(baseText, otherText, normalizedBaseText, normalizedOtherText);
+		registerAlignment(alignment);
 
-		if (offset != -1) {
+		if (alignment.isAlignable()) {
 			// if the normalized smaller text is contained in the normalized
 			// bigger text
 			returnVal = true;
-			// get the tokens of the other text.
-			List<SToken> textTokens = new ArrayList<>();
-			for (Relation e : smallerText.getGraph().getInRelations(smallerText.getId())) {
-				// get all tokens of the smaller text
-				if (e instanceof STextualRelation) {
-					textTokens.add(((STextualRelation) e).getSource());
-				}
-			} // get all tokens of the smaller text
-
-			for (SToken smallerTextToken : textTokens) {
+			STextualDS biggerText = alignment.getBiggerText();
+			STextualDS smallerText = alignment.getSmallerText();
+			for (SToken smallerTextToken : alignment.getSmallerTextTokens()) {
 				// get the aligned token start and length
 				int smallerTextTokenStart = getContainer().getAlignedTokenStart(smallerText, smallerTextToken);
 				int smallerTextTokenLength = getContainer().getAlignedTokenLength(smallerText, smallerTextToken);
@@ -868,19 +1092,22 @@ public class MergerMapper extends PepperMapperImpl implements PepperMapper {
 					// the token of the smaller text has a start and end in the
 					// smaller text: get the aligned token from the base
 					// document which has the start of offset+startOfOtherToken
-					SToken biggerTextToken = getContainer().getAlignedTokenByStart(biggerText, (smallerTextTokenStart + offset));
+					int biggerTextTokenStart = alignment.toBiggerStart(smallerTextTokenStart);
+					int biggerTextTokenEnd = alignment.toBiggerEnd(smallerTextTokenStart + smallerTextTokenLength);
+					SToken biggerTextToken = (biggerTextTokenStart == -1) ? null : getContainer().getAlignedTokenByStart(biggerText, biggerTextTokenStart);
 					if (biggerTextToken != null) {
 						// there is some token in the bigger text which has the
 						// same start
-						if (getContainer().getAlignedTokenLength(biggerText, biggerTextToken) == smallerTextTokenLength) {
+						if (getContainer().getAlignedTokenLength(biggerText, biggerTextToken) == (biggerTextTokenEnd - biggerTextTokenStart)) {
 							// start and lengths are identical. We found an
 							// equivalence class
 							// we want to have equivalences: otherTextToken -->
 							// baseTextToken
-							if (biggerText.equals(baseText)) {
+							if (alignment.isBaseTextBigger()) {
 								// if the base text is the bigger text
 								getContainer().addTokenMapping(biggerTextToken, smallerTextToken, smallerText);
 								equivalenceMap.put(smallerTextToken, biggerTextToken);
+								alignment.addEquivalentToken(smallerTextToken, biggerTextToken);
 
 								nonEquivalentTokenInOtherTexts.remove(smallerTextToken);
 							} // if the base text is the bigger text
@@ -890,6 +1117,7 @@ public class MergerMapper extends PepperMapperImpl implements PepperMapper {
 								// smallerTextToken = baseTextToken
 								getContainer().addTokenMapping(smallerTextToken, biggerTextToken, biggerText);
 								equivalenceMap.put(biggerTextToken, smallerTextToken);
+								alignment.addEquivalentToken(biggerTextToken, smallerTextToken);
 								nonEquivalentTokenInOtherTexts.remove(biggerTextToken);
 							} // if the base text is the smaller text
 
@@ -908,12 +1136,121 @@ public class MergerMapper extends PepperMapperImpl implements PepperMapper {
 		return returnVal;
 	}
 
+	/**
+	 * Fast path of {@link #alignTexts(STextualDS, STextualDS, Set, Map)} for
+	 * texts having the same normalized text. If both texts are also tokenized
+	 * identically, the tokens are mapped pairwise in the order of their start
+	 * without searching.
+	 * 
+	 * @return true, if the tokenizations are identical and the tokens have
+	 *         been mapped, false if the texts need to be aligned
+	 */
+	private boolean alignIdenticalTexts(STextualDS baseText, STextualDS otherText, Set<SToken> nonEquivalentTokenInOtherTexts, NodeMapping equivalenceMap) {
+		TokenMergeContainer.AlignedTokensMap baseTokens = getContainer().getAlignedTokens(baseText);
+		TokenMergeContainer.AlignedTokensMap otherTokens = getContainer().getAlignedTokens(otherText);
+		if ((baseTokens == null) || (otherTokens == null) || (!baseTokens.hasSameBoundaries(otherTokens))) {
+			return false;
+		}
+		AlignmentResult alignment = new AlignmentResult(baseText, otherText, 0, true);
+		registerAlignment(alignment);
+		List<SToken> baseTextTokens = baseTokens.getTokensByStart();
+		List<SToken> otherTextTokens = otherTokens.getTokensByStart();
+		for (int i = 0; i < baseTextTokens.size(); i++) {
+			SToken baseTextToken = baseTextTokens.get(i);
+			SToken otherTextToken = otherTextTokens.get(i);
+			getContainer().addTokenMapping(baseTextToken, otherTextToken, otherText);
+			equivalenceMap.put(otherTextToken, baseTextToken);
+			alignment.addEquivalentToken(otherTextToken, baseTextToken);
+			nonEquivalentTokenInOtherTexts.remove(otherTextToken);
+		}
+		logger.debug("[Merger] The texts '{}' and '{}' are identical, {} tokens were mapped directly. ", SaltUtil.getGlobalId(otherText.getIdentifier()), SaltUtil.getGlobalId(baseText.getIdentifier()), baseTextTokens.size());
+		if (getMerger() != null) {
+			getMerger().getMetrics().addIdenticalTextPair();
+		}
+		return true;
+	}
+
+	/**
+	 * Passes the tokens of both texts from the {@link TextualRelationIndex}es
+	 * to the given alignment and stores it in the container.
+	 */
+	private void registerAlignment(AlignmentResult alignment) {
+		STextualDS baseText = alignment.getBaseText();
+		STextualDS otherText = alignment.getOtherText();
+		alignment.setTextTokens(getContainer().getTextualRelationIndex((SDocumentGraph) baseText.getGraph()).getTokens(baseText), getContainer().getTextualRelationIndex((SDocumentGraph) otherText.getGraph()).getTokens(otherText));
+		getContainer().setAlignmentResult(alignment);
+	}
+
+	/**
+	 * Searches the smaller of both normalized texts in the bigger one and
+	 * returns the offset as {@link AlignmentResult}.
+	 * 
+	 * @param baseText
+	 *            the base {@link STextualDS}
+	 * @param otherText
+	 *            the other {@link STextualDS}
+	 * @param normalizedBaseText
+	 *            the normalized base text
+	 * @param normalizedOtherText
+	 *            the normalized other text
+	 * @return the computed alignment, which might not be alignable
+	 */
+	private AlignmentResult computeAlignment(STextualDS baseText, STextualDS otherText, String normalizedBaseText, String normalizedOtherText) {
+		int offset = -1;
+		boolean baseTextBigger = normalizedBaseText.length() >= normalizedOtherText.length();
+		if (baseTextBigger) {
+			// if the other text fits into the base text by size. The base text
+			// is searched for every other text, so it is indexed once
+			NormalizedTextIndex index = getContainer().getTextIndex(baseText);
+			if (index == null) {
+				index = new NormalizedTextIndex(normalizedBaseText, ((MergerProperties) getProperties()).getOmitChars());
+				getContainer().setTextIndex(baseText, index);
+			}
+			int[] occurrences = index.findAll(normalizedOtherText);
+			if (occurrences.length > 0) {
+				offset = occurrences[0];
+				if (occurrences.length > 1) {
+					logger.debug("[Merger] The text '{}' occurs {} times in base text '{}', it is aligned to its first occurrence. ", SaltUtil.getGlobalId(otherText.getIdentifier()), occurrences.length, SaltUtil.getGlobalId(baseText.getIdentifier()));
+				}
+			}
+		} // if the other text fits into the base text by size
+		else { // if the base text fits into the other text by size
+			offset = indexOfOmitChars(toLowerCase(normalizedOtherText), toLowerCase(normalizedBaseText), true, ((MergerProperties) getProperties()).getOmitChars());
+		} // if the base text fits into the other text by size
+		int maxErrors = ((MergerProperties) getProperties()).getMaxAlignmentErrors();
+		if ((offset == -1) && (maxErrors > 0)) {
+			// no exact match, try to place the smaller text with at most
+			// maxErrors edits
+			String smaller = baseTextBigger ? normalizedOtherText : normalizedBaseText;
+			String bigger = baseTextBigger ? normalizedBaseText : normalizedOtherText;
+			ApproximateAligner.Alignment approximation = ApproximateAligner.align(smaller, bigger, maxErrors);
+			if (approximation != null) {
+				logger.debug("[Merger] The texts '{}' and '{}' are aligned approximately with {} edit(s). ", SaltUtil.getGlobalId(otherText.getIdentifier()), SaltUtil.getGlobalId(baseText.getIdentifier()), approximation.getErrors());
+				return new AlignmentResult(baseText, otherText, baseTextBigger, approximation);
+			}
+		}
+		return new AlignmentResult(baseText, otherText, offset, baseTextBigger);
+	}
+
 	/*
 	 * *******************************************************************
 	 * Alignment and Normalization Helper Methods
 	 * ******************************************************************
 	 */
 
+	/**
+	 * Lowercases each character of the given text on its own. In contrast to
+	 * {@link String#toLowerCase()}, the length of the text and therefore all
+	 * positions in it are kept.
+	 */
+	private static String toLowerCase(String text) {
+		char[] chr = text.toCharArray();
+		for (int i = 0; i < chr.length; i++) {
+			chr[i] = Character.toLowerCase(chr[i]);
+		}
+		return new String(chr);
+	}
+
 	/**
 	 * This method searches for the first occurence of the stringToSearchFor in
 	 * the stringToSearchIn and ommits all chars in the omitCharArray. The index
@@ -930,11 +1267,32 @@ public class MergerMapper extends PepperMapperImpl implements PepperMapper {
 	 * @return the index on success and -1 on failure
 	 */
 	protected int indexOfOmitChars(String stringToSearchIn, String stringToSearchFor, boolean useIndexOf, Set<Character> omitChars) {
+		OmitChars compiled = (getProperties() instanceof MergerProperties) ? ((MergerProperties) getProperties()).getOmitChars(omitChars) : OmitChars.of(omitChars);
+		return indexOfOmitChars(stringToSearchIn, stringToSearchFor, useIndexOf, compiled);
+	}
+
+	/**
+	 * This method searches for the first occurence of the stringToSearchFor in
+	 * the stringToSearchIn and ommits all chars in the given {@link OmitChars}.
+	 * The index of the first occurence is returned.
+	 * 
+	 * @param stringToSearchIn
+	 *            String in which is searched
+	 * @param stringToSearchFor
+	 *            String which is to search
+	 * @param useIndexof
+	 *            If this flag is set, all omit chars are removed from both
+	 *            provided strings and a normal indexOf is used
+	 * @param omitChars
+	 *            the characters to be ignored
+	 * @return the index on success and -1 on failure
+	 */
+	protected int indexOfOmitChars(String stringToSearchIn, String stringToSearchFor, boolean useIndexOf, OmitChars omitChars) {
 		/* remove all omit chars from the stringToSearchFor */
 		StringBuilder builder = new StringBuilder();
 		char[] chr = stringToSearchFor.toCharArray();
 		for (char sourceChar : chr) {
-			if (!omitChars.contains(sourceChar)) {
+			if (!omitChars.isOmitted(sourceChar)) {
 				builder.append(sourceChar);
 			}
 		}
@@ -942,12 +1300,12 @@ public class MergerMapper extends PepperMapperImpl implements PepperMapper {
 
 		if (useIndexOf) {
 			builder = new StringBuilder();
-			List<Integer> normalizedToOriginalMapping = new ArrayList<>();
+			int[] normalizedToOriginalMapping = new int[stringToSearchIn.length()];
 			int start = 0;
 			char[] chr2 = stringToSearchIn.toCharArray();
 			for (char targetChar : chr2) {
-				if (!omitChars.contains(targetChar)) { // no omit char
-					normalizedToOriginalMapping.add(start);
+				if (!omitChars.isOmitted(targetChar)) { // no omit char
+					normalizedToOriginalMapping[builder.length()] = start;
 					builder.append(targetChar);
 				} else { // omit char
 				}
@@ -956,7 +1314,7 @@ public class MergerMapper extends PepperMapperImpl implements PepperMapper {
 			String targetString = builder.toString();
 			int index = targetString.indexOf(sourceString);
 			if (index != -1) {
-				return normalizedToOriginalMapping.get(index);
+				return normalizedToOriginalMapping[index];
 			} else {
 				return index;
 			}
@@ -993,7 +1351,7 @@ public class MergerMapper extends PepperMapperImpl implements PepperMapper {
 					// search the current char and ignore all chars to omit in
 					// the target string
 					char targetChar = charsToSearchIn[i];
-					if (omitChars.contains(targetChar)) {
+					if (omitChars.isOmitted(targetChar)) {
 						// ignore
 						position++;
 						continue;
@@ -1040,6 +1398,14 @@ public class MergerMapper extends PepperMapperImpl implements PepperMapper {
 	 * @param equivalenceMap
 	 */
 	protected void mergeTokens(STextualDS baseText, STextualDS otherText, Map<SNode, SNode> equivalenceMap) {
+		mergeTokens(baseText, otherText, new NodeMapping.MapAdapter(equivalenceMap));
+	}
+
+	/**
+	 * Same as {@link #mergeTokens(STextualDS, STextualDS, Map)}, but reads
+	 * and stores the equivalent tokens in a {@link NodeMapping}.
+	 */
+	protected void mergeTokens(STextualDS baseText, STextualDS otherText, NodeMapping equivalenceMap) {
 		// We want to merge the tokens of the other text into the base text.
 		// first we need the two normalized texts
 		String normalizedBaseText = getContainer().getNormalizedText(baseText);
@@ -1050,33 +1416,24 @@ public class MergerMapper extends PepperMapperImpl implements PepperMapper {
 			getContainer().setBaseTextPositionByNormalizedTextPosition(baseText, this.createBaseTextNormOriginalMapping(baseText));
 		}
 
-		int offset = -1;
-
-		// set the bigger and smaller text
-		STextualDS biggerText = baseText;
-
-		if (normalizedBaseText.length() >= normalizedOtherText.length()) {
-			// if the other text fits into the base text by size
-			offset = indexOfOmitChars(normalizedBaseText.toLowerCase(), normalizedOtherText.toLowerCase(), true, ((MergerProperties) getProperties()).getPunctuations());
-		} // if the other text fits into the base text by size
-		else { // if the base text fits into the other text by size
-			offset = indexOfOmitChars(normalizedOtherText.toLowerCase(), normalizedBaseText.toLowerCase(), true, ((MergerProperties) getProperties()).getPunctuations());
-			biggerText = otherText;
-		} // if the base text fits into the other text by size
+		// reuse the alignment computed by alignTexts
+		AlignmentResult alignment = getContainer().getAlignmentResult(baseText, otherText);
+		if (alignment == null) {
+			alignment = computeAlignment(baseText, otherText, normalizedBaseText, normalizedOtherText);
+			registerAlignment(alignment);
+		}
 
-		if (offset != -1) { // one of the texts is alignable to the other
-							// next step: get all tokens of the other text
-			List<SToken> textTokens = new ArrayList<>();
-			for (Relation e : otherText.getGraph().getInRelations(otherText.getId())) {
-				// get all tokens of the other text
-				if (e instanceof STextualRelation) {
-					textTokens.add(((STextualRelation) e).getSource());
-				}
-			} // get all tokens of the other text
+		if (alignment.isAlignable()) { // one of the texts is alignable to the
+										// other next step: get all tokens of
+										// the other text
+			List<SToken> textTokens = alignment.getOtherTextTokens();
 			for (SToken otherTextToken : textTokens) {
 				// for every token in the other text First, search in the
 				// equivalence map for the token
-				SToken baseTextToken = (SToken) equivalenceMap.get(otherTextToken);
+				SToken baseTextToken = alignment.getEquivalentToken(otherTextToken);
+				if (baseTextToken == null) {
+					baseTextToken = (SToken) equivalenceMap.get(otherTextToken);
+				}
 				if (baseTextToken == null) {
 					// The other text token does not have an equivalent token in
 					// the base text. Try to create it. get the start and end
@@ -1087,43 +1444,63 @@ public class MergerMapper extends PepperMapperImpl implements PepperMapper {
 						// the token has start and end
 						int newStart = 0;
 						int newEnd = 0;
-						if (biggerText.equals(baseText)) {
+						if (alignment.isBaseTextBigger()) {
 							// the base text is the bigger text
-							newStart = offset + otherTextTokenStart;
-							newEnd = newStart + otherTextTokenLength;
-							// set the de-normalized start and end value in the
-							// base text for the new token
-							newStart = getContainer().getBaseTextPositionByNormalizedTextPosition(baseText, newStart);
-							newEnd = getContainer().getBaseTextPositionByNormalizedTextPosition(baseText, newEnd);
-							if (newStart < 0) {
-								throw new PepperModuleException(this, "Cannot create a token, since the SStart value is '-1' for merging '" + SaltUtil.getGlobalId(otherTextToken.getIdentifier()) + "' into '" + SaltUtil.getGlobalId(baseText.getGraph().getIdentifier()) + "'.");
-							}
-							if (newEnd < 0) {
-								throw new PepperModuleException(this, "Cannot create a token, since the SEnd value is '-1' for merging '" + SaltUtil.getGlobalId(otherTextToken.getIdentifier()) + "' ('" + otherTextToken.getGraph().getText(otherTextToken) + "') into '" + SaltUtil.getGlobalId(baseText.getGraph().getIdentifier()) + "'.");
+							newStart = alignment.toBiggerStart(otherTextTokenStart);
+							newEnd = alignment.toBiggerEnd(otherTextTokenStart + otherTextTokenLength);
+							// an approximate alignment might map the token onto
+							// an empty interval, such tokens are skipped
+							if (newEnd > newStart || otherTextTokenLength == 0) {
+								baseTextToken = findCoveringToken(baseText, newStart, newEnd);
+								if (baseTextToken != null) {
+									// merge the token into the base token covering it
+									equivalenceMap.put(otherTextToken, baseTextToken);
+								} else {
+									// set the de-normalized start and end value in the
+									// base text for the new token
+									newStart = getContainer().getBaseTextPositionByNormalizedTextPosition(baseText, newStart);
+									newEnd = getContainer().getBaseTextPositionByNormalizedTextPosition(baseText, newEnd);
+									if (newStart < 0) {
+										throw new PepperModuleException(this, "Cannot create a token, since the SStart value is '-1' for merging '" + SaltUtil.getGlobalId(otherTextToken.getIdentifier()) + "' into '" + SaltUtil.getGlobalId(baseText.getGraph().getIdentifier()) + "'.");
+									}
+									if (newEnd < 0) {
+										throw new PepperModuleException(this, "Cannot create a token, since the SEnd value is '-1' for merging '" + SaltUtil.getGlobalId(otherTextToken.getIdentifier()) + "' ('" + otherTextToken.getGraph().getText(otherTextToken) + "') into '" + SaltUtil.getGlobalId(baseText.getGraph().getIdentifier()) + "'.");
+									}
+									// create the new token in the base text with the
+									// new start and end value
+									baseTextToken = baseText.getGraph().createToken(baseText, newStart, newEnd);
+									getContainer().addToTextualRelationIndex((SDocumentGraph) baseText.getGraph(), baseTextToken);
+								}
 							}
-							// create the new token in the base text with the
-							// new start and end value
-							baseTextToken = baseText.getGraph().createToken(baseText, newStart, newEnd);
 						} // the base text is the bigger text
 						else { // the base text is the smaller text
 								// compute the new start and end
-							newStart = otherTextTokenStart - offset;
-							newEnd = newStart + otherTextTokenLength;
+							newStart = alignment.toSmallerStart(otherTextTokenStart);
+							newEnd = alignment.toSmallerEnd(otherTextTokenStart + otherTextTokenLength);
 
-							if (newStart >= 0 && newEnd <= normalizedBaseText.length()) {
+							// an approximate alignment might map the token onto
+							// an empty interval, such tokens are skipped
+							if (newStart >= 0 && (newEnd > newStart || otherTextTokenLength == 0) && newEnd <= normalizedBaseText.length()) {
 								// the new token would be in the interval of the
 								// base text.
-								newStart = getContainer().getBaseTextPositionByNormalizedTextPosition(baseText, newStart);
-								newEnd = getContainer().getBaseTextPositionByNormalizedTextPosition(baseText, newEnd);
-								if (newStart < 0) {
-									throw new PepperModuleException(this, "Cannot create a token, since the SStart value is '-1' for merging '" + SaltUtil.getGlobalId(otherTextToken.getIdentifier()) + "' into '" + SaltUtil.getGlobalId(baseText.getGraph().getIdentifier()) + "'.");
+								baseTextToken = findCoveringToken(baseText, newStart, newEnd);
+								if (baseTextToken != null) {
+									// merge the token into the base token covering it
+									equivalenceMap.put(otherTextToken, baseTextToken);
+								} else {
+									newStart = getContainer().getBaseTextPositionByNormalizedTextPosition(baseText, newStart);
+									newEnd = getContainer().getBaseTextPositionByNormalizedTextPosition(baseText, newEnd);
+									if (newStart < 0) {
+										throw new PepperModuleException(this, "Cannot create a token, since the SStart value is '-1' for merging '" + SaltUtil.getGlobalId(otherTextToken.getIdentifier()) + "' into '" + SaltUtil.getGlobalId(baseText.getGraph().getIdentifier()) + "'.");
+									}
+									if (newEnd < 0) {
+										throw new PepperModuleException(this, "Cannot create a token, since the SEnd value is '-1' for merging '" + SaltUtil.getGlobalId(otherTextToken.getIdentifier()) + "' ('" + otherTextToken.getGraph().getText(otherTextToken) + "') into '" + SaltUtil.getGlobalId(baseText.getGraph().getIdentifier()) + "'.");
+									}
+									baseTextToken = baseText.getGraph().createToken(baseText, newStart, newEnd);
+									getContainer().addToTextualRelationIndex((SDocumentGraph) baseText.getGraph(), baseTextToken);
+									// mark the new token as equivalent
+									equivalenceMap.put(otherTextToken, baseTextToken);
 								}
-								if (newEnd < 0) {
-									throw new PepperModuleException(this, "Cannot create a token, since the SEnd value is '-1' for merging '" + SaltUtil.getGlobalId(otherTextToken.getIdentifier()) + "' ('" + otherTextToken.getGraph().getText(otherTextToken) + "') into '" + SaltUtil.getGlobalId(baseText.getGraph().getIdentifier()) + "'.");
-								}
-								baseTextToken = baseText.getGraph().createToken(baseText, newStart, newEnd);
-								// mark the new token as equivalent
-								equivalenceMap.put(otherTextToken, baseTextToken);
 							} // the new token would be in the interval of the
 								// base text.
 
@@ -1143,4 +1520,34 @@ public class MergerMapper extends PepperMapperImpl implements PepperMapper {
 		SaltUtil.moveAnnotations(otherText, baseText);
 		SaltUtil.moveMetaAnnotations(otherText, baseText);
 	}
+
+	/**
+	 * Returns the token of the base text covering the interval [start, end) of
+	 * the normalized base text, if reusing overlapping tokens is enabled (see
+	 * {@link MergerProperties#PROP_REUSE_OVERLAPPING_TOKENS}) and exactly one
+	 * token of the base text overlaps the interval.
+	 * 
+	 * @param baseText
+	 *            the base {@link STextualDS}
+	 * @param start
+	 *            the start in the normalized base text
+	 * @param end
+	 *            the end in the normalized base text
+	 * @return the covering token or null
+	 */
+	private SToken findCoveringToken(STextualDS baseText, int start, int end) {
+		if ((!((MergerProperties) getProperties()).isReuseOverlappingTokens()) || (start >= end)) {
+			return null;
+		}
+		List<SToken> overlapping = getContainer().getAlignedTokensOverlapping(baseText, start, end);
+		if (overlapping.size() == 1) {
+			SToken baseTextToken = overlapping.get(0);
+			int tokenStart = getContainer().getAlignedTokenStart(baseText, baseTextToken);
+			int tokenEnd = tokenStart + getContainer().getAlignedTokenLength(baseText, baseTextToken);
+			if ((tokenStart <= start) && (tokenEnd >= end)) {
+				return baseTextToken;
+			}
+		}
+		return null;
+	}
 }
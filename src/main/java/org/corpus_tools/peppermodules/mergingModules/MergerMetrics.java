@@ -0,0 +1,295 @@
+/**
+ * Copyright 2015 Humboldt-Universität zu Berlin.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.mergingModules;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters collected while merging, shared by all {@link MergerMapper}
+ * objects of one {@link Merger}. The counters are reported when the
+ * {@link Merger} ends.
+ */
+public class MergerMetrics {
+	/** the number of pairs of texts checked for being alignable **/
+	private final AtomicLong textPairsConsidered = new AtomicLong();
+	/**
+	 * the number of pairs of texts rejected without searching one text in the
+	 * other
+	 **/
+	private final AtomicLong textPairsPruned = new AtomicLong();
+	/**
+	 * the number of pairs of identical texts, whose tokens were mapped
+	 * directly
+	 **/
+	private final AtomicLong identicalTextPairs = new AtomicLong();
+	/** the number of token-only documents merged without traversal **/
+	private final AtomicLong skippedTraversals = new AtomicLong();
+	/** the number of arrived documents, which were not sent to sleep **/
+	private final AtomicLong avoidedSleeps = new AtomicLong();
+	/** the number of kept documents, whose slot was complete in time **/
+	private final AtomicLong residencyHits = new AtomicLong();
+	/** the number of kept documents, which had to be sent to sleep later **/
+	private final AtomicLong residencyMisses = new AtomicLong();
+	/** the number of documents woken up while merging another one **/
+	private final AtomicLong prefetchedDocuments = new AtomicLong();
+	/** the time spent waiting for documents to be woken up, in nanoseconds **/
+	private final AtomicLong wakeWaitNanos = new AtomicLong();
+	/** the time spent merging documents, in nanoseconds **/
+	private final AtomicLong mergeNanos = new AtomicLong();
+	/** the number of heap occupancies observed after garbage collections **/
+	private final AtomicLong heapObservations = new AtomicLong();
+	/** the last observed heap occupancy in percent **/
+	private final AtomicLong lastHeapOccupancy = new AtomicLong();
+	/** the highest observed heap occupancy in percent **/
+	private final AtomicLong maxHeapOccupancy = new AtomicLong();
+	/** the number of times the limit of merged documents was lowered **/
+	private final AtomicLong concurrencyLowered = new AtomicLong();
+	/** the number of times the limit of merged documents was raised **/
+	private final AtomicLong concurrencyRaised = new AtomicLong();
+	/** the limit of merged documents after the last adjustment **/
+	private final AtomicLong concurrencyLimit = new AtomicLong();
+
+	/**
+	 * Adds the numbers of text pairs considered and pruned for one pair of
+	 * documents.
+	 * 
+	 * @param considered
+	 *            the number of pairs of texts checked
+	 * @param pruned
+	 *            the number of pairs rejected without alignment
+	 */
+	public void addTextPairs(long considered, long pruned) {
+		textPairsConsidered.addAndGet(considered);
+		textPairsPruned.addAndGet(pruned);
+	}
+
+	/**
+	 * Counts a pair of identical texts, whose tokens were mapped directly.
+	 */
+	public void addIdenticalTextPair() {
+		identicalTextPairs.incrementAndGet();
+	}
+
+	/**
+	 * Counts a token-only document merged without traversal.
+	 */
+	public void addSkippedTraversal() {
+		skippedTraversals.incrementAndGet();
+	}
+
+	/**
+	 * Counts an arrived document, which was not sent to sleep, since it is
+	 * merged at once.
+	 */
+	public void addAvoidedSleep() {
+		avoidedSleeps.incrementAndGet();
+	}
+
+	/**
+	 * Counts a document kept in memory, whose slot was complete in time.
+	 */
+	public void addResidencyHit() {
+		residencyHits.incrementAndGet();
+	}
+
+	/**
+	 * Counts a document kept in memory, which had to be sent to sleep later.
+	 */
+	public void addResidencyMiss() {
+		residencyMisses.incrementAndGet();
+	}
+
+	/**
+	 * Counts a document woken up while merging another one.
+	 */
+	public void addPrefetchedDocument() {
+		prefetchedDocuments.incrementAndGet();
+	}
+
+	/**
+	 * Adds the time a mapper waited for a document to be woken up and
+	 * normalized.
+	 * 
+	 * @param nanos
+	 *            the time in nanoseconds
+	 */
+	public void addWakeWait(long nanos) {
+		wakeWaitNanos.addAndGet(nanos);
+	}
+
+	/**
+	 * Adds the time a mapper spent merging a document into the base document.
+	 * 
+	 * @param nanos
+	 *            the time in nanoseconds
+	 */
+	public void addMergeTime(long nanos) {
+		mergeNanos.addAndGet(nanos);
+	}
+
+	/**
+	 * Records a heap occupancy observed after a garbage collection.
+	 * 
+	 * @param occupancy
+	 *            the occupancy between 0 and 1
+	 */
+	public void addHeapOccupancy(double occupancy) {
+		long percent = Math.round(occupancy * 100);
+		heapObservations.incrementAndGet();
+		lastHeapOccupancy.set(percent);
+		long max = maxHeapOccupancy.get();
+		while (percent > max && !maxHeapOccupancy.compareAndSet(max, percent)) {
+			max = maxHeapOccupancy.get();
+		}
+	}
+
+	/**
+	 * Records a change of the limit of merged documents.
+	 * 
+	 * @param oldLimit
+	 *            the limit before the change
+	 * @param newLimit
+	 *            the limit after the change
+	 */
+	public void addConcurrencyAdjustment(int oldLimit, int newLimit) {
+		if (newLimit < oldLimit) {
+			concurrencyLowered.incrementAndGet();
+		} else if (newLimit > oldLimit) {
+			concurrencyRaised.incrementAndGet();
+		}
+		concurrencyLimit.set(newLimit);
+	}
+
+	public long getTextPairsConsidered() {
+		return textPairsConsidered.get();
+	}
+
+	public long getTextPairsPruned() {
+		return textPairsPruned.get();
+	}
+
+	public long getIdenticalTextPairs() {
+		return identicalTextPairs.get();
+	}
+
+	public long getSkippedTraversals() {
+		return skippedTraversals.get();
+	}
+
+	public long getAvoidedSleeps() {
+		return avoidedSleeps.get();
+	}
+
+	public long getResidencyHits() {
+		return residencyHits.get();
+	}
+
+	public long getResidencyMisses() {
+		return residencyMisses.get();
+	}
+
+	/**
+	 * @return the part of the kept documents, whose slot was complete in time,
+	 *         or 0 if no document was kept
+	 */
+	public double getResidencyHitRate() {
+		long hits = getResidencyHits();
+		long total = hits + getResidencyMisses();
+		return (total == 0) ? 0 : (double) hits / total;
+	}
+
+	public long getPrefetchedDocuments() {
+		return prefetchedDocuments.get();
+	}
+
+	public long getWakeWaitNanos() {
+		return wakeWaitNanos.get();
+	}
+
+	public long getMergeNanos() {
+		return mergeNanos.get();
+	}
+
+	public long getHeapObservations() {
+		return heapObservations.get();
+	}
+
+	public long getLastHeapOccupancy() {
+		return lastHeapOccupancy.get();
+	}
+
+	public long getMaxHeapOccupancy() {
+		return maxHeapOccupancy.get();
+	}
+
+	public long getConcurrencyLowered() {
+		return concurrencyLowered.get();
+	}
+
+	public long getConcurrencyRaised() {
+		return concurrencyRaised.get();
+	}
+
+	public long getConcurrencyLimit() {
+		return concurrencyLimit.get();
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder str = new StringBuilder();
+		str.append("text pairs considered: ");
+		str.append(getTextPairsConsidered());
+		str.append(", text pairs pruned: ");
+		str.append(getTextPairsPruned());
+		str.append(", identical text pairs: ");
+		str.append(getIdenticalTextPairs());
+		str.append(", skipped traversals: ");
+		str.append(getSkippedTraversals());
+		str.append(", avoided sleeps: ");
+		str.append(getAvoidedSleeps());
+		str.append(", residency hits: ");
+		str.append(getResidencyHits());
+		str.append(", residency misses: ");
+		str.append(getResidencyMisses());
+		str.append(", residency hit rate: ");
+		str.append(Math.round(getResidencyHitRate() * 100));
+		str.append("%");
+		str.append(", prefetched documents: ");
+		str.append(getPrefetchedDocuments());
+		str.append(", waiting for wake: ");
+		str.append(getWakeWaitNanos() / 1000000);
+		str.append(" ms, merging: ");
+		str.append(getMergeNanos() / 1000000);
+		str.append(" ms");
+		if (getHeapObservations() > 0) {
+			str.append(", heap observations: ");
+			str.append(getHeapObservations());
+			str.append(", last heap occupancy: ");
+			str.append(getLastHeapOccupancy());
+			str.append("%, max heap occupancy: ");
+			str.append(getMaxHeapOccupancy());
+			str.append("%, limit lowered: ");
+			str.append(getConcurrencyLowered());
+			str.append(", limit raised: ");
+			str.append(getConcurrencyRaised());
+			str.append(", last limit: ");
+			str.append(getConcurrencyLimit());
+		}
+		return (str.toString());
+	}
+}
@@ -17,13 +17,19 @@
  */
 package org.corpus_tools.peppermodules.mergingModules;
 
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Hashtable;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
 import org.corpus_tools.pepper.modules.PepperModuleProperties;
 import org.corpus_tools.pepper.modules.PepperModuleProperty;
+import org.corpus_tools.pepper.modules.exceptions.PepperModuleException;
 
 @SuppressWarnings("serial")
 public class MergerProperties extends PepperModuleProperties {
@@ -41,6 +47,59 @@ public class MergerProperties extends PepperModuleProperties {
 	 **/
 	public static final String PROP_FIRST_AS_BASE = "firstAsBase";
 
+	/**
+	 * The maximal number of character edits allowed, when a text does not
+	 * match exactly. A value of 0 disables the approximate alignment.
+	 **/
+	public static final String PROP_MAX_ALIGNMENT_ERRORS = "maxAlignmentErrors";
+
+	/**
+	 * If this property is set to 'true', a token of an other text, which is
+	 * covered by a single token of the base text, is merged into that token
+	 * instead of creating a new token.
+	 **/
+	public static final String PROP_REUSE_OVERLAPPING_TOKENS = "reuseOverlappingTokens";
+
+	/**
+	 * If this property is set to 'true', independent parts of the
+	 * document-structure are prepared for merging in parallel.
+	 **/
+	public static final String PROP_PARALLEL_MERGE = "parallelMerge";
+
+	/**
+	 * The maximal number of nodes and relations of all documents, which are
+	 * merged at the same time. A value of 0 limits the number of merged slots
+	 * to the half of the maximal number of documents in main memory instead.
+	 **/
+	public static final String PROP_MAX_RESIDENT_NODES = "maxResidentNodes";
+
+	/**
+	 * The occupancy of the old generation after a garbage collection, at which
+	 * less documents are merged at the same time. A value of 0 disables the
+	 * adaption to the heap occupancy.
+	 **/
+	public static final String PROP_MAX_HEAP_OCCUPANCY = "maxHeapOccupancy";
+
+	/**
+	 * If this property is set to 'true', each document is merged into the
+	 * base document as soon as it arrives, instead of waiting for all
+	 * documents of its slot.
+	 **/
+	public static final String PROP_PROGRESSIVE_MERGE = "progressiveMerge";
+
+	/**
+	 * If this property is set to 'true', the next document is woken up and
+	 * normalized, while the current one is merged.
+	 **/
+	public static final String PROP_PREFETCH_DOCUMENTS = "prefetchDocuments";
+
+	/**
+	 * The maximal time in milliseconds, a document is kept in main memory
+	 * while waiting for the further documents of its slot. A value of 0 sends
+	 * all waiting documents to sleep.
+	 **/
+	public static final String PROP_MAX_RESIDENT_WAIT = "maxResidentWait";
+
 	/** Default punctuation characters **/
 	public static final String PUNCTUATION_DEFAULT = "'.',',',':',';','!','?','(',')','{','}','<','>'";
 
@@ -59,7 +118,7 @@ public class MergerProperties extends PepperModuleProperties {
 
 	public MergerProperties() {
 		this.addProperty(new PepperModuleProperty<String>(PROP_PUNCTUATIONS, String.class,
-				"Determines the punctuation characters used to be ignored for detecting equal textual data. The value is a comma separated list, each entry must be surrounded by a quot: 'PUNCTUATION' (, 'PUNCTUATION')* .",
+				"Determines the punctuation characters used to be ignored for detecting equal textual data. The value is a comma separated list, each entry must be surrounded by a quot: 'PUNCTUATION' (, 'PUNCTUATION')* . An entry can also be a Unicode category like '\\p{P}' for all Unicode punctuation.",
 				PUNCTUATION_DEFAULT));
 		this.addProperty(new PepperModuleProperty<String>(PROP_ESCAPE_MAPPING, String.class,
 				"Determines the mapping used in normalization step, to map special characters like umlauts. This value is a comma separated list of mappings: \"REPLACED_CHARACTER\" : \"REPLACEMENT\" (, \"REPLACED_CHARACTER\" : \"REPLACEMENT\")*",
@@ -80,6 +139,62 @@ public class MergerProperties extends PepperModuleProperties {
 				.withDescription("Throw exception when merging failes on paired documents instead of simply warning.")
 				.withDefaultValue(false)
 				.build());
+		this.addProperty(PepperModuleProperty.create()
+				.withName(PROP_MAX_ALIGNMENT_ERRORS)
+				.withType(Integer.class)
+				.withDescription("The maximal number of character edits (insertions, deletions, substitutions) allowed, when the normalized texts do not match exactly. A value of 0 disables the approximate alignment.")
+				.withDefaultValue(0)
+				.isRequired(false)
+				.build());
+		this.addProperty(PepperModuleProperty.create()
+				.withName(PROP_REUSE_OVERLAPPING_TOKENS)
+				.withType(Boolean.class)
+				.withDescription("If \"true\", a token of an other text having no equivalent in the base text is merged into the base token covering it, if there is exactly one such token. Otherwise a new token is created in the base text.")
+				.withDefaultValue(false)
+				.isRequired(false)
+				.build());
+		this.addProperty(PepperModuleProperty.create()
+				.withName(PROP_PARALLEL_MERGE)
+				.withType(Boolean.class)
+				.withDescription("If \"true\", subtrees of the document-structure sharing no nodes are prepared for merging in parallel. The base document is still changed by a single thread, so that the result is the same for each run. The created nodes are ordered by subtree, so that their identifiers differ from the ones created without this property.")
+				.withDefaultValue(false)
+				.isRequired(false)
+				.build());
+		this.addProperty(PepperModuleProperty.create()
+				.withName(PROP_MAX_RESIDENT_NODES)
+				.withType(Integer.class)
+				.withDescription("The maximal number of nodes and relations of all documents, which are merged at the same time. A slot of documents is only merged, when its documents fit into the remaining budget. In any case at most half as many slots as documents in main memory are merged at the same time. A value of 0 limits the number of slots merged at the same time to the half of the maximal number of documents in main memory instead.")
+				.withDefaultValue(0)
+				.isRequired(false)
+				.build());
+		this.addProperty(PepperModuleProperty.create()
+				.withName(PROP_MAX_HEAP_OCCUPANCY)
+				.withType(Double.class)
+				.withDescription("The occupancy of the old generation of the heap after a garbage collection as a value between 0 and 1, at which less documents are merged at the same time. When the occupancy falls clearly below this value, more documents are merged again. A value of 0 disables the adaption to the heap occupancy.")
+				.withDefaultValue(0.0)
+				.isRequired(false)
+				.build());
+		this.addProperty(PepperModuleProperty.create()
+				.withName(PROP_PROGRESSIVE_MERGE)
+				.withType(Boolean.class)
+				.withDescription("If \"true\", each document is merged into the base document as soon as both have arrived, instead of waiting for all documents to be merged with each other. Merged documents are removed at once, so that less documents need to be held in main memory.")
+				.withDefaultValue(false)
+				.isRequired(false)
+				.build());
+		this.addProperty(PepperModuleProperty.create()
+				.withName(PROP_PREFETCH_DOCUMENTS)
+				.withType(Boolean.class)
+				.withDescription("If \"true\", the next document to be merged into the base document is woken up and normalized in the background, while the current one is merged. This is only done, if the memory limit allows holding another document in main memory.")
+				.withDefaultValue(false)
+				.isRequired(false)
+				.build());
+		this.addProperty(PepperModuleProperty.create()
+				.withName(PROP_MAX_RESIDENT_WAIT)
+				.withType(Integer.class)
+				.withDescription("The maximal time in milliseconds, a document is kept in main memory while waiting for the further documents to be merged with. A document is only kept, if the further documents are expected to arrive within this time, otherwise it is sent to sleep. A value of 0 sends all waiting documents to sleep.")
+				.withDefaultValue(0)
+				.isRequired(false)
+				.build());
 	}
 
 	/**
@@ -87,9 +202,16 @@ public class MergerProperties extends PepperModuleProperties {
 	 **/
 	private Set<Character> punctuations = null;
 
+	/**
+	 * Matches a Unicode category shorthand like \p{P} in the value of
+	 * {@link #PROP_PUNCTUATIONS}.
+	 **/
+	private static final Pattern CATEGORY_PATTERN = Pattern.compile("\\\\[pP]\\{[A-Za-z_=]+\\}");
+
 	/**
 	 * Returns all punctuation characters specified by the user. If the user didn't
-	 * specify any punctuations, the defaults are used
+	 * specify any punctuations, the defaults are used. Unicode category shorthands
+	 * are not contained, see {@link #getOmitChars()}.
 	 * 
 	 * @return
 	 */
@@ -99,6 +221,7 @@ public class MergerProperties extends PepperModuleProperties {
 
 			String puncString = prop.getValue();
 			if ((puncString != null) && (!puncString.isEmpty())) {
+				puncString = CATEGORY_PATTERN.matcher(puncString).replaceAll("");
 				punctuations = new HashSet<Character>();
 				boolean quoteStarted = false;
 				for (char ch : puncString.toCharArray()) {
@@ -112,11 +235,62 @@ public class MergerProperties extends PepperModuleProperties {
 					}
 
 				}
+				punctuationChars = OmitChars.of(punctuations);
 			}
 		}
 		return (punctuations);
 	}
 
+	/** the compiled form of {@link #getPunctuations()} **/
+	private OmitChars punctuationChars = null;
+
+	/**
+	 * Returns the given characters as {@link OmitChars}. The set returned by
+	 * {@link #getPunctuations()} is compiled only once, when the property is
+	 * parsed.
+	 * 
+	 * @param chars
+	 *            the characters to be omitted, might be null
+	 * @return the compiled set
+	 */
+	public synchronized OmitChars getOmitChars(Set<Character> chars) {
+		if ((chars != null) && (chars == getPunctuations())) {
+			return (punctuationChars);
+		}
+		return (OmitChars.of(chars));
+	}
+
+	/** the compiled form of {@link #PROP_PUNCTUATIONS} **/
+	private OmitChars omitChars = null;
+
+	/**
+	 * Returns the punctuations as {@link OmitChars}, which are ignored when
+	 * searching texts. Besides the characters returned by
+	 * {@link #getPunctuations()}, the set contains all characters of the Unicode
+	 * categories given as shorthand in {@link #PROP_PUNCTUATIONS}, for instance
+	 * '\p{P}' for all Unicode punctuation.
+	 * 
+	 * @return
+	 */
+	public synchronized OmitChars getOmitChars() {
+		if (omitChars == null) {
+			List<String> categories = new ArrayList<>();
+			PepperModuleProperty<String> prop = (PepperModuleProperty<String>) getProperty(PROP_PUNCTUATIONS);
+			if (prop.getValue() != null) {
+				Matcher matcher = CATEGORY_PATTERN.matcher(prop.getValue());
+				while (matcher.find()) {
+					categories.add(matcher.group());
+				}
+			}
+			try {
+				omitChars = OmitChars.of(getPunctuations(), categories);
+			} catch (PatternSyntaxException e) {
+				throw new PepperModuleException("Cannot compile the value of property '" + PROP_PUNCTUATIONS + "': " + e.getMessage(), e);
+			}
+		}
+		return (omitChars);
+	}
+
 	/**
 	 * a map of characters to be escaped and the corresponding replacement String.
 	 **/
@@ -154,6 +328,23 @@ public class MergerProperties extends PepperModuleProperties {
 		return (escapeMapping);
 	}
 
+	/** the compiled form of {@link #getEscapeMapping()} **/
+	private TextNormalizer textNormalizer = null;
+
+	/**
+	 * Returns a {@link TextNormalizer} compiled from the escape mapping (see
+	 * {@link #getEscapeMapping()}). The normalizer is created once and shared
+	 * by all mappers using these properties.
+	 * 
+	 * @return
+	 */
+	public synchronized TextNormalizer getTextNormalizer() {
+		if (textNormalizer == null) {
+			textNormalizer = new TextNormalizer(getEscapeMapping());
+		}
+		return (textNormalizer);
+	}
+
 	/**
 	 * If this property is set to 'true', the base document is always the one, which
 	 * belongs to the first SCorpusGraph (the first importer in Pepper workflow
@@ -183,6 +374,111 @@ public class MergerProperties extends PepperModuleProperties {
 		return (Boolean.valueOf(prop.getValue()));
 	}
 	
+	/**
+	 * The maximal number of character edits allowed, when a text does not
+	 * match exactly. A value of 0 disables the approximate alignment.
+	 * 
+	 * @return
+	 */
+	public int getMaxAlignmentErrors() {
+		PepperModuleProperty<Integer> prop = (PepperModuleProperty<Integer>) getProperty(PROP_MAX_ALIGNMENT_ERRORS);
+		if ((prop == null) || (prop.getValue() == null) || (prop.getValue() < 0)) {
+			return 0;
+		}
+		return prop.getValue();
+	}
+
+	/**
+	 * If this property is set to 'true', a token of an other text, which is
+	 * covered by a single token of the base text, is merged into that token
+	 * instead of creating a new token.
+	 * 
+	 * @return
+	 */
+	public Boolean isReuseOverlappingTokens() {
+		PepperModuleProperty<Boolean> prop = (PepperModuleProperty<Boolean>) getProperty(PROP_REUSE_OVERLAPPING_TOKENS);
+		return (Boolean.valueOf(prop.getValue()));
+	}
+
+	/**
+	 * If this property is set to 'true', independent parts of the
+	 * document-structure are prepared for merging in parallel.
+	 * 
+	 * @return
+	 */
+	public Boolean isParallelMerge() {
+		PepperModuleProperty<Boolean> prop = (PepperModuleProperty<Boolean>) getProperty(PROP_PARALLEL_MERGE);
+		return (Boolean.valueOf(prop.getValue()));
+	}
+
+	/**
+	 * The maximal number of nodes and relations of all documents, which are
+	 * merged at the same time. A value of 0 limits the number of merged slots
+	 * to the half of the maximal number of documents in main memory instead.
+	 * 
+	 * @return
+	 */
+	public int getMaxResidentNodes() {
+		PepperModuleProperty<Integer> prop = (PepperModuleProperty<Integer>) getProperty(PROP_MAX_RESIDENT_NODES);
+		if ((prop == null) || (prop.getValue() == null) || (prop.getValue() < 0)) {
+			return 0;
+		}
+		return prop.getValue();
+	}
+
+	/**
+	 * The occupancy of the old generation after a garbage collection, at which
+	 * less documents are merged at the same time. A value of 0 disables the
+	 * adaption to the heap occupancy.
+	 * 
+	 * @return
+	 */
+	public double getMaxHeapOccupancy() {
+		PepperModuleProperty<Double> prop = (PepperModuleProperty<Double>) getProperty(PROP_MAX_HEAP_OCCUPANCY);
+		if ((prop == null) || (prop.getValue() == null) || (prop.getValue() <= 0) || (prop.getValue() > 1)) {
+			return 0;
+		}
+		return prop.getValue();
+	}
+
+	/**
+	 * If this property is set to 'true', each document is merged into the
+	 * base document as soon as it arrives, instead of waiting for all
+	 * documents of its slot.
+	 * 
+	 * @return
+	 */
+	public Boolean isProgressiveMerge() {
+		PepperModuleProperty<Boolean> prop = (PepperModuleProperty<Boolean>) getProperty(PROP_PROGRESSIVE_MERGE);
+		return (Boolean.valueOf(prop.getValue()));
+	}
+
+	/**
+	 * If this property is set to 'true', the next document is woken up and
+	 * normalized, while the current one is merged.
+	 * 
+	 * @return
+	 */
+	public Boolean isPrefetchDocuments() {
+		PepperModuleProperty<Boolean> prop = (PepperModuleProperty<Boolean>) getProperty(PROP_PREFETCH_DOCUMENTS);
+		return (Boolean.valueOf(prop.getValue()));
+	}
+
+	/**
+	 * The maximal time in milliseconds, a document is kept in main memory
+	 * while waiting for the further documents of its slot. A value of 0 sends
+	 * all waiting documents to sleep.
+	 * 
+	 * @return
+	 */
+	public int getMaxResidentWait() {
+		PepperModuleProperty<Integer> prop = (PepperModuleProperty<Integer>) getProperty(PROP_MAX_RESIDENT_WAIT);
+		if ((prop == null) || (prop.getValue() == null) || (prop.getValue() < 0)) {
+			return 0;
+		}
+		return prop.getValue();
+	}
+
 	public Boolean throwException() {
 		PepperModuleProperty<Boolean> prop = (PepperModuleProperty<Boolean>) getProperty(PROP_THROW_EXCEPTION);
 		return (Boolean.valueOf(prop.getValue()));
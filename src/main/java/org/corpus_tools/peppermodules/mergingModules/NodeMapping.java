@@ -0,0 +1,90 @@
+/**
+ * Copyright 2015 Humboldt-Universität zu Berlin.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.mergingModules;
+
+import java.util.Collection;
+import java.util.Map;
+
+import org.corpus_tools.salt.core.SNode;
+
+/**
+ * Maps nodes of one graph to their equivalent nodes of another graph, for
+ * instance the nodes of an other document to the nodes of the base document.
+ * See {@link IdentityNodeMapping} for the default implementation.
+ */
+public interface NodeMapping {
+	/**
+	 * @param node
+	 *            the node to look up
+	 * @return the node mapped to the given node or null, if there is none
+	 */
+	SNode get(SNode node);
+
+	/**
+	 * Maps the given node to the given equivalent, replacing a previous
+	 * mapping.
+	 * 
+	 * @param node
+	 *            the node to be mapped
+	 * @param equivalent
+	 *            the node it is mapped to
+	 */
+	void put(SNode node, SNode equivalent);
+
+	/**
+	 * @return the number of mapped nodes
+	 */
+	int size();
+
+	/**
+	 * @return all mapped nodes
+	 */
+	Collection<SNode> keys();
+
+	/**
+	 * A {@link NodeMapping} backed by a {@link Map}, changes of the mapping
+	 * are written through to the map.
+	 */
+	public static class MapAdapter implements NodeMapping {
+		private final Map<SNode, SNode> map;
+
+		public MapAdapter(Map<SNode, SNode> map) {
+			this.map = map;
+		}
+
+		@Override
+		public SNode get(SNode node) {
+			return map.get(node);
+		}
+
+		@Override
+		public void put(SNode node, SNode equivalent) {
+			map.put(node, equivalent);
+		}
+
+		@Override
+		public int size() {
+			return map.size();
+		}
+
+		@Override
+		public Collection<SNode> keys() {
+			return map.keySet();
+		}
+	}
+}
@@ -0,0 +1,276 @@
+/**
+ * Copyright 2015 Humboldt-Universität zu Berlin.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.mergingModules;
+
+import java.util.Arrays;
+
+/**
+ * A search index over a normalized text, used to locate other normalized texts
+ * in a base text. Like
+ * {@link MergerMapper#indexOfOmitChars(String, String, boolean, OmitChars)}, the
+ * search is case insensitive and ignores all omitted characters (the
+ * punctuations). <br/>
+ * The index is a suffix array together with its LCP array over the lowercased
+ * text without omitted characters. It is built once per base text, afterwards
+ * a text of length m is located in O(m log n) and all of its occurrences are
+ * reported.
+ */
+public class NormalizedTextIndex {
+	/** the lowercased text without omitted characters **/
+	private final char[] text;
+	/**
+	 * maps a position in {@link #text} to the position in the normalized text
+	 **/
+	private final int[] strippedToNormalized;
+	/** the characters to be ignored **/
+	private final OmitChars omitChars;
+	/** the suffix array: the start positions of all suffixes in sorted order **/
+	private final int[] suffixes;
+	/**
+	 * lcp[i] is the length of the longest common prefix of the suffixes at
+	 * suffixes[i-1] and suffixes[i], lcp[0] is 0
+	 **/
+	private final int[] lcp;
+
+	/**
+	 * Creates the index for the given normalized text.
+	 *
+	 * @param normalizedText
+	 *            the normalized text to be indexed
+	 * @param omitChars
+	 *            characters to be ignored, might be null
+	 */
+	public NormalizedTextIndex(String normalizedText, OmitChars omitChars) {
+		this.omitChars = omitChars;
+		char[] chr = normalizedText.toCharArray();
+		char[] stripped = new char[chr.length];
+		int[] positions = new int[chr.length];
+		int n = 0;
+		for (int i = 0; i < chr.length; i++) {
+			if (!isOmitted(chr[i])) {
+				stripped[n] = Character.toLowerCase(chr[i]);
+				positions[n++] = i;
+			}
+		}
+		this.text = Arrays.copyOf(stripped, n);
+		this.strippedToNormalized = Arrays.copyOf(positions, n);
+		this.suffixes = createSuffixArray(text);
+		this.lcp = createLcpArray(text, suffixes);
+	}
+
+	private boolean isOmitted(char c) {
+		return (omitChars != null) && omitChars.isOmitted(c);
+	}
+
+	/**
+	 * Returns the position of the first occurrence of the given normalized text
+	 * in the indexed normalized text.
+	 *
+	 * @param normalizedText
+	 *            the text to search for
+	 * @return the position in the indexed normalized text or -1 if there is
+	 *         none
+	 */
+	public int indexOf(String normalizedText) {
+		int[] occurrences = findAll(normalizedText);
+		return (occurrences.length == 0) ? -1 : occurrences[0];
+	}
+
+	/**
+	 * Returns the positions of all occurrences of the given normalized text in
+	 * the indexed normalized text.
+	 *
+	 * @param normalizedText
+	 *            the text to search for
+	 * @return the positions in the indexed normalized text in ascending order,
+	 *         an empty array if there are none
+	 */
+	public int[] findAll(String normalizedText) {
+		char[] pattern = strip(normalizedText);
+		int n = text.length;
+		int m = pattern.length;
+		if (m == 0) {
+			// the empty text is found at the beginning
+			return new int[] { (n == 0) ? 0 : strippedToNormalized[0] };
+		}
+		// search the first suffix having the pattern as prefix, the number of
+		// characters both boundaries share with the pattern need not to be
+		// compared again
+		int lo = 0;
+		int hi = n;
+		int matchLo = 0;
+		int matchHi = 0;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			int pos = suffixes[mid];
+			int k = Math.min(matchLo, matchHi);
+			while ((k < m) && (pos + k < n) && (text[pos + k] == pattern[k])) {
+				k++;
+			}
+			if ((k == m) || ((pos + k < n) && (text[pos + k] > pattern[k]))) {
+				hi = mid;
+				matchHi = k;
+			} else {
+				lo = mid + 1;
+				matchLo = k;
+			}
+		}
+		if ((lo == n) || (!startsWith(suffixes[lo], pattern))) {
+			return new int[0];
+		}
+		// all further occurrences follow directly in the suffix array
+		int last = lo + 1;
+		while ((last < n) && (lcp[last] >= m)) {
+			last++;
+		}
+		int[] occurrences = new int[last - lo];
+		for (int i = lo; i < last; i++) {
+			occurrences[i - lo] = strippedToNormalized[suffixes[i]];
+		}
+		Arrays.sort(occurrences);
+		return occurrences;
+	}
+
+	private boolean startsWith(int pos, char[] pattern) {
+		if (pos + pattern.length > text.length) {
+			return false;
+		}
+		for (int k = 0; k < pattern.length; k++) {
+			if (text[pos + k] != pattern[k]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Lowercases the given text and removes all omitted characters.
+	 */
+	private char[] strip(String normalizedText) {
+		char[] chr = normalizedText.toCharArray();
+		int n = 0;
+		for (char c : chr) {
+			if (!isOmitted(c)) {
+				chr[n++] = Character.toLowerCase(c);
+			}
+		}
+		return Arrays.copyOf(chr, n);
+	}
+
+	/**
+	 * Creates the suffix array by prefix doubling, each round sorts the
+	 * suffixes by their first 2k characters with a counting sort.
+	 */
+	private static int[] createSuffixArray(char[] text) {
+		int n = text.length;
+		int[] sa = new int[n];
+		if (n == 0) {
+			return sa;
+		}
+		int[] rank = new int[n];
+		int[] tmp = new int[n];
+		int[] count = new int[Math.max(Character.MAX_VALUE + 1, n) + 1];
+		// initial order by the first character
+		for (int i = 0; i < n; i++) {
+			count[text[i]]++;
+		}
+		for (int i = 1; i <= Character.MAX_VALUE; i++) {
+			count[i] += count[i - 1];
+		}
+		for (int i = n - 1; i >= 0; i--) {
+			sa[--count[text[i]]] = i;
+		}
+		int classes = 1;
+		rank[sa[0]] = 0;
+		for (int i = 1; i < n; i++) {
+			if (text[sa[i]] != text[sa[i - 1]]) {
+				classes++;
+			}
+			rank[sa[i]] = classes - 1;
+		}
+		for (int k = 1; classes < n; k <<= 1) {
+			// order by the second half: suffixes without a second half come
+			// first, the others follow the order of the previous round
+			int p = 0;
+			for (int i = n - k; i < n; i++) {
+				tmp[p++] = i;
+			}
+			for (int i = 0; i < n; i++) {
+				if (sa[i] >= k) {
+					tmp[p++] = sa[i] - k;
+				}
+			}
+			// stable counting sort by the first half
+			Arrays.fill(count, 0, classes, 0);
+			for (int i = 0; i < n; i++) {
+				count[rank[i]]++;
+			}
+			for (int i = 1; i < classes; i++) {
+				count[i] += count[i - 1];
+			}
+			for (int i = n - 1; i >= 0; i--) {
+				sa[--count[rank[tmp[i]]]] = tmp[i];
+			}
+			// compute the new equivalence classes
+			tmp[sa[0]] = 0;
+			classes = 1;
+			for (int i = 1; i < n; i++) {
+				int a = sa[i - 1];
+				int b = sa[i];
+				int secondA = (a + k < n) ? rank[a + k] : -1;
+				int secondB = (b + k < n) ? rank[b + k] : -1;
+				if ((rank[a] != rank[b]) || (secondA != secondB)) {
+					classes++;
+				}
+				tmp[b] = classes - 1;
+			}
+			int[] swap = rank;
+			rank = tmp;
+			tmp = swap;
+		}
+		return sa;
+	}
+
+	/**
+	 * Creates the LCP array in linear time (Kasai et al.).
+	 */
+	private static int[] createLcpArray(char[] text, int[] sa) {
+		int n = text.length;
+		int[] lcp = new int[n];
+		int[] inverse = new int[n];
+		for (int i = 0; i < n; i++) {
+			inverse[sa[i]] = i;
+		}
+		int h = 0;
+		for (int i = 0; i < n; i++) {
+			if (inverse[i] > 0) {
+				int j = sa[inverse[i] - 1];
+				while ((i + h < n) && (j + h < n) && (text[i + h] == text[j + h])) {
+					h++;
+				}
+				lcp[inverse[i]] = h;
+				if (h > 0) {
+					h--;
+				}
+			} else {
+				h = 0;
+			}
+		}
+		return lcp;
+	}
+}
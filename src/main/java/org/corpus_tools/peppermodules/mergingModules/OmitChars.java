@@ -0,0 +1,105 @@
+/**
+ * Copyright 2015 Humboldt-Universität zu Berlin.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.mergingModules;
+
+import java.util.Collection;
+import java.util.regex.Pattern;
+
+/**
+ * An immutable set of characters to be ignored when comparing texts (the
+ * punctuations, see {@link MergerProperties#PROP_PUNCTUATIONS}). The set is
+ * stored as a bitmap indexed by the character, so {@link #isOmitted(char)}
+ * neither boxes the character nor computes a hash. <br/>
+ * Besides single characters, the set can contain all characters of a Unicode
+ * category given as a regular expression shorthand like <code>\p{P}</code>
+ * (all Unicode punctuation). The bitmap is computed once for all characters
+ * of the category.
+ */
+public class OmitChars {
+	/** an empty set **/
+	public static final OmitChars NONE = new OmitChars(new long[(Character.MAX_VALUE + 1) >>> 6]);
+
+	/** bit c is set, if character c is omitted **/
+	private final long[] bits;
+
+	private OmitChars(long[] bits) {
+		this.bits = bits;
+	}
+
+	/**
+	 * Creates the set of the given characters.
+	 * 
+	 * @param chars
+	 *            the characters to be omitted, might be null
+	 * @return the set
+	 */
+	public static OmitChars of(Collection<Character> chars) {
+		return of(chars, null);
+	}
+
+	/**
+	 * Creates the set of the given characters and all characters matching
+	 * one of the given categories.
+	 * 
+	 * @param chars
+	 *            the characters to be omitted, might be null
+	 * @param categories
+	 *            regular expression shorthands like <code>\p{P}</code>, might
+	 *            be null
+	 * @return the set
+	 */
+	public static OmitChars of(Collection<Character> chars, Collection<String> categories) {
+		long[] bits = new long[(Character.MAX_VALUE + 1) >>> 6];
+		if (chars != null) {
+			for (char c : chars) {
+				bits[c >>> 6] |= 1L << c;
+			}
+		}
+		if (categories != null) {
+			for (String category : categories) {
+				Pattern pattern = Pattern.compile(category);
+				for (int c = 0; c <= Character.MAX_VALUE; c++) {
+					if (pattern.matcher(String.valueOf((char) c)).matches()) {
+						bits[c >>> 6] |= 1L << c;
+					}
+				}
+			}
+		}
+		return new OmitChars(bits);
+	}
+
+	/**
+	 * @param c
+	 *            a character
+	 * @return true if the character is to be ignored
+	 */
+	public boolean isOmitted(char c) {
+		return (bits[c >>> 6] & (1L << c)) != 0L;
+	}
+
+	/**
+	 * @return the number of omitted characters
+	 */
+	public int size() {
+		int size = 0;
+		for (long word : bits) {
+			size += Long.bitCount(word);
+		}
+		return size;
+	}
+}
@@ -0,0 +1,150 @@
+/**
+ * Copyright 2015 Humboldt-Universität zu Berlin.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.mergingModules;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.corpus_tools.pepper.modules.MappingSubject;
+import org.corpus_tools.salt.graph.Identifier;
+
+/**
+ * A slot of mergeable documents, which is merged while its documents arrive.
+ * The {@link Merger} offers each arriving partner to the slot and a single
+ * {@link MergerMapper} takes the partners one after another to merge them into
+ * the base document.
+ */
+public class ProgressiveSlot {
+	/**
+	 * offered after the last partner, when the slot is closed, see
+	 * {@link #close()}
+	 **/
+	private static final MappingSubject END = new MappingSubject();
+	/** the partners offered, but not yet taken by the mapper **/
+	private final BlockingQueue<MappingSubject> partners = new LinkedBlockingQueue<>();
+	/**
+	 * the identifier of the base document, if the base document belongs to
+	 * the slot
+	 **/
+	private volatile Identifier baseId = null;
+	/** the number of partners to be merged into the base document **/
+	private final int expectedPartners;
+	/** the number of partners already taken by the mapper **/
+	private int takenPartners = 0;
+	/** true while the mapper waits for the next partner **/
+	private volatile boolean waiting = false;
+	/** true when the mapper for the slot has been started **/
+	private volatile boolean started = false;
+	/** true when no further partners will be offered **/
+	private volatile boolean closed = false;
+
+	/**
+	 * @param expectedPartners
+	 *            the number of partners to be merged into the base document
+	 */
+	public ProgressiveSlot(int expectedPartners) {
+		this.expectedPartners = expectedPartners;
+	}
+
+	/**
+	 * @return the identifier of the base document or null, if the base
+	 *         document does not belong to the slot
+	 */
+	public Identifier getBaseId() {
+		return baseId;
+	}
+
+	/**
+	 * @param baseId
+	 *            the identifier of the base document, if it belongs to the
+	 *            slot
+	 */
+	public void setBaseId(Identifier baseId) {
+		this.baseId = baseId;
+	}
+
+	/**
+	 * @return the number of partners to be merged into the base document
+	 */
+	public int getExpectedPartners() {
+		return expectedPartners;
+	}
+
+	/**
+	 * Offers an arrived partner to the mapper.
+	 */
+	public void offer(MappingSubject partner) {
+		partners.add(partner);
+	}
+
+	/**
+	 * Closes the slot, since no further partners will arrive. The mapper
+	 * takes the partners offered before and does not wait for the missing
+	 * ones.
+	 */
+	public void close() {
+		if (!closed) {
+			closed = true;
+			partners.add(END);
+		}
+	}
+
+	/**
+	 * Waits for the next partner.
+	 * 
+	 * @return the next partner or null, if all partners have been taken or
+	 *         the slot was closed
+	 */
+	public MappingSubject take() throws InterruptedException {
+		if (takenPartners >= expectedPartners) {
+			return null;
+		}
+		MappingSubject partner = partners.poll();
+		if (partner == null) {
+			waiting = true;
+			try {
+				partner = partners.take();
+			} finally {
+				waiting = false;
+			}
+		}
+		if (partner == END) {
+			// keep the end for further calls
+			partners.add(END);
+			return null;
+		}
+		takenPartners++;
+		return partner;
+	}
+
+	/**
+	 * @return true if the mapper waits for the next partner, so that an
+	 *         arriving partner is merged at once
+	 */
+	public boolean isWaiting() {
+		return waiting;
+	}
+
+	public boolean isStarted() {
+		return started;
+	}
+
+	public void setStarted(boolean started) {
+		this.started = started;
+	}
+}
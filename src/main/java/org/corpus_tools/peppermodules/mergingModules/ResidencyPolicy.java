@@ -0,0 +1,244 @@
+/**
+ * Copyright 2015 Humboldt-Universität zu Berlin.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.mergingModules;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.corpus_tools.pepper.modules.DocumentController;
+
+/**
+ * Decides, which arrived documents are kept in main memory instead of being
+ * sent to sleep until their slot is complete. A document is kept, if its slot
+ * is expected to be complete within a given time. The expected time is the
+ * number of documents still missing in the slot multiplied with the average
+ * time between two arrivals of documents of the same slot. Kept documents
+ * whose slot is not complete in time are evicted, which means they are sent
+ * to sleep later.
+ * <br/>
+ * The policy is only used by the thread of the {@link Merger} receiving the
+ * documents, so it is not synchronized.
+ */
+public class ResidencyPolicy {
+	/** the weight of a new gap in the average gap between arrivals **/
+	private static final double SMOOTHING = 0.2;
+
+	/** a document kept in main memory **/
+	public static class Resident {
+		private final DocumentController documentController;
+		private final int permits;
+		private final long since;
+
+		private Resident(DocumentController documentController, int permits, long since) {
+			this.documentController = documentController;
+			this.permits = permits;
+			this.since = since;
+		}
+
+		/**
+		 * @return the controller of the kept document
+		 */
+		public DocumentController getDocumentController() {
+			return documentController;
+		}
+
+		/**
+		 * @return the number of permits acquired for holding the document in
+		 *         main memory
+		 */
+		public int getPermits() {
+			return permits;
+		}
+	}
+
+	/** the maximal expected time to wait for a slot, in milliseconds **/
+	private final long maxWaitMillis;
+	/** the maximal number of documents kept at the same time **/
+	private final int maxResidents;
+	/**
+	 * the average time between two arrivals of documents of the same slot, or
+	 * -1 if unknown
+	 **/
+	private double averageGapMillis = -1;
+	/** the time of the last arrival for each slot, which is not complete **/
+	private final Map<String, Long> lastArrivals = new HashMap<>();
+	/** the kept documents for each slot **/
+	private final Map<String, List<Resident>> residents = new LinkedHashMap<>();
+	/** the number of kept documents **/
+	private int numberOfResidents = 0;
+
+	/**
+	 * @param maxWaitMillis
+	 *            the maximal expected time to wait for a slot, in
+	 *            milliseconds, 0 means that no document is kept
+	 * @param maxResidents
+	 *            the maximal number of documents kept at the same time
+	 */
+	public ResidencyPolicy(long maxWaitMillis, int maxResidents) {
+		this.maxWaitMillis = maxWaitMillis;
+		this.maxResidents = maxResidents;
+	}
+
+	/**
+	 * Records the arrival of a document to update the arrival statistics.
+	 * 
+	 * @param slotId
+	 *            the slot of the document
+	 * @param now
+	 *            the time of arrival in milliseconds
+	 */
+	public void arrived(String slotId, long now) {
+		Long lastArrival = lastArrivals.put(slotId, now);
+		if (lastArrival != null) {
+			long gap = now - lastArrival;
+			if (averageGapMillis < 0) {
+				averageGapMillis = gap;
+			} else {
+				averageGapMillis = (SMOOTHING * gap) + ((1 - SMOOTHING) * averageGapMillis);
+			}
+		}
+	}
+
+	/**
+	 * @param missing
+	 *            the number of documents still missing in the slot
+	 * @return the expected time until the slot is complete in milliseconds or
+	 *         -1, if no arrival statistics are available yet
+	 */
+	public long getExpectedWait(int missing) {
+		if (averageGapMillis < 0) {
+			return -1;
+		}
+		return Math.round(missing * averageGapMillis);
+	}
+
+	/**
+	 * Decides whether an arrived document should be kept in main memory. As
+	 * long as no arrival statistics are available, only a document waiting
+	 * for a single further document is kept.
+	 * 
+	 * @param missing
+	 *            the number of documents still missing in the slot
+	 * @return true if the document should be kept
+	 */
+	public boolean shouldKeep(int missing) {
+		if ((maxWaitMillis <= 0) || (numberOfResidents >= maxResidents)) {
+			return false;
+		}
+		long expectedWait = getExpectedWait(missing);
+		if (expectedWait < 0) {
+			return missing <= 1;
+		}
+		return expectedWait <= maxWaitMillis;
+	}
+
+	/**
+	 * Keeps a document in main memory.
+	 * 
+	 * @param slotId
+	 *            the slot of the document
+	 * @param documentController
+	 *            the controller of the document
+	 * @param permits
+	 *            the number of permits acquired for the document
+	 * @param now
+	 *            the current time in milliseconds
+	 */
+	public void keep(String slotId, DocumentController documentController, int permits, long now) {
+		List<Resident> slotResidents = residents.get(slotId);
+		if (slotResidents == null) {
+			slotResidents = new ArrayList<>();
+			residents.put(slotId, slotResidents);
+		}
+		slotResidents.add(new Resident(documentController, permits, now));
+		numberOfResidents++;
+	}
+
+	/**
+	 * Removes the kept documents of a completed slot.
+	 * 
+	 * @param slotId
+	 *            the completed slot
+	 * @return the documents kept for the slot
+	 */
+	public List<Resident> complete(String slotId) {
+		lastArrivals.remove(slotId);
+		List<Resident> slotResidents = residents.remove(slotId);
+		if (slotResidents == null) {
+			return Collections.emptyList();
+		}
+		numberOfResidents -= slotResidents.size();
+		return slotResidents;
+	}
+
+	/**
+	 * Removes all kept documents, which have been waiting longer than the
+	 * maximal time.
+	 * 
+	 * @param now
+	 *            the current time in milliseconds
+	 * @return the documents to be sent to sleep
+	 */
+	public List<Resident> evictExpired(long now) {
+		List<Resident> evicted = new ArrayList<>();
+		Iterator<List<Resident>> it = residents.values().iterator();
+		while (it.hasNext()) {
+			List<Resident> slotResidents = it.next();
+			Iterator<Resident> residentIt = slotResidents.iterator();
+			while (residentIt.hasNext()) {
+				Resident resident = residentIt.next();
+				if (now - resident.since > maxWaitMillis) {
+					evicted.add(resident);
+					residentIt.remove();
+				}
+			}
+			if (slotResidents.isEmpty()) {
+				it.remove();
+			}
+		}
+		numberOfResidents -= evicted.size();
+		return evicted;
+	}
+
+	/**
+	 * Removes all kept documents.
+	 * 
+	 * @return the documents to be sent to sleep
+	 */
+	public List<Resident> evictAll() {
+		List<Resident> evicted = new ArrayList<>();
+		for (List<Resident> slotResidents : residents.values()) {
+			evicted.addAll(slotResidents);
+		}
+		residents.clear();
+		numberOfResidents = 0;
+		return evicted;
+	}
+
+	/**
+	 * @return the number of kept documents
+	 */
+	public int getNumberOfResidents() {
+		return numberOfResidents;
+	}
+}
@@ -0,0 +1,207 @@
+/**
+ * Copyright 2015 Humboldt-Universität zu Berlin.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.mergingModules;
+
+/**
+ * A compact summary of a normalized text, used to reject pairs of texts which
+ * cannot be aligned before searching one text in the other. Like the
+ * alignment itself, the fingerprint ignores case and all omitted characters
+ * (the punctuations). <br/>
+ * The fingerprint consists of
+ * <ul>
+ * <li>the length of the text without omitted characters,</li>
+ * <li>a 64 bit mask of the characters occurring in the text,</li>
+ * <li>a bloom filter containing the Rabin-Karp hashes of all substrings of
+ * length {@link #GRAM_LENGTH} (k-grams) and</li>
+ * <li>the hashes of a sample of non overlapping k-grams.</li>
+ * </ul>
+ * A text can only be contained in another text, if it is not longer, all of
+ * its characters occur in the other text and all of its k-grams are contained
+ * in the bloom filter of the other text. Since a bloom filter has no false
+ * negatives, a contained text is never rejected. <br/>
+ * When a number of edits is allowed, each edit can remove at most one
+ * character and break at most one of the non overlapping k-grams, so the
+ * same number of misses is tolerated.
+ */
+public class TextFingerprint {
+	/** the length of the k-grams **/
+	public static final int GRAM_LENGTH = 4;
+	/** the maximal number of sampled k-grams **/
+	private static final int MAX_SAMPLES = 64;
+	/** the maximal size of the bloom filter in bits **/
+	private static final int MAX_FILTER_BITS = 1 << 22;
+	private static final long HASH_BASE = 0x100000001b3L;
+
+	/** the length of the lowercased text without omitted characters **/
+	private final int length;
+	/** bit (c mod 64) is set for every character c of the text **/
+	private final long characters;
+	/** the bloom filter over the hashes of all k-grams **/
+	private final long[] filter;
+	/** the hashes of sampled non overlapping k-grams **/
+	private final long[] samples;
+
+	/**
+	 * Creates the fingerprint of the given normalized text.
+	 *
+	 * @param normalizedText
+	 *            the normalized text
+	 * @param omitChars
+	 *            characters to be ignored, might be null
+	 */
+	public TextFingerprint(String normalizedText, OmitChars omitChars) {
+		char[] text = new char[normalizedText.length()];
+		int length = 0;
+		long characters = 0L;
+		for (int i = 0; i < normalizedText.length(); i++) {
+			char c = normalizedText.charAt(i);
+			if ((omitChars == null) || (!omitChars.isOmitted(c))) {
+				c = Character.toLowerCase(c);
+				characters |= 1L << (c & 63);
+				text[length++] = c;
+			}
+		}
+		this.length = length;
+		this.characters = characters;
+
+		int grams = Math.max(0, length - GRAM_LENGTH + 1);
+		long[] hashes = hashGrams(text, length);
+		// about 8 bits per k-gram, rounded to a power of two
+		int bits = 64;
+		while ((bits < 8L * grams) && (bits < MAX_FILTER_BITS)) {
+			bits <<= 1;
+		}
+		this.filter = new long[bits >>> 6];
+		for (long hash : hashes) {
+			for (int probe = 0; probe < 2; probe++) {
+				int bit = bit(hash, probe);
+				filter[bit >>> 6] |= 1L << bit;
+			}
+		}
+		// sample non overlapping k-grams spread over the text
+		int stride = GRAM_LENGTH;
+		while (grams / stride > MAX_SAMPLES) {
+			stride += GRAM_LENGTH;
+		}
+		long[] samples = new long[(grams + stride - 1) / stride];
+		for (int i = 0; i < samples.length; i++) {
+			samples[i] = hashes[i * stride];
+		}
+		this.samples = samples;
+	}
+
+	/**
+	 * Computes the hashes of all k-grams with a rolling hash.
+	 */
+	private static long[] hashGrams(char[] text, int length) {
+		if (length < GRAM_LENGTH) {
+			return new long[0];
+		}
+		long[] hashes = new long[length - GRAM_LENGTH + 1];
+		long highest = 1L;
+		for (int i = 1; i < GRAM_LENGTH; i++) {
+			highest *= HASH_BASE;
+		}
+		long hash = 0L;
+		for (int i = 0; i < length; i++) {
+			if (i >= GRAM_LENGTH) {
+				hash -= text[i - GRAM_LENGTH] * highest;
+			}
+			hash = hash * HASH_BASE + text[i];
+			if (i >= GRAM_LENGTH - 1) {
+				hashes[i - GRAM_LENGTH + 1] = hash;
+			}
+		}
+		return hashes;
+	}
+
+	/**
+	 * Returns the position of the bit for the given hash and probe in the
+	 * bloom filter.
+	 */
+	private int bit(long hash, int probe) {
+		long mixed = (hash ^ (hash >>> 31)) * 0xbf58476d1ce4e5b9L;
+		mixed ^= mixed >>> 29;
+		int value = (int) mixed + probe * (int) (mixed >>> 32);
+		return value & ((filter.length << 6) - 1);
+	}
+
+	private boolean mightContainGram(long hash) {
+		for (int probe = 0; probe < 2; probe++) {
+			int bit = bit(hash, probe);
+			if ((filter[bit >>> 6] & (1L << bit)) == 0L) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return the length of the text without omitted characters
+	 */
+	public int getLength() {
+		return length;
+	}
+
+	/**
+	 * Returns false if the text of the given fingerprint cannot be contained
+	 * in the text of this fingerprint. A return value of true does not
+	 * guarantee, that the text is contained.
+	 *
+	 * @param smaller
+	 *            fingerprint of the text to be searched for
+	 * @return false if the text cannot be contained
+	 */
+	public boolean mayContain(TextFingerprint smaller) {
+		return mayContain(smaller, 0);
+	}
+
+	/**
+	 * Returns false if the text of the given fingerprint cannot be contained
+	 * in the text of this fingerprint with at most the given number of edits.
+	 * A return value of true does not guarantee, that the text is contained.
+	 *
+	 * @param smaller
+	 *            fingerprint of the text to be searched for
+	 * @param maxErrors
+	 *            the number of allowed edits
+	 * @return false if the text cannot be contained
+	 */
+	public boolean mayContain(TextFingerprint smaller, int maxErrors) {
+		if (smaller.length <= maxErrors) {
+			// the empty text is contained everywhere
+			return true;
+		}
+		if (smaller.length - maxErrors > length) {
+			return false;
+		}
+		if (Long.bitCount(smaller.characters & ~characters) > maxErrors) {
+			return false;
+		}
+		int misses = 0;
+		for (long sample : smaller.samples) {
+			if (!mightContainGram(sample)) {
+				misses++;
+				if (misses > maxErrors) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+}
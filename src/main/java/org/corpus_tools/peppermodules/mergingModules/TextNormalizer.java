@@ -0,0 +1,183 @@
+/**
+ * Copyright 2015 Humboldt-Universität zu Berlin.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.mergingModules;
+
+import java.util.Map;
+
+/**
+ * A compiled form of the escape mapping given by
+ * {@link MergerProperties#PROP_ESCAPE_MAPPING}. The mapping is turned into a
+ * lookup table indexed by character, so that normalizing a text only needs a
+ * single pass over its character array and does not allocate anything per
+ * character. <br/>
+ * Only mappings whose key is a single character are taken into account, since
+ * texts are normalized character by character.
+ */
+public class TextNormalizer {
+	/**
+	 * The replacement for each character, indexed by the character itself. A
+	 * null entry means the character is kept as it is.
+	 **/
+	private final char[][] replacements;
+
+	/**
+	 * Creates a normalizer for the given escape mapping. The mapping maps a
+	 * character to be escaped to its replacement, an empty replacement removes
+	 * the character.
+	 *
+	 * @param escapeMapping
+	 *            the mapping as returned by
+	 *            {@link MergerProperties#getEscapeMapping()}, might be null
+	 */
+	public TextNormalizer(Map<String, String> escapeMapping) {
+		int maxChar = -1;
+		if (escapeMapping != null) {
+			for (String key : escapeMapping.keySet()) {
+				if ((key != null) && (key.length() == 1) && (key.charAt(0) > maxChar)) {
+					maxChar = key.charAt(0);
+				}
+			}
+		}
+		replacements = new char[maxChar + 1][];
+		if (maxChar >= 0) {
+			for (Map.Entry<String, String> entry : escapeMapping.entrySet()) {
+				String key = entry.getKey();
+				if ((key != null) && (key.length() == 1) && (entry.getValue() != null)) {
+					replacements[key.charAt(0)] = entry.getValue().toCharArray();
+				}
+			}
+		}
+	}
+
+	/**
+	 * The result of normalizing a text: the normalized text itself and the
+	 * offset tables between the original and the normalized text. Text
+	 * positions are positions between characters, therefore both tables
+	 * contain one additional entry for the position after the last character.
+	 */
+	public static class NormalizedText {
+		private final String text;
+		private final int[] originalToNormalized;
+		private final int[] normalizedToOriginal;
+
+		private NormalizedText(String text, int[] originalToNormalized, int[] normalizedToOriginal) {
+			this.text = text;
+			this.originalToNormalized = originalToNormalized;
+			this.normalizedToOriginal = normalizedToOriginal;
+		}
+
+		/**
+		 * @return the normalized text
+		 */
+		public String getText() {
+			return text;
+		}
+
+		/**
+		 * @return a table of length <code>original.length()+1</code>. The entry
+		 *         at index i is the position in the normalized text
+		 *         corresponding to position i in the original text.
+		 */
+		public int[] getOriginalToNormalized() {
+			return originalToNormalized;
+		}
+
+		/**
+		 * @return a table of length <code>normalized.length()+1</code>. The
+		 *         entry at index i is the position in the original text of the
+		 *         character the i'th normalized character was produced from.
+		 */
+		public int[] getNormalizedToOriginal() {
+			return normalizedToOriginal;
+		}
+	}
+
+	/**
+	 * Normalizes the given text in a single pass.
+	 *
+	 * <pre>
+	 * orig: " thäs is"
+	 *        01234567
+	 * norm: "thaesis"
+	 *        0123456
+	 * originalToNormalized: 0,0,1,2,4,5,5,6,7
+	 * normalizedToOriginal: 1,2,3,3,4,6,7,8
+	 * </pre>
+	 *
+	 * @param original
+	 *            the text to be normalized
+	 * @return the normalized text and its offset tables
+	 */
+	public NormalizedText normalize(String original) {
+		char[] chr = original.toCharArray();
+		int[] originalToNormalized = new int[chr.length + 1];
+		// a text usually shrinks, the buffers are only grown for expanding
+		// replacements
+		char[] normalized = new char[chr.length];
+		int[] normalizedToOriginal = new int[chr.length + 1];
+		int pos = 0;
+		for (int i = 0; i < chr.length; i++) {
+			char c = chr[i];
+			originalToNormalized[i] = pos;
+			char[] replacement = (c < replacements.length) ? replacements[c] : null;
+			if (replacement == null) {
+				if (pos == normalized.length) {
+					normalized = grow(normalized, pos + 1);
+					normalizedToOriginal = grow(normalizedToOriginal, normalized.length + 1);
+				}
+				normalized[pos] = c;
+				normalizedToOriginal[pos++] = i;
+			} else {
+				// one char is mapped to many (or none). All chars have the
+				// same index in the original text
+				if (pos + replacement.length > normalized.length) {
+					normalized = grow(normalized, pos + replacement.length);
+					normalizedToOriginal = grow(normalizedToOriginal, normalized.length + 1);
+				}
+				for (char r : replacement) {
+					normalized[pos] = r;
+					normalizedToOriginal[pos++] = i;
+				}
+			}
+		}
+		// add an additional entry for the position after the last character
+		// (imagine an empty token beginning and ending at last position of the
+		// text). This is necessary, because text positions are positions
+		// BETWEEN characters.
+		originalToNormalized[chr.length] = pos;
+		normalizedToOriginal[pos] = chr.length;
+		if (normalizedToOriginal.length != pos + 1) {
+			int[] trimmed = new int[pos + 1];
+			System.arraycopy(normalizedToOriginal, 0, trimmed, 0, pos + 1);
+			normalizedToOriginal = trimmed;
+		}
+		return new NormalizedText(new String(normalized, 0, pos), originalToNormalized, normalizedToOriginal);
+	}
+
+	private static char[] grow(char[] array, int minLength) {
+		char[] grown = new char[Math.max(minLength, array.length + (array.length >> 1) + 1)];
+		System.arraycopy(array, 0, grown, 0, array.length);
+		return grown;
+	}
+
+	private static int[] grow(int[] array, int minLength) {
+		int[] grown = new int[Math.max(minLength, array.length + (array.length >> 1) + 1)];
+		System.arraycopy(array, 0, grown, 0, array.length);
+		return grown;
+	}
+}
@@ -0,0 +1,163 @@
+/**
+ * Copyright 2015 Humboldt-Universität zu Berlin.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.mergingModules;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.corpus_tools.salt.common.STextualDS;
+
+/**
+ * Plans which pairs of texts of a base document and an other document are
+ * aligned by {@link MergerMapper}. Instead of aligning the cross product of
+ * all texts, the planner
+ * <ul>
+ * <li>joins the texts by their name, if only texts with the same name are
+ * to be merged (see
+ * {@link MergerProperties#PROP_ONLY_MERGE_TEXTS_WITH_SAME_NAME}) and</li>
+ * <li>rejects pairs whose {@link TextFingerprint}s prove, that the smaller
+ * text is not contained in the bigger one (allowing the edits of the
+ * approximate alignment).</li>
+ * </ul>
+ * The partners of a base text are returned in the order of the other
+ * document, so the alignment is done in the same order as for the cross
+ * product.
+ */
+public class TextPairPlanner {
+	/** the texts of the other document **/
+	private final List<STextualDS> otherTexts;
+	/** the texts of the other document grouped by name or null **/
+	private final Map<String, List<STextualDS>> otherTextsByName;
+	/** the container holding normalized texts and fingerprints **/
+	private final TokenMergeContainer container;
+	/** the properties to read the punctuations from **/
+	private final MergerProperties properties;
+	/**
+	 * the number of edits allowed by the approximate alignment, see
+	 * {@link MergerProperties#PROP_MAX_ALIGNMENT_ERRORS}
+	 **/
+	private final int maxErrors;
+	private int considered = 0;
+	private int pruned = 0;
+
+	/**
+	 * @param otherTexts
+	 *            the texts of the other document
+	 * @param container
+	 *            the container holding the normalized texts
+	 * @param properties
+	 *            the properties of the merger
+	 */
+	public TextPairPlanner(List<STextualDS> otherTexts, TokenMergeContainer container, MergerProperties properties) {
+		this.otherTexts = otherTexts;
+		this.container = container;
+		this.properties = properties;
+		this.maxErrors = properties.getMaxAlignmentErrors();
+		if (properties.isOnlyMergeTextWithSameName()) {
+			otherTextsByName = new HashMap<>();
+			for (STextualDS otherText : otherTexts) {
+				List<STextualDS> texts = otherTextsByName.get(otherText.getName());
+				if (texts == null) {
+					texts = new ArrayList<>();
+					otherTextsByName.put(otherText.getName(), texts);
+				}
+				texts.add(otherText);
+			}
+		} else {
+			otherTextsByName = null;
+		}
+	}
+
+	/**
+	 * Returns all texts of the other document, which are to be tried to align
+	 * with the given base text.
+	 * 
+	 * @param baseText
+	 *            a text of the base document
+	 * @return the texts of the other document in document order
+	 */
+	public List<STextualDS> getPartners(STextualDS baseText) {
+		if (otherTextsByName == null) {
+			return otherTexts;
+		}
+		List<STextualDS> partners = otherTextsByName.get(baseText.getName());
+		return (partners == null) ? Collections.<STextualDS> emptyList() : partners;
+	}
+
+	/**
+	 * Checks whether both texts might be alignable. A pair is rejected, when
+	 * the fingerprint of the bigger text proves, that the smaller text is not
+	 * contained, not even with the number of edits allowed by the approximate
+	 * alignment.
+	 * 
+	 * @param baseText
+	 *            a text of the base document
+	 * @param otherText
+	 *            a partner of the base text
+	 * @return false, if both texts are not alignable
+	 */
+	public boolean isCandidate(STextualDS baseText, STextualDS otherText) {
+		considered++;
+		String normalizedBaseText = container.getNormalizedText(baseText);
+		String normalizedOtherText = container.getNormalizedText(otherText);
+		if ((normalizedBaseText == null) || (normalizedOtherText == null)) {
+			// leave the error handling to the alignment
+			return true;
+		}
+		TextFingerprint baseFingerprint = getFingerprint(baseText, normalizedBaseText);
+		TextFingerprint otherFingerprint = getFingerprint(otherText, normalizedOtherText);
+		// the bigger text is determined by the normalized length, as done by
+		// the alignment
+		boolean mayAlign;
+		if (normalizedBaseText.length() >= normalizedOtherText.length()) {
+			mayAlign = baseFingerprint.mayContain(otherFingerprint, maxErrors);
+		} else {
+			mayAlign = otherFingerprint.mayContain(baseFingerprint, maxErrors);
+		}
+		if (!mayAlign) {
+			pruned++;
+		}
+		return mayAlign;
+	}
+
+	private TextFingerprint getFingerprint(STextualDS text, String normalizedText) {
+		TextFingerprint fingerprint = container.getTextFingerprint(text);
+		if (fingerprint == null) {
+			fingerprint = new TextFingerprint(normalizedText, properties.getOmitChars());
+			container.setTextFingerprint(text, fingerprint);
+		}
+		return fingerprint;
+	}
+
+	/**
+	 * @return the number of pairs checked by {@link #isCandidate}
+	 */
+	public int getConsidered() {
+		return considered;
+	}
+
+	/**
+	 * @return the number of pairs rejected by {@link #isCandidate}
+	 */
+	public int getPruned() {
+		return pruned;
+	}
+}
@@ -0,0 +1,179 @@
+/**
+ * Copyright 2015 Humboldt-Universität zu Berlin.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.mergingModules;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.corpus_tools.salt.common.SDocumentGraph;
+import org.corpus_tools.salt.common.STextualDS;
+import org.corpus_tools.salt.common.STextualRelation;
+import org.corpus_tools.salt.common.SToken;
+
+/**
+ * Groups the {@link STextualRelation}s of a {@link SDocumentGraph} by their
+ * target {@link STextualDS} in a single pass over all relations. Each text
+ * owns an array of its relations, which keeps the order of
+ * {@link SDocumentGraph#getTextualRelations()}. Relations created after the
+ * index are appended via {@link #addRelation(STextualRelation)}, so that the
+ * index does not need to be rebuilt. <br/>
+ * Further the index maps each {@link SToken} to the first {@link STextualDS}
+ * it is connected with.
+ */
+public class TextualRelationIndex {
+	/** maps a text to its relations **/
+	private final Map<STextualDS, Relations> relations;
+	/** maps a token to its text **/
+	private final NodeMapping tokenTexts;
+
+	/**
+	 * Creates the index for all textual relations of the given graph.
+	 * 
+	 * @param graph
+	 *            the graph to be indexed
+	 */
+	public TextualRelationIndex(SDocumentGraph graph) {
+		List<STextualRelation> textRels = graph.getTextualRelations();
+		if (textRels == null) {
+			textRels = Collections.emptyList();
+		}
+		// count the relations per text
+		relations = new IdentityHashMap<>();
+		for (STextualRelation textRel : textRels) {
+			Relations textRelations = relations.get(textRel.getTarget());
+			if (textRelations == null) {
+				textRelations = new Relations();
+				relations.put(textRel.getTarget(), textRelations);
+			}
+			textRelations.size++;
+		}
+		for (Relations textRelations : relations.values()) {
+			textRelations.elements = new STextualRelation[textRelations.size];
+			textRelations.size = 0;
+		}
+		tokenTexts = new IdentityNodeMapping(textRels.size());
+		for (STextualRelation textRel : textRels) {
+			add(textRel);
+		}
+	}
+
+	/**
+	 * Adds a relation, which was created in the indexed graph after the index.
+	 * Lists already returned by {@link #getRelations(STextualDS)} and
+	 * {@link #getTokens(STextualDS)} are not changed.
+	 * 
+	 * @param textRel
+	 *            the new relation
+	 */
+	public void addRelation(STextualRelation textRel) {
+		if ((textRel == null) || (textRel.getTarget() == null)) {
+			return;
+		}
+		Relations textRelations = relations.get(textRel.getTarget());
+		if (textRelations == null) {
+			textRelations = new Relations();
+			relations.put(textRel.getTarget(), textRelations);
+		}
+		if (textRelations.size == textRelations.elements.length) {
+			textRelations.elements = Arrays.copyOf(textRelations.elements, 2 * textRelations.size + 1);
+		}
+		add(textRel);
+	}
+
+	/**
+	 * Appends the relation to the already allocated array of its text.
+	 */
+	private void add(STextualRelation textRel) {
+		Relations textRelations = relations.get(textRel.getTarget());
+		textRelations.elements[textRelations.size++] = textRel;
+		if ((textRel.getSource() != null) && (tokenTexts.get(textRel.getSource()) == null)) {
+			tokenTexts.put(textRel.getSource(), textRel.getTarget());
+		}
+	}
+
+	/**
+	 * @param text
+	 *            a text of the indexed graph
+	 * @return all {@link STextualRelation}s targeting the given text
+	 */
+	public List<STextualRelation> getRelations(STextualDS text) {
+		Relations textRelations = relations.get(text);
+		if (textRelations == null) {
+			return Collections.emptyList();
+		}
+		// relations added later are appended behind size or into a copy of
+		// the array, so the returned list stays unchanged
+		final STextualRelation[] elements = textRelations.elements;
+		final int size = textRelations.size;
+		return new AbstractList<STextualRelation>() {
+			@Override
+			public STextualRelation get(int index) {
+				if (index >= size) {
+					throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+				}
+				return elements[index];
+			}
+
+			@Override
+			public int size() {
+				return size;
+			}
+		};
+	}
+
+	/**
+	 * @param text
+	 *            a text of the indexed graph
+	 * @return all {@link SToken}s connected to the given text
+	 */
+	public List<SToken> getTokens(final STextualDS text) {
+		final List<STextualRelation> textRels = getRelations(text);
+		return new AbstractList<SToken>() {
+			@Override
+			public SToken get(int index) {
+				return textRels.get(index).getSource();
+			}
+
+			@Override
+			public int size() {
+				return textRels.size();
+			}
+		};
+	}
+
+	/**
+	 * @param token
+	 *            a token of the indexed graph
+	 * @return the text the token is connected with or null
+	 */
+	public STextualDS getText(SToken token) {
+		return (STextualDS) tokenTexts.get(token);
+	}
+
+	/**
+	 * The relations of a single text, the array is filled up to size.
+	 */
+	private static class Relations {
+		private STextualRelation[] elements = new STextualRelation[0];
+		private int size = 0;
+	}
+}
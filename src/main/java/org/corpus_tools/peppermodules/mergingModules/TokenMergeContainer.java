@@ -18,14 +18,20 @@
 package org.corpus_tools.peppermodules.mergingModules;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import org.corpus_tools.pepper.modules.exceptions.PepperModuleException;
 import org.corpus_tools.salt.common.SDocument;
+import org.corpus_tools.salt.common.SDocumentGraph;
 import org.corpus_tools.salt.common.STextualDS;
+import org.corpus_tools.salt.common.STextualRelation;
 import org.corpus_tools.salt.common.SToken;
+import org.corpus_tools.salt.core.SNode;
+import org.corpus_tools.salt.core.SRelation;
 import org.corpus_tools.salt.util.SaltUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -43,18 +49,59 @@ public class TokenMergeContainer {
 	 * This class contains all tokens which were aligned and allows a search for
 	 * specific {@link SToken} objects by their start position. Moreover, a
 	 * search for the start and length of a specific {@link SToken} object is
-	 * possible.
+	 * possible. <br/>
+	 * Each token gets a dense ordinal, its boundaries are stored in parallel
+	 * int arrays. The ordinal of a token is found via an open addressing table
+	 * using the identity of the token, tokens are found by their start via
+	 * binary search in a lazily sorted array. No query boxes any values.
 	 */
 	public class AlignedTokensMap {
+		/** the initial capacity of the arrays **/
+		private static final int INITIAL_CAPACITY = 16;
+
 		public AlignedTokensMap() {
-			this.tokenLeftMap = new HashMap<>();
-			this.tokenRightMap = new HashMap<>();
-			this.tokensByStart = new HashMap<>();
+			this.tokens = new SToken[INITIAL_CAPACITY];
+			this.lefts = new int[INITIAL_CAPACITY];
+			this.rights = new int[INITIAL_CAPACITY];
+			this.slots = new int[INITIAL_CAPACITY * 2];
+			this.starts = new long[INITIAL_CAPACITY];
 		}
 
-		private Map<SToken, Integer> tokenLeftMap = null;
-		private Map<SToken, Integer> tokenRightMap = null;
-		private Map<Integer, SToken> tokensByStart = null;
+		/** the tokens by their ordinal **/
+		private SToken[] tokens = null;
+		/** the start values by the ordinal of the token **/
+		private int[] lefts = null;
+		/** the end values by the ordinal of the token **/
+		private int[] rights = null;
+		/** the number of contained tokens **/
+		private int size = 0;
+		/**
+		 * open addressing table over the identity of the tokens, a slot
+		 * contains the ordinal of a token plus one or 0 if it is empty
+		 **/
+		private int[] slots = null;
+		/**
+		 * one entry per call of {@link #addToken(SToken, int, int)}: the start
+		 * value in the upper and the number of the call in the lower 32 bits.
+		 * The number of the call is mapped to the ordinal via
+		 * {@link #additions}.
+		 **/
+		private long[] starts = null;
+		/** the ordinal of the token added by each call **/
+		private int[] additions = new int[INITIAL_CAPACITY];
+		/** the number of calls of {@link #addToken(SToken, int, int)} **/
+		private int numOfAdditions = 0;
+		/** true if {@link #starts} is sorted **/
+		private boolean sorted = true;
+		/**
+		 * the ordinals of all tokens sorted by their current start value,
+		 * computed on demand for overlap queries
+		 **/
+		private int[] byLeft = null;
+		/**
+		 * maxRight[i] is the maximal end value of the tokens byLeft[0..i]
+		 **/
+		private int[] maxRight = null;
 
 		/**
 		 * This method returns all {@link SToken} objects contained in this
@@ -63,12 +110,17 @@ public class TokenMergeContainer {
 		 * @return all contained {@link SToken} objects
 		 */
 		public List<SToken> getTokens() {
-			return new ArrayList<>(tokenLeftMap.keySet());
+			List<SToken> retVal = new ArrayList<>(size);
+			for (int i = 0; i < size; i++) {
+				retVal.add(tokens[i]);
+			}
+			return retVal;
 		}
 
 		/**
 		 * This method adds a {@link SToken} with its left and right index to
-		 * the internal structures.
+		 * the internal structures. Adding a token again overwrites its left
+		 * and right index.
 		 * 
 		 * @param tok
 		 *            the {@link SToken} to add
@@ -78,20 +130,226 @@ public class TokenMergeContainer {
 		 *            the end value
 		 */
 		public void addToken(SToken tok, int left, int right) {
-			this.tokenLeftMap.put(tok, left);
-			this.tokenRightMap.put(tok, right);
-			this.tokensByStart.put(left, tok);
+			int ordinal = ordinal(tok);
+			if (ordinal == -1) {
+				if (size == tokens.length) {
+					tokens = Arrays.copyOf(tokens, size * 2);
+					lefts = Arrays.copyOf(lefts, size * 2);
+					rights = Arrays.copyOf(rights, size * 2);
+				}
+				ordinal = size++;
+				tokens[ordinal] = tok;
+				if (size * 2 > slots.length) {
+					rehash(slots.length * 2);
+				} else {
+					insertSlot(ordinal);
+				}
+			}
+			lefts[ordinal] = left;
+			rights[ordinal] = right;
+			byLeft = null;
+			maxRight = null;
+			if (numOfAdditions == starts.length) {
+				starts = Arrays.copyOf(starts, numOfAdditions * 2);
+				additions = Arrays.copyOf(additions, numOfAdditions * 2);
+			}
+			if ((numOfAdditions > 0) && (left < (int) (starts[numOfAdditions - 1] >> 32))) {
+				sorted = false;
+			}
+			additions[numOfAdditions] = ordinal;
+			starts[numOfAdditions] = ((long) left << 32) | numOfAdditions;
+			numOfAdditions++;
+		}
+
+		/**
+		 * Returns the ordinal of the given {@link SToken}, which is the
+		 * position, at which it was added first.
+		 * 
+		 * @param tok
+		 *            the {@link SToken} to search for
+		 * @return the ordinal or -1, if the token is not contained
+		 */
+		public int getOrdinal(SToken tok) {
+			return ordinal(tok);
+		}
+
+		/**
+		 * @param ordinal
+		 *            the ordinal of a {@link SToken}, see
+		 *            {@link #getOrdinal(SToken)}
+		 * @return the {@link SToken} having the given ordinal
+		 */
+		public SToken getToken(int ordinal) {
+			return tokens[ordinal];
+		}
+
+		/**
+		 * @return the number of contained {@link SToken} objects
+		 */
+		public int size() {
+			return size;
+		}
+
+		/** returns the ordinal of the given token or -1 **/
+		private int ordinal(SToken tok) {
+			int mask = slots.length - 1;
+			for (int slot = hash(tok) & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+				if (tokens[slots[slot] - 1] == tok) {
+					return slots[slot] - 1;
+				}
+			}
+			return -1;
+		}
+
+		private void insertSlot(int ordinal) {
+			int mask = slots.length - 1;
+			int slot = hash(tokens[ordinal]) & mask;
+			while (slots[slot] != 0) {
+				slot = (slot + 1) & mask;
+			}
+			slots[slot] = ordinal + 1;
+		}
+
+		private void rehash(int capacity) {
+			slots = new int[capacity];
+			for (int i = 0; i < size; i++) {
+				insertSlot(i);
+			}
+		}
+
+		private int hash(SToken tok) {
+			int h = System.identityHashCode(tok) * 0x9E3779B9;
+			return h ^ (h >>> 16);
 		}
 
 		/**
-		 * This method searches a {@link SToken} specified by the start
+		 * This method searches a {@link SToken} specified by the start. If
+		 * several tokens were added with the same start, the last one is
+		 * returned.
 		 * 
 		 * @param start
 		 *            the start value
 		 * @return The {@link SToken} object or null on failure
 		 */
 		public SToken getTokenByStart(int start) {
-			return this.tokensByStart.get(start);
+			if (!sorted) {
+				Arrays.sort(starts, 0, numOfAdditions);
+				sorted = true;
+			}
+			// search the last entry having the given start
+			long key = ((long) start << 32) | 0xFFFFFFFFL;
+			int lo = 0;
+			int hi = numOfAdditions;
+			while (lo < hi) {
+				int mid = (lo + hi) >>> 1;
+				if (starts[mid] <= key) {
+					lo = mid + 1;
+				} else {
+					hi = mid;
+				}
+			}
+			if ((lo == 0) || ((int) (starts[lo - 1] >> 32) != start)) {
+				return null;
+			}
+			return tokens[additions[(int) starts[lo - 1]]];
+		}
+
+		/** sorts the ordinals by the start values, if necessary **/
+		private void sortByLeft() {
+			if (byLeft == null) {
+				long[] keys = new long[size];
+				for (int i = 0; i < size; i++) {
+					keys[i] = ((long) lefts[i] << 32) | i;
+				}
+				Arrays.sort(keys);
+				byLeft = new int[size];
+				maxRight = new int[size];
+				for (int i = 0; i < size; i++) {
+					byLeft[i] = (int) keys[i];
+					maxRight[i] = (i == 0) ? rights[byLeft[i]] : Math.max(maxRight[i - 1], rights[byLeft[i]]);
+				}
+			}
+		}
+
+		/**
+		 * This method returns all {@link SToken} objects contained in this
+		 * {@link AlignedTokensMap} ordered by their start.
+		 * 
+		 * @return all contained {@link SToken} objects
+		 */
+		public List<SToken> getTokensByStart() {
+			sortByLeft();
+			List<SToken> retVal = new ArrayList<>(size);
+			for (int i = 0; i < size; i++) {
+				retVal.add(tokens[byLeft[i]]);
+			}
+			return retVal;
+		}
+
+		/**
+		 * Checks whether the given map contains the same token boundaries as
+		 * this map, so that the tokens of both maps ordered by their start
+		 * (see {@link #getTokensByStart()}) correspond pairwise. This is only
+		 * the case, if no two tokens of a map share the same start.
+		 * 
+		 * @param other
+		 *            the map to compare with
+		 * @return true if both maps contain the same boundaries
+		 */
+		public boolean hasSameBoundaries(AlignedTokensMap other) {
+			if (size != other.size) {
+				return false;
+			}
+			sortByLeft();
+			other.sortByLeft();
+			for (int i = 0; i < size; i++) {
+				int ordinal = byLeft[i];
+				int otherOrdinal = other.byLeft[i];
+				if ((lefts[ordinal] != other.lefts[otherOrdinal]) || (rights[ordinal] != other.rights[otherOrdinal])) {
+					return false;
+				}
+				if ((i > 0) && (lefts[ordinal] == lefts[byLeft[i - 1]])) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * This method searches all {@link SToken} objects overlapping the
+		 * interval [start, end) of the normalized text. A token [left, right)
+		 * overlaps, if left &lt; end and right &gt; start.
+		 * 
+		 * @param start
+		 *            the start of the interval
+		 * @param end
+		 *            the end of the interval
+		 * @return the overlapping tokens ordered by their start, an empty list
+		 *         if there are none
+		 */
+		public List<SToken> getTokensOverlapping(int start, int end) {
+			sortByLeft();
+			// the first token starting at or behind the end of the interval
+			int lo = 0;
+			int hi = size;
+			while (lo < hi) {
+				int mid = (lo + hi) >>> 1;
+				if (lefts[byLeft[mid]] < end) {
+					lo = mid + 1;
+				} else {
+					hi = mid;
+				}
+			}
+			// all tokens in front of it start before the end of the interval,
+			// walk back as long as one of them might end behind the start
+			List<SToken> retVal = new ArrayList<>();
+			for (int i = lo - 1; (i >= 0) && (maxRight[i] > start); i--) {
+				if (rights[byLeft[i]] > start) {
+					retVal.add(tokens[byLeft[i]]);
+				}
+			}
+			Collections.reverse(retVal);
+			return retVal;
 		}
 
 		/**
@@ -103,8 +361,9 @@ public class TokenMergeContainer {
 		 * @return the length or -1 on failure
 		 */
 		public int getLength(SToken tok) {
-			if (this.tokenLeftMap.containsKey(tok) && this.tokenRightMap.containsKey(tok)) {
-				return this.tokenRightMap.get(tok) - this.tokenLeftMap.get(tok);
+			int ordinal = ordinal(tok);
+			if (ordinal != -1) {
+				return rights[ordinal] - lefts[ordinal];
 			} else {
 				return -1;
 			}
@@ -119,8 +378,9 @@ public class TokenMergeContainer {
 		 * @return the start index or -1 on failure
 		 */
 		public int getStart(SToken tok) {
-			if (this.tokenLeftMap.containsKey(tok)) {
-				return this.tokenLeftMap.get(tok);
+			int ordinal = ordinal(tok);
+			if (ordinal != -1) {
+				return lefts[ordinal];
 			} else {
 				return (-1);
 			}
@@ -136,8 +396,9 @@ public class TokenMergeContainer {
 		 * @return the end index or -1 on failure
 		 */
 		public int getEnd(SToken tok) {
-			if (this.tokenRightMap.containsKey(tok)) {
-				return this.tokenRightMap.get(tok);
+			int ordinal = ordinal(tok);
+			if (ordinal != -1) {
+				return rights[ordinal];
 			} else {
 				throw new PepperModuleException("Cannot find token '" + tok.getId() + "' in token right map");
 			}
@@ -168,12 +429,36 @@ public class TokenMergeContainer {
 	}
 
 	/**
-	 * The token equivalence map. For every {@link SToken} object which has an
-	 * equivalent {@link SToken} object, the map contains an hashmap as entry
-	 * which contains the equivalent {@link SToken} object as value and the
-	 * {@link STextualDS} object as key.
+	 * The token equivalences. For every other {@link STextualDS} object, the
+	 * map contains the {@link EquivalenceColumn}s for all base texts it was
+	 * aligned with.
 	 **/
-	private Map<SToken, Map<STextualDS, SToken>> equivalentToken = null;
+	private Map<STextualDS, List<EquivalenceColumn>> equivalentToken = null;
+
+	/**
+	 * Arrays of former {@link EquivalenceColumn}s, which are filled with -1
+	 * and can be reused. There are at most as many arrays as the last finished
+	 * document needed, so finishing the base document releases all of them.
+	 **/
+	private final List<int[]> freeColumns = new ArrayList<>();
+
+	/**
+	 * The token equivalences between a base text and an other text. The
+	 * ordinals of the base tokens in the {@link AlignedTokensMap} of the base
+	 * text are mapped to the ordinals of their equivalent tokens in the
+	 * {@link AlignedTokensMap} of the other text, -1 means no equivalent.
+	 */
+	private static class EquivalenceColumn {
+		private final AlignedTokensMap baseTokens;
+		private final AlignedTokensMap otherTokens;
+		private int[] otherByBase;
+
+		private EquivalenceColumn(AlignedTokensMap baseTokens, AlignedTokensMap otherTokens, int[] otherByBase) {
+			this.baseTokens = baseTokens;
+			this.otherTokens = otherTokens;
+			this.otherByBase = otherByBase;
+		}
+	}
 
 	/**
 	 * The map of aligned texts which is a map with the {@link STextualDS}
@@ -188,13 +473,209 @@ public class TokenMergeContainer {
 	 * This map contains a mapping from normalized index of a character to the
 	 * index in the original text for every base {@link STextualDS} objects.
 	 **/
-	private Map<STextualDS, List<Integer>> normalizedBaseTextToOriginalBaseText = null;
+	private Map<STextualDS, int[]> normalizedBaseTextToOriginalBaseText = null;
+
+	/**
+	 * The results of aligning texts, the outer key is the base text and the
+	 * inner key the other text.
+	 **/
+	private Map<STextualDS, Map<STextualDS, AlignmentResult>> alignmentResults = null;
+
+	/**
+	 * The search indexes over normalized base texts, see
+	 * {@link NormalizedTextIndex}.
+	 **/
+	private Map<STextualDS, NormalizedTextIndex> textIndexes = null;
+
+	/**
+	 * The fingerprints of normalized texts, see {@link TextFingerprint}.
+	 **/
+	private Map<STextualDS, TextFingerprint> textFingerprints = null;
+
+	/**
+	 * The indexes over spans and structures of base document graphs, see
+	 * {@link ChildSignatureIndex}.
+	 **/
+	private Map<SDocumentGraph, ChildSignatureIndex> childSignatureIndexes = null;
+
+	/**
+	 * The textual relations of document graphs grouped by text, see
+	 * {@link TextualRelationIndex}.
+	 **/
+	private Map<SDocumentGraph, TextualRelationIndex> textualRelationIndexes = null;
 
 	public TokenMergeContainer() {
 		this.equivalentToken = new HashMap<>();
 		this.alignedTextsMap = new HashMap<>();
 		this.normalizedTexts = new HashMap<>();
 		this.normalizedBaseTextToOriginalBaseText = new HashMap<>();
+		this.alignmentResults = new HashMap<>();
+		this.textIndexes = new HashMap<>();
+		this.textFingerprints = new HashMap<>();
+		this.childSignatureIndexes = new HashMap<>();
+		this.textualRelationIndexes = new HashMap<>();
+	}
+
+	/**
+	 * This method returns the textual relations of the given
+	 * {@link SDocumentGraph} grouped by their text. The index is created on
+	 * first access, after adding tokens to the graph
+	 * {@link #addToTextualRelationIndex(SDocumentGraph, SToken)} needs to be
+	 * called.
+	 * 
+	 * @param graph
+	 *            The {@link SDocumentGraph} containing the relations
+	 * @return The {@link TextualRelationIndex} of the graph
+	 */
+	public TextualRelationIndex getTextualRelationIndex(SDocumentGraph graph) {
+		TextualRelationIndex index = this.textualRelationIndexes.get(graph);
+		if (index == null) {
+			index = new TextualRelationIndex(graph);
+			this.textualRelationIndexes.put(graph, index);
+		}
+		return index;
+	}
+
+	/**
+	 * Sets the {@link TextualRelationIndex} of the given
+	 * {@link SDocumentGraph}, which was created outside of this container.
+	 * 
+	 * @param graph
+	 *            The {@link SDocumentGraph} containing the relations
+	 * @param index
+	 *            The {@link TextualRelationIndex} of the graph
+	 */
+	public void setTextualRelationIndex(SDocumentGraph graph, TextualRelationIndex index) {
+		this.textualRelationIndexes.put(graph, index);
+	}
+
+	/**
+	 * Adds the {@link STextualRelation}s of a token created in the given
+	 * {@link SDocumentGraph} to its {@link TextualRelationIndex}, if the index
+	 * was already created.
+	 * 
+	 * @param graph
+	 *            The {@link SDocumentGraph}, to which the token was added
+	 * @param token
+	 *            The new {@link SToken}
+	 */
+	public void addToTextualRelationIndex(SDocumentGraph graph, SToken token) {
+		TextualRelationIndex index = this.textualRelationIndexes.get(graph);
+		if ((index != null) && (token != null)) {
+			for (SRelation<?, ?> relation : token.getOutRelations()) {
+				if (relation instanceof STextualRelation) {
+					index.addRelation((STextualRelation) relation);
+				}
+			}
+		}
+	}
+
+	/**
+	 * This method returns the index over the spans and structures of the given
+	 * base {@link SDocumentGraph}. The index is created on first access and
+	 * has to be kept up to date by the caller, when adding further spans or
+	 * structures.
+	 * 
+	 * @param baseGraph
+	 *            The base {@link SDocumentGraph}
+	 * @return The {@link ChildSignatureIndex} of the graph
+	 */
+	public ChildSignatureIndex getChildSignatureIndex(SDocumentGraph baseGraph) {
+		ChildSignatureIndex index = this.childSignatureIndexes.get(baseGraph);
+		if (index == null) {
+			index = new ChildSignatureIndex(baseGraph);
+			this.childSignatureIndexes.put(baseGraph, index);
+		}
+		return index;
+	}
+
+	/**
+	 * This method returns the fingerprint of the normalized version of the
+	 * given {@link STextualDS}.
+	 * 
+	 * @param sTextualDS
+	 *            The {@link STextualDS} to search the fingerprint for
+	 * @return The {@link TextFingerprint} or null, if no fingerprint was
+	 *         created yet
+	 */
+	public TextFingerprint getTextFingerprint(STextualDS sTextualDS) {
+		return this.textFingerprints.get(sTextualDS);
+	}
+
+	/**
+	 * This method stores the fingerprint of the normalized version of the
+	 * given {@link STextualDS}. The fingerprint is kept until the document
+	 * containing the text is finished.
+	 * 
+	 * @param sTextualDS
+	 *            The {@link STextualDS} the fingerprint was created for
+	 * @param fingerprint
+	 *            The {@link TextFingerprint} to store
+	 */
+	public void setTextFingerprint(STextualDS sTextualDS, TextFingerprint fingerprint) {
+		this.textFingerprints.put(sTextualDS, fingerprint);
+	}
+
+	/**
+	 * This method returns the search index over the normalized version of the
+	 * given {@link STextualDS}.
+	 * 
+	 * @param sTextualDS
+	 *            The {@link STextualDS} to search the index for
+	 * @return The {@link NormalizedTextIndex} or null, if no index was created
+	 *         yet
+	 */
+	public NormalizedTextIndex getTextIndex(STextualDS sTextualDS) {
+		return this.textIndexes.get(sTextualDS);
+	}
+
+	/**
+	 * This method stores the search index over the normalized version of the
+	 * given {@link STextualDS}. The index is kept until the document
+	 * containing the text is finished.
+	 * 
+	 * @param sTextualDS
+	 *            The {@link STextualDS} the index was created for
+	 * @param index
+	 *            The {@link NormalizedTextIndex} to store
+	 */
+	public void setTextIndex(STextualDS sTextualDS, NormalizedTextIndex index) {
+		this.textIndexes.put(sTextualDS, index);
+	}
+
+	/**
+	 * This method stores the {@link AlignmentResult} for the pair of texts it
+	 * was computed for.
+	 * 
+	 * @param result
+	 *            The {@link AlignmentResult} to store
+	 */
+	public void setAlignmentResult(AlignmentResult result) {
+		Map<STextualDS, AlignmentResult> results = alignmentResults.get(result.getBaseText());
+		if (results == null) {
+			results = new HashMap<>();
+			alignmentResults.put(result.getBaseText(), results);
+		}
+		results.put(result.getOtherText(), result);
+	}
+
+	/**
+	 * This method returns the {@link AlignmentResult} computed for the given
+	 * pair of texts.
+	 * 
+	 * @param baseText
+	 *            The base {@link STextualDS}
+	 * @param otherText
+	 *            The other {@link STextualDS}
+	 * @return The {@link AlignmentResult} or null, if the texts have not been
+	 *         aligned yet
+	 */
+	public AlignmentResult getAlignmentResult(STextualDS baseText, STextualDS otherText) {
+		Map<STextualDS, AlignmentResult> results = alignmentResults.get(baseText);
+		if (results != null) {
+			return results.get(otherText);
+		}
+		return null;
 	}
 
 	/**
@@ -204,9 +685,10 @@ public class TokenMergeContainer {
 	 * @param sTextualDS
 	 *            The {@link STextualDS} object
 	 * @param posMapping
-	 *            The mapping list
+	 *            The mapping table, see
+	 *            {@link TextNormalizer.NormalizedText#getNormalizedToOriginal()}
 	 */
-	public void setBaseTextPositionByNormalizedTextPosition(STextualDS sTextualDS, List<Integer> posMapping) {
+	public void setBaseTextPositionByNormalizedTextPosition(STextualDS sTextualDS, int[] posMapping) {
 		if (!this.normalizedBaseTextToOriginalBaseText.containsKey(sTextualDS)) {
 			this.normalizedBaseTextToOriginalBaseText.put(sTextualDS, posMapping);
 		}
@@ -225,11 +707,12 @@ public class TokenMergeContainer {
 	 */
 	public int getBaseTextPositionByNormalizedTextPosition(STextualDS sTextualDS, int position) {
 		int baseTextPosition = -1;
-		if (normalizedBaseTextToOriginalBaseText.containsKey(sTextualDS)) {
-			if (normalizedBaseTextToOriginalBaseText.get(sTextualDS).size() > position) {
-				baseTextPosition = this.normalizedBaseTextToOriginalBaseText.get(sTextualDS).get(position);
+		int[] posMapping = normalizedBaseTextToOriginalBaseText.get(sTextualDS);
+		if (posMapping != null) {
+			if (posMapping.length > position) {
+				baseTextPosition = posMapping[position];
 			} else {
-				throw new PepperModuleException("Given position of character in the normalized text '" + position + "' was bigger than the size of the normalized text '" + normalizedBaseTextToOriginalBaseText.get(sTextualDS).size() + "'.");
+				throw new PepperModuleException("Given position of character in the normalized text '" + position + "' was bigger than the size of the normalized text '" + posMapping.length + "'.");
 			}
 		}
 		return baseTextPosition;
@@ -300,6 +783,28 @@ public class TokenMergeContainer {
 		return tok;
 	}
 
+	/**
+	 * This method returns all aligned {@link SToken} objects of the given
+	 * {@link STextualDS}, which overlap the interval [start, end) of its
+	 * normalized version.
+	 * 
+	 * @param sTextualDS
+	 *            The {@link STextualDS} to search the {@link SToken} objects
+	 *            in
+	 * @param start
+	 *            The start of the interval in the normalized text
+	 * @param end
+	 *            The end of the interval in the normalized text
+	 * @return The overlapping {@link SToken} objects ordered by their start,
+	 *         an empty list if there are none
+	 */
+	public List<SToken> getAlignedTokensOverlapping(STextualDS sTextualDS, int start, int end) {
+		if ((sTextualDS != null) && (this.alignedTextsMap.containsKey(sTextualDS))) {
+			return this.alignedTextsMap.get(sTextualDS).getTokensOverlapping(start, end);
+		}
+		return Collections.emptyList();
+	}
+
 	/**
 	 * This method returns the start for the given {@link SToken} object in the
 	 * normalized version of the given {@link STextualDS}.
@@ -411,21 +916,90 @@ public class TokenMergeContainer {
 			}
 			return;
 		}
-		if (this.equivalentToken.get(baseTextToken) != null) {
-			// there is a mapping for the base text token
-			if (!this.equivalentToken.get(baseTextToken).containsKey(otherSText)) {
-				// there is no mapping for the base text token in the other
-				// document. Add the mapping
-				this.equivalentToken.get(baseTextToken).put(otherSText, otherTextToken);
-			} else { // there is a mapping for the base token in the otherSText
+		AlignedTokensMap baseTokens = null;
+		int baseOrdinal = -1;
+		List<EquivalenceColumn> columns = this.equivalentToken.get(otherSText);
+		if (columns != null) {
+			for (EquivalenceColumn column : columns) {
+				baseOrdinal = column.baseTokens.getOrdinal(baseTextToken);
+				if (baseOrdinal != -1) {
+					if (baseOrdinal >= column.otherByBase.length) {
+						// the base text got further tokens
+						int length = column.otherByBase.length;
+						column.otherByBase = Arrays.copyOf(column.otherByBase, Math.max(length * 2, column.baseTokens.size()));
+						Arrays.fill(column.otherByBase, length, column.otherByBase.length, -1);
+					}
+					if (column.otherByBase[baseOrdinal] == -1) {
+						// there is no mapping for the base text token in the
+						// other document. Add the mapping
+						column.otherByBase[baseOrdinal] = getOrdinal(column.otherTokens, otherTextToken);
+					}
+					return;
+				}
+			}
+		}
+		// there is no column for the text of the base text token yet
+		for (AlignedTokensMap tokens : alignedTextsMap.values()) {
+			baseOrdinal = tokens.getOrdinal(baseTextToken);
+			if (baseOrdinal != -1) {
+				baseTokens = tokens;
+				break;
+			}
+		}
+		if (baseTokens == null) {
+			throw new PepperModuleException("Cannot add a mapping for token '" + baseTextToken.getId() + "', because it is not contained in an aligned text. ");
+		}
+		AlignedTokensMap otherTokens = this.alignedTextsMap.get(otherSText);
+		if (otherTokens == null) {
+			throw new PepperModuleException("Cannot add a mapping for token '" + otherTextToken.getId() + "', because text '" + otherSText.getId() + "' is not aligned. ");
+		}
+		EquivalenceColumn column = new EquivalenceColumn(baseTokens, otherTokens, newColumn(baseTokens.size()));
+		column.otherByBase[baseOrdinal] = getOrdinal(otherTokens, otherTextToken);
+		if (columns == null) {
+			columns = new ArrayList<>(1);
+			this.equivalentToken.put(otherSText, columns);
+		}
+		columns.add(column);
+	}
+
+	private static int getOrdinal(AlignedTokensMap tokens, SToken tok) {
+		int ordinal = tokens.getOrdinal(tok);
+		if (ordinal == -1) {
+			throw new PepperModuleException("Cannot add a mapping for token '" + tok.getId() + "', because it is not contained in its aligned text. ");
+		}
+		return ordinal;
+	}
+
+	/**
+	 * Returns an array of at least the given length filled with -1, a free
+	 * array is reused if possible.
+	 */
+	private int[] newColumn(int length) {
+		for (int i = freeColumns.size() - 1; i >= 0; i--) {
+			if (freeColumns.get(i).length >= length) {
+				return freeColumns.remove(i);
+			}
+		}
+		int[] column = new int[length];
+		Arrays.fill(column, -1);
+		return column;
+	}
 
+	private boolean containsColumn(int[] column) {
+		for (int[] freeColumn : freeColumns) {
+			if (freeColumn == column) {
+				return true;
 			}
-		} else {// there is currently no mapping for the specified base text
-				// token
-			Map<STextualDS, SToken> newMapping = new HashMap<>();
-			newMapping.put(otherSText, otherTextToken);
-			this.equivalentToken.put(baseTextToken, newMapping);
 		}
+		return false;
+	}
+
+	/**
+	 * @return the number of arrays kept for the token equivalences of the next
+	 *         document
+	 */
+	public int getFreeColumnCount() {
+		return freeColumns.size();
 	}
 
 	/**
@@ -441,22 +1015,48 @@ public class TokenMergeContainer {
 	 * @return the equivalent {@link SToken} if existent and null, else.
 	 */
 	public SToken getTokenMapping(SToken baseTextToken, STextualDS otherSText) {
-		SToken equivalentToken = null;
-		if (this.equivalentToken.containsKey(baseTextToken)) {
-			// the base text token has an equivalent in SOME other document
-			// / get the equivalent token of the other document if there is one
-			equivalentToken = this.equivalentToken.get(baseTextToken).get(otherSText);
+		List<EquivalenceColumn> columns = this.equivalentToken.get(otherSText);
+		if (columns != null) {
+			for (EquivalenceColumn column : columns) {
+				int baseOrdinal = column.baseTokens.getOrdinal(baseTextToken);
+				if ((baseOrdinal != -1) && (baseOrdinal < column.otherByBase.length)) {
+					int otherOrdinal = column.otherByBase[baseOrdinal];
+					return (otherOrdinal == -1) ? null : column.otherTokens.getToken(otherOrdinal);
+				}
+			}
 		}
-		return equivalentToken;
+		return null;
 	}
 
 	/**
 	 * This method returns the map of equivalences for the base text tokens.
+	 * For every base {@link SToken} object which has an equivalent
+	 * {@link SToken} object, the map contains a map with the other
+	 * {@link STextualDS} object as key and the equivalent {@link SToken}
+	 * object as value. The map is a copy, changing it does not change the
+	 * container.
 	 * 
 	 * @return The equivalence map.
 	 */
 	public Map<SToken, Map<STextualDS, SToken>> getEquivalenceMap() {
-		return this.equivalentToken;
+		Map<SToken, Map<STextualDS, SToken>> retVal = new HashMap<>();
+		for (Map.Entry<STextualDS, List<EquivalenceColumn>> entry : this.equivalentToken.entrySet()) {
+			for (EquivalenceColumn column : entry.getValue()) {
+				for (int baseOrdinal = 0; baseOrdinal < column.otherByBase.length; baseOrdinal++) {
+					int otherOrdinal = column.otherByBase[baseOrdinal];
+					if (otherOrdinal != -1) {
+						SToken baseTextToken = column.baseTokens.getToken(baseOrdinal);
+						Map<STextualDS, SToken> mappings = retVal.get(baseTextToken);
+						if (mappings == null) {
+							mappings = new HashMap<>();
+							retVal.put(baseTextToken, mappings);
+						}
+						mappings.put(entry.getKey(), column.otherTokens.getToken(otherOrdinal));
+					}
+				}
+			}
+		}
+		return retVal;
 	}
 
 	/**
@@ -478,9 +1078,39 @@ public class TokenMergeContainer {
 					alignedTextsMap.remove(text);
 					normalizedTexts.remove(text);
 					normalizedBaseTextToOriginalBaseText.remove(text);
+					alignmentResults.remove(text);
+					textIndexes.remove(text);
+					textFingerprints.remove(text);
+					for (Map<STextualDS, AlignmentResult> results : alignmentResults.values()) {
+						results.remove(text);
+					}
+				}
+			}
+			childSignatureIndexes.remove(document.getDocumentGraph());
+			textualRelationIndexes.remove(document.getDocumentGraph());
+			// keep the arrays for the next document, which is likely to need
+			// as many columns as this one
+			int usedColumns = 0;
+			for (List<EquivalenceColumn> columns : this.equivalentToken.values()) {
+				for (EquivalenceColumn column : columns) {
+					usedColumns++;
+					if (!containsColumn(column.otherByBase)) {
+						Arrays.fill(column.otherByBase, -1);
+						freeColumns.add(column.otherByBase);
+					}
+				}
+			}
+			this.equivalentToken.clear();
+			while (freeColumns.size() > usedColumns) {
+				// drop the shortest array
+				int shortest = 0;
+				for (int i = 1; i < freeColumns.size(); i++) {
+					if (freeColumns.get(i).length < freeColumns.get(shortest).length) {
+						shortest = i;
+					}
 				}
+				freeColumns.remove(shortest);
 			}
-			this.equivalentToken = new HashMap<>();
 		}
 	}
 }
@@ -0,0 +1,75 @@
+/**
+ * Copyright 2015 Humboldt-Universität zu Berlin.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.mergingModules.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import org.corpus_tools.peppermodules.mergingModules.ApproximateAligner;
+import org.corpus_tools.peppermodules.mergingModules.ApproximateAligner.Alignment;
+import org.junit.Test;
+
+public class ApproximateAlignerTest {
+
+	/**
+	 * Checks the placement of a text containing a substitution and a deletion
+	 * and the mapping of positions between both texts.
+	 */
+	@Test
+	public void testAlign() {
+		String bigger = "Thisisanexampletext,whichcontainsafewerrors.";
+		String smaller = "anexannletextwhich";
+		Alignment alignment = ApproximateAligner.align(smaller, bigger, 3);
+		assertNotNull(alignment);
+		assertEquals(6, alignment.getStart());
+		assertEquals(25, alignment.getEnd());
+		assertEquals(3, alignment.getErrors());
+		// 'an' starts at the beginning of the placement
+		assertEquals(6, alignment.getSmallerStartToBigger()[0]);
+		// 'text' is behind the substitution 'nn' -> 'mp'
+		assertEquals(15, alignment.getSmallerStartToBigger()[9]);
+		assertEquals(19, alignment.getSmallerEndToBigger()[13]);
+		// 'which' starts behind the comma missing in the smaller text
+		assertEquals(20, alignment.getSmallerStartToBigger()[13]);
+		assertEquals(25, alignment.getSmallerEndToBigger()[smaller.length()]);
+		// the comma has no counterpart in the smaller text
+		assertEquals(13, alignment.getBiggerStartToSmaller()[19 - 6]);
+		assertEquals(13, alignment.getBiggerEndToSmaller()[20 - 6]);
+	}
+
+	/**
+	 * Checks that the comparison is case insensitive.
+	 */
+	@Test
+	public void testAlignIgnoresCase() {
+		Alignment alignment = ApproximateAligner.align("EXAMPLETEXT", "anexampletext", 1);
+		assertNotNull(alignment);
+		assertEquals(2, alignment.getStart());
+		assertEquals(0, alignment.getErrors());
+	}
+
+	/**
+	 * Checks that no placement is returned, when more edits would be necessary.
+	 */
+	@Test
+	public void testAlignTooManyErrors() {
+		assertNull(ApproximateAligner.align("anexannletextwhich", "Thisisanexampletext,whichcontainsafewerrors.", 2));
+		assertNull(ApproximateAligner.align("example", "example", 0));
+	}
+}
@@ -0,0 +1,94 @@
+/**
+ * Copyright 2015 Humboldt-Universität zu Berlin.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.mergingModules.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.corpus_tools.peppermodules.mergingModules.ChildSignatureIndex;
+import org.corpus_tools.salt.SALT_TYPE;
+import org.corpus_tools.salt.SaltFactory;
+import org.corpus_tools.salt.common.SDocumentGraph;
+import org.corpus_tools.salt.common.SSpan;
+import org.corpus_tools.salt.common.SStructure;
+import org.corpus_tools.salt.common.STextualDS;
+import org.corpus_tools.salt.common.SToken;
+import org.junit.Test;
+
+public class ChildSignatureIndexTest {
+
+	/**
+	 * Checks that spans and structures are found by their children, regardless
+	 * of the order of the children, and that the node added first wins.
+	 */
+	@Test
+	public void testGetParent() {
+		SDocumentGraph graph = SaltFactory.createSDocumentGraph();
+		STextualDS text = graph.createTextualDS("This is a test");
+		SToken tok1 = graph.createToken(text, 0, 4);
+		SToken tok2 = graph.createToken(text, 5, 7);
+		SToken tok3 = graph.createToken(text, 8, 9);
+		SSpan span = graph.createSpan(tok1, tok2);
+		graph.createSpan(tok2, tok1);
+		SStructure structure = graph.createStructure(tok1, tok2);
+
+		ChildSignatureIndex index = new ChildSignatureIndex(graph);
+		assertEquals(span, index.getParent(SALT_TYPE.SSPAN, Arrays.asList(tok2, tok1)));
+		assertEquals(structure, index.getParent(SALT_TYPE.SSTRUCTURE, Arrays.asList(tok1, tok2, tok1)));
+		assertNull(index.getParent(SALT_TYPE.SSPAN, Arrays.asList(tok1)));
+		assertNull(index.getParent(SALT_TYPE.SSPAN, Arrays.asList(tok1, tok2, tok3)));
+
+		SSpan newSpan = graph.createSpan(tok3);
+		index.addParent(newSpan, SALT_TYPE.SSPAN, Arrays.asList(tok3));
+		assertEquals(newSpan, index.getParent(SALT_TYPE.SSPAN, Arrays.asList(tok3)));
+		assertEquals(3, index.size());
+	}
+
+	/**
+	 * Checks that other parents are only reported, if a node with further
+	 * children is a parent of all given children, but not for nodes sharing
+	 * the same children.
+	 */
+	@Test
+	public void testHasOtherParents() {
+		SDocumentGraph graph = SaltFactory.createSDocumentGraph();
+		STextualDS text = graph.createTextualDS("This is a test");
+		SToken tok1 = graph.createToken(text, 0, 4);
+		SToken tok2 = graph.createToken(text, 5, 7);
+		SToken tok3 = graph.createToken(text, 8, 9);
+		SSpan first = graph.createSpan(tok1, tok2);
+		graph.createSpan(tok1, tok2);
+		graph.createSpan(tok2, tok3);
+		graph.createStructure(tok1, tok2, tok3);
+
+		ChildSignatureIndex index = new ChildSignatureIndex(graph);
+		assertEquals(first, index.getParent(SALT_TYPE.SSPAN, Arrays.asList(tok1, tok2)));
+		// tok1 has no span with other children
+		assertFalse(index.hasOtherParents(SALT_TYPE.SSPAN, Arrays.asList(tok1, tok2)));
+		assertFalse(index.hasOtherParents(SALT_TYPE.SSTRUCTURE, Arrays.asList(tok1, tok2, tok3)));
+		assertTrue(index.hasOtherParents(SALT_TYPE.SSTRUCTURE, Arrays.asList(tok1, tok2)));
+
+		SSpan superset = graph.createSpan(tok1, tok2, tok3);
+		index.addParent(superset, SALT_TYPE.SSPAN, Arrays.asList(tok1, tok2, tok3));
+		assertTrue(index.hasOtherParents(SALT_TYPE.SSPAN, Arrays.asList(tok1, tok2)));
+	}
+}
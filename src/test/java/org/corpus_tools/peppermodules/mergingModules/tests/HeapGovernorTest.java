@@ -0,0 +1,79 @@
+/**
+ * Copyright 2015 Humboldt-Universität zu Berlin.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.mergingModules.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.corpus_tools.peppermodules.mergingModules.HeapGovernor;
+import org.corpus_tools.peppermodules.mergingModules.MergerAdmission;
+import org.corpus_tools.peppermodules.mergingModules.MergerMetrics;
+import org.junit.Test;
+
+public class HeapGovernorTest {
+
+	/**
+	 * Checks that the limit is halved when the threshold is reached, kept
+	 * between threshold and headroom and raised again below the headroom.
+	 */
+	@Test
+	public void testAdjust() {
+		MergerAdmission admission = new MergerAdmission(16);
+		MergerMetrics metrics = new MergerMetrics();
+		HeapGovernor governor = new HeapGovernor(admission, 0.5, metrics);
+
+		assertEquals(8, governor.adjust(0.9));
+		assertEquals(4, governor.adjust(0.5));
+		assertEquals(4, governor.adjust(0.45));
+		for (int expected = 6; expected <= 16; expected += 2) {
+			assertEquals(expected, governor.adjust(0.1));
+		}
+		assertEquals(16, governor.adjust(0.1));
+		assertEquals(16, admission.getLimit());
+
+		assertEquals(2, metrics.getConcurrencyLowered());
+		assertEquals(6, metrics.getConcurrencyRaised());
+		assertEquals(10, metrics.getHeapObservations());
+		assertEquals(90, metrics.getMaxHeapOccupancy());
+		assertEquals(10, metrics.getLastHeapOccupancy());
+	}
+
+	/**
+	 * Checks that the limit never falls below one permit.
+	 */
+	@Test
+	public void testAdjustAtLeastOne() {
+		MergerAdmission admission = new MergerAdmission(4);
+		HeapGovernor governor = new HeapGovernor(admission, 0.5, null);
+		governor.adjust(1.0);
+		governor.adjust(1.0);
+		assertEquals(1, governor.adjust(1.0));
+		assertEquals(1, governor.adjust(1.0));
+		assertEquals(1, admission.getLimit());
+	}
+
+	/**
+	 * Checks that the occupancy of the running virtual machine is readable.
+	 */
+	@Test
+	public void testReadOccupancy() {
+		double occupancy = HeapGovernor.readOccupancy();
+		assertTrue(occupancy <= 1);
+		assertTrue((occupancy == -1) || (occupancy >= 0));
+	}
+}
@@ -0,0 +1,63 @@
+/**
+ * Copyright 2015 Humboldt-Universität zu Berlin.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.mergingModules.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.corpus_tools.peppermodules.mergingModules.IdentityNodeMapping;
+import org.corpus_tools.peppermodules.mergingModules.NodeMapping;
+import org.corpus_tools.salt.SaltFactory;
+import org.corpus_tools.salt.common.SToken;
+import org.junit.Test;
+
+public class IdentityNodeMappingTest {
+
+	/**
+	 * Checks that all mappings survive growing the table and that a mapping
+	 * can be replaced.
+	 */
+	@Test
+	public void testPutAndGet() {
+		NodeMapping mapping = new IdentityNodeMapping(4);
+		List<SToken> others = new ArrayList<>();
+		List<SToken> bases = new ArrayList<>();
+		for (int i = 0; i < 1000; i++) {
+			SToken other = SaltFactory.createSToken();
+			SToken base = SaltFactory.createSToken();
+			mapping.put(other, base);
+			others.add(other);
+			bases.add(base);
+		}
+		assertEquals(1000, mapping.size());
+		assertEquals(1000, mapping.keys().size());
+		for (int i = 0; i < 1000; i++) {
+			assertSame(bases.get(i), mapping.get(others.get(i)));
+		}
+		SToken base = SaltFactory.createSToken();
+		mapping.put(others.get(0), base);
+		assertSame(base, mapping.get(others.get(0)));
+		assertEquals(1000, mapping.size());
+		assertNull(mapping.get(SaltFactory.createSToken()));
+		assertNull(mapping.get(null));
+	}
+}
@@ -0,0 +1,78 @@
+/**
+ * Copyright 2015 Humboldt-Universität zu Berlin.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.mergingModules.tests;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.corpus_tools.peppermodules.mergingModules.MergeOrder;
+import org.corpus_tools.salt.SaltFactory;
+import org.corpus_tools.salt.common.SDocumentGraph;
+import org.corpus_tools.salt.common.SSpan;
+import org.corpus_tools.salt.common.SStructure;
+import org.corpus_tools.salt.common.STextualDS;
+import org.corpus_tools.salt.common.SToken;
+import org.corpus_tools.salt.core.SNode;
+import org.junit.Test;
+
+public class MergeOrderTest {
+
+	/**
+	 * Checks that each node is ordered after its children and only once.
+	 */
+	@Test
+	public void testBottomUp() {
+		SDocumentGraph graph = SaltFactory.createSDocumentGraph();
+		STextualDS text = graph.createTextualDS("a b");
+		SToken tok1 = graph.createToken(text, 0, 1);
+		SToken tok2 = graph.createToken(text, 2, 3);
+		SStructure struct1 = graph.createStructure(tok1, tok2);
+		SStructure struct2 = graph.createStructure(struct1);
+		SStructure root = graph.createStructure(struct1, struct2);
+
+		List<SNode> order = MergeOrder.bottomUp(graph, Arrays.<SNode> asList(root));
+		assertEquals(Arrays.<SNode> asList(text, tok1, tok2, struct1, struct2, root), order);
+	}
+
+	/**
+	 * Checks that roots sharing descendants are in the same component, while
+	 * the shared text is ignored.
+	 */
+	@Test
+	public void testPartition() {
+		SDocumentGraph graph = SaltFactory.createSDocumentGraph();
+		STextualDS text = graph.createTextualDS("a b c");
+		SToken tok1 = graph.createToken(text, 0, 1);
+		SToken tok2 = graph.createToken(text, 2, 3);
+		SToken tok3 = graph.createToken(text, 4, 5);
+		SSpan span1 = graph.createSpan(tok1, tok2);
+		SStructure struct = graph.createStructure(tok3);
+		SSpan span2 = graph.createSpan(tok2);
+
+		MergeOrder order = new MergeOrder(graph);
+		order.exclude(text);
+		List<List<SNode>> components = order.partition(Arrays.<SNode> asList(span1, struct, span2));
+		assertEquals(2, components.size());
+		assertEquals(Arrays.<SNode> asList(span1, span2), components.get(0));
+		assertEquals(Arrays.<SNode> asList(struct), components.get(1));
+		assertEquals(Arrays.<SNode> asList(tok1, tok2, span1, span2), order.next(components.get(0)));
+		assertEquals(Arrays.<SNode> asList(tok3, struct), order.next(components.get(1)));
+	}
+}
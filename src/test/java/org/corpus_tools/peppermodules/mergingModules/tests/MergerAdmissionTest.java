@@ -0,0 +1,59 @@
+/**
+ * Copyright 2015 Humboldt-Universität zu Berlin.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.mergingModules.tests;
+
+import static org.junit.Assert.assertEquals;
+
+import org.corpus_tools.peppermodules.mergingModules.MergerAdmission;
+import org.junit.Test;
+
+public class MergerAdmissionTest {
+
+	/**
+	 * Checks that a mapper costing more than the limit is still admitted with
+	 * the whole limit.
+	 */
+	@Test
+	public void testAcquireAboveLimit() throws InterruptedException {
+		MergerAdmission admission = new MergerAdmission(4);
+		admission.setLimit(1);
+		int granted = admission.acquire(100);
+		assertEquals(1, granted);
+		admission.release(granted);
+		admission.setLimit(4);
+		assertEquals(4, admission.acquire(100));
+	}
+
+	/**
+	 * Checks that small acquisitions are raised to the minimal cost, so that
+	 * the number of acquisitions is bounded besides the budget.
+	 */
+	@Test
+	public void testMaxAcquisitions() {
+		MergerAdmission admission = new MergerAdmission(1000, 2);
+		assertEquals(500, admission.getMinimalCost());
+		int first = admission.tryAcquire(1);
+		int second = admission.tryAcquire(1);
+		assertEquals(500, first);
+		assertEquals(500, second);
+		assertEquals(-1, admission.tryAcquire(1));
+		admission.release(first);
+		admission.release(second);
+		assertEquals(700, admission.tryAcquire(700));
+	}
+}
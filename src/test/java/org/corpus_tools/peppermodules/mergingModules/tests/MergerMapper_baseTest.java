@@ -17,13 +17,13 @@
  */
 package org.corpus_tools.peppermodules.mergingModules.tests;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import java.util.HashSet;
 import java.util.Hashtable;
 import java.util.List;
-import java.util.Vector;
 
 import org.corpus_tools.pepper.modules.MappingSubject;
 import org.corpus_tools.pepper.modules.PepperModuleProperty;
@@ -140,21 +140,12 @@ public class MergerMapper_baseTest extends MergerMapper {
 		doc1.getDocumentGraph().createTextualDS(origText);
 		this.normalizePrimaryTexts(doc1);
 
-		List<Integer> template = new Vector<Integer>();
-
 		/**
 		 * Example2: dipl: " thäs is" 01234567 norm: "thaesis" 0123456 0->1 1->2
 		 * 2->3 3->3 4->4 5->6 6->7
 		 */
-		template.add(1);
-		template.add(2);
-		template.add(3);
-		template.add(3);
-		template.add(4);
-		template.add(6);
-		template.add(7);
-		template.add(8);
-		assertEquals(template, this.createBaseTextNormOriginalMapping(doc1.getDocumentGraph().getTextualDSs().get(0)));
+		int[] template = new int[] { 1, 2, 3, 3, 4, 6, 7, 8 };
+		assertArrayEquals(template, this.createBaseTextNormOriginalMapping(doc1.getDocumentGraph().getTextualDSs().get(0)));
 	}
 
 	/**
@@ -210,6 +201,38 @@ public class MergerMapper_baseTest extends MergerMapper {
 		}
 	}
 
+	/**
+	 * Tests aligning a base text with a bigger other text, which contains
+	 * characters becoming longer when the whole text is lowercased. The
+	 * lowercased text must keep the positions of the original one.
+	 */
+	@Test
+	public void testAlignTexts_lowerCaseKeepsPositions() {
+		SDocument sDoc1 = SaltFactory.createSDocument();
+		sDoc1.setId("doc1");
+		sDoc1.setDocumentGraph(SaltFactory.createSDocumentGraph());
+		STextualDS baseText = sDoc1.getDocumentGraph().createTextualDS("ab");
+		sDoc1.getDocumentGraph().tokenize();
+
+		SDocument sDoc2 = SaltFactory.createSDocument();
+		sDoc2.setId("doc2");
+		sDoc2.setDocumentGraph(SaltFactory.createSDocumentGraph());
+		// the dotted capital I is lowercased to two characters
+		STextualDS otherText = sDoc2.getDocumentGraph().createTextualDS("\u0130\u0130 ab");
+		sDoc2.getDocumentGraph().tokenize();
+
+		this.normalizePrimaryTexts(sDoc1);
+		this.normalizePrimaryTexts(sDoc2);
+
+		HashSet<SToken> nonEquivalentTokenInOtherTexts = new HashSet<SToken>();
+		Hashtable<SNode, SNode> equivalenceMap = new Hashtable<SNode, SNode>();
+		assertTrue(this.alignTexts(baseText, otherText, nonEquivalentTokenInOtherTexts, equivalenceMap));
+
+		SToken baseToken = sDoc1.getDocumentGraph().getTokens().get(0);
+		SToken otherToken = sDoc2.getDocumentGraph().getSortedTokenByText().get(1);
+		assertEquals(otherToken, this.container.getTokenMapping(baseToken, otherText));
+	}
+
 	/**
 	 * Tests the method
 	 * {@link #alignTexts(de.hu_berlin.german.korpling.saltnpepper.salt.saltCommon.sDocumentStructure.STextualDS, de.hu_berlin.german.korpling.saltnpepper.salt.saltCommon.sDocumentStructure.STextualDS)}
@@ -18,33 +18,50 @@
 package org.corpus_tools.peppermodules.mergingModules.tests;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Hashtable;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Executor;
 
 import org.corpus_tools.pepper.common.DOCUMENT_STATUS;
+import org.corpus_tools.pepper.modules.DocumentController;
 import org.corpus_tools.pepper.modules.MappingSubject;
+import org.corpus_tools.pepper.modules.PepperMapperController;
 import org.corpus_tools.pepper.modules.PepperModuleProperty;
+import org.corpus_tools.pepper.modules.exceptions.PepperModuleException;
+import org.corpus_tools.peppermodules.mergingModules.Merger;
 import org.corpus_tools.peppermodules.mergingModules.MergerMapper;
 import org.corpus_tools.peppermodules.mergingModules.MergerProperties;
+import org.corpus_tools.peppermodules.mergingModules.NodeMapping;
 import org.corpus_tools.salt.SaltFactory;
 import org.corpus_tools.salt.common.SCorpusGraph;
 import org.corpus_tools.salt.common.SDocument;
 import org.corpus_tools.salt.common.SDocumentGraph;
+import org.corpus_tools.salt.common.SOrderRelation;
+import org.corpus_tools.salt.common.SPointingRelation;
 import org.corpus_tools.salt.common.SSpan;
 import org.corpus_tools.salt.common.SSpanningRelation;
 import org.corpus_tools.salt.common.SStructure;
 import org.corpus_tools.salt.common.SStructuredNode;
 import org.corpus_tools.salt.common.STextualDS;
+import org.corpus_tools.salt.common.STextualRelation;
 import org.corpus_tools.salt.common.SToken;
 import org.corpus_tools.salt.core.SLayer;
 import org.corpus_tools.salt.core.SNode;
 import org.corpus_tools.salt.core.SRelation;
+import org.corpus_tools.salt.graph.Identifier;
 import org.corpus_tools.salt.samples.SampleGenerator;
 import org.corpus_tools.salt.util.Difference;
 import org.eclipse.emf.common.util.URI;
@@ -244,6 +261,235 @@ public class MergerMapper_graphTest extends MergerMapper {
 		assertEquals(diffs + "", 0, diffs.size());
 	}
 
+	/**
+	 * Tests that a span of the other {@link SDocumentGraph} is merged into the
+	 * first span of the base {@link SDocumentGraph} covering its tokens, even
+	 * if a span with exactly the same tokens was created later.
+	 */
+	@Test
+	public void testMergeSpans_supersetCreatedFirst() {
+		SDocument fixture = SaltFactory.createSDocument();
+		fixture.setId("sdoc1");
+		fixture.setDocumentGraph(SaltFactory.createSDocumentGraph());
+		MappingSubject sub1 = new MappingSubject();
+		sub1.setIdentifier(fixture.getIdentifier());
+		getFixture().getMappingSubjects().add(sub1);
+		SampleGenerator.createPrimaryData(fixture);
+		SampleGenerator.createTokens(fixture);
+		List<SToken> baseTokens = fixture.getDocumentGraph().getTokens();
+		SSpan superset = fixture.getDocumentGraph().createSpan(baseTokens.get(0), baseTokens.get(1), baseTokens.get(2));
+		SSpan exact = fixture.getDocumentGraph().createSpan(baseTokens.get(0), baseTokens.get(1));
+
+		SDocument other = SaltFactory.createSDocument();
+		other.setId("sdoc2");
+		other.setDocumentGraph(SaltFactory.createSDocumentGraph());
+		MappingSubject sub2 = new MappingSubject();
+		sub2.setIdentifier(other.getIdentifier());
+		getFixture().getMappingSubjects().add(sub2);
+		SampleGenerator.createPrimaryData(other);
+		SampleGenerator.createTokens(other);
+		List<SToken> otherTokens = other.getDocumentGraph().getTokens();
+		SSpan otherSpan = other.getDocumentGraph().createSpan(otherTokens.get(0), otherTokens.get(1));
+		otherSpan.createAnnotation(null, "anno", "value");
+
+		this.isTestMode = true;
+		this.mergeDocumentStructures(chooseBaseDocument());
+
+		assertEquals(2, fixture.getDocumentGraph().getSpans().size());
+		assertEquals(1, superset.getAnnotations().size());
+		assertEquals(0, exact.getAnnotations().size());
+	}
+
+	/**
+	 * Tests that merging the document-structure in parallel results in the
+	 * same base document as merging it sequentially, even if the tokens of the
+	 * other document are connected via a timeline and order relations.
+	 */
+	@Test
+	public void testMergeInParallel() {
+		SDocument sequential = mergeWithTimeline(false);
+		SDocument parallel = mergeWithTimeline(true);
+
+		assertEquals(sequential.getDocumentGraph().getSpans().size(), parallel.getDocumentGraph().getSpans().size());
+		assertEquals(sequential.getDocumentGraph().getStructures().size(), parallel.getDocumentGraph().getStructures().size());
+		Set<Difference> diffs = sequential.getDocumentGraph().findDiffs(parallel.getDocumentGraph());
+		assertEquals(diffs + "", 0, diffs.size());
+	}
+
+	/**
+	 * Merges a document containing spans, structures, a timeline and order
+	 * relations between its tokens into a document only containing tokens.
+	 * 
+	 * @param parallel
+	 *            whether to merge the document-structure in parallel
+	 * @return the base document
+	 */
+	private SDocument mergeWithTimeline(boolean parallel) {
+		MergerMapper_graphTest mapper = new MergerMapper_graphTest();
+		mapper.setUp();
+		PepperModuleProperty<Boolean> prop = (PepperModuleProperty<Boolean>) mapper.getProperties().getProperty(MergerProperties.PROP_PARALLEL_MERGE);
+		prop.setValue(parallel);
+
+		SDocument base = SaltFactory.createSDocument();
+		base.setId("sdoc1");
+		base.setDocumentGraph(SaltFactory.createSDocumentGraph());
+		MappingSubject sub1 = new MappingSubject();
+		sub1.setIdentifier(base.getIdentifier());
+		mapper.getMappingSubjects().add(sub1);
+		SampleGenerator.createPrimaryData(base);
+		SampleGenerator.createTokens(base);
+
+		SDocument other = SaltFactory.createSDocument();
+		other.setId("sdoc2");
+		other.setDocumentGraph(SaltFactory.createSDocumentGraph());
+		MappingSubject sub2 = new MappingSubject();
+		sub2.setIdentifier(other.getIdentifier());
+		mapper.getMappingSubjects().add(sub2);
+		SampleGenerator.createPrimaryData(other);
+		SampleGenerator.createTokens(other);
+		SampleGenerator.createInformationStructureSpan(other);
+		SampleGenerator.createInformationStructureAnnotations(other);
+		SampleGenerator.createSyntaxStructure(other);
+		SampleGenerator.createSyntaxAnnotations(other);
+		SDocumentGraph otherGraph = other.getDocumentGraph();
+		otherGraph.createTimeline();
+		List<SToken> otherTokens = otherGraph.getTokens();
+		for (int i = 1; i < otherTokens.size(); i++) {
+			SOrderRelation orderRel = SaltFactory.createSOrderRelation();
+			orderRel.setSource(otherTokens.get(i - 1));
+			orderRel.setTarget(otherTokens.get(i));
+			orderRel.setType("seg");
+			otherGraph.addRelation(orderRel);
+		}
+
+		mapper.isTestMode = true;
+		mapper.mergeDocumentStructures(mapper.chooseBaseDocument());
+		return base;
+	}
+
+	/**
+	 * Tests merging a document only containing tokens with morphological
+	 * annotations into a base document only containing the tokens of the
+	 * first two words. The annotations and layers of the tokens must be moved
+	 * to the base document and missing tokens must be created. A token not
+	 * connected to any text is not merged.
+	 */
+	@Test
+	public void testMergeTokensInBulk() {
+		SDocument fixture = SaltFactory.createSDocument();
+		fixture.setId("sdoc1");
+		fixture.setDocumentGraph(SaltFactory.createSDocumentGraph());
+		MappingSubject sub1 = new MappingSubject();
+		sub1.setIdentifier(fixture.getIdentifier());
+		getFixture().getMappingSubjects().add(sub1);
+		SampleGenerator.createPrimaryData(fixture);
+		STextualDS baseText = fixture.getDocumentGraph().getTextualDSs().get(0);
+		SToken baseToken1 = fixture.getDocumentGraph().createToken(baseText, 0, 2); // Is
+		SToken baseToken2 = fixture.getDocumentGraph().createToken(baseText, 3, 7); // this
+
+		SDocument other = SaltFactory.createSDocument();
+		other.setId("sdoc2");
+		other.setDocumentGraph(SaltFactory.createSDocumentGraph());
+		MappingSubject sub2 = new MappingSubject();
+		sub2.setIdentifier(other.getIdentifier());
+		getFixture().getMappingSubjects().add(sub2);
+		SampleGenerator.createPrimaryData(other);
+		STextualDS otherText = other.getDocumentGraph().getTextualDSs().get(0);
+		SLayer morphLayer = SaltFactory.createSLayer();
+		morphLayer.setName("morphology");
+		other.getDocumentGraph().addLayer(morphLayer);
+		String[] pos = { "VBZ", "DT", "NN", "RBR" };
+		List<SToken> otherTokens = new ArrayList<>();
+		otherTokens.add(SampleGenerator.createToken(0, 2, otherText, other, morphLayer)); // Is
+		otherTokens.add(SampleGenerator.createToken(3, 7, otherText, other, morphLayer)); // this
+		otherTokens.add(SampleGenerator.createToken(8, 15, otherText, other, morphLayer)); // example
+		otherTokens.add(SampleGenerator.createToken(16, 20, otherText, other, morphLayer)); // more
+		for (int i = 0; i < otherTokens.size(); i++) {
+			otherTokens.get(i).createAnnotation(null, "pos", pos[i]);
+		}
+		// a token without text
+		other.getDocumentGraph().addNode(SaltFactory.createSToken());
+
+		this.isTestMode = true;
+		this.mergeDocumentStructures(sub1);
+
+		SDocumentGraph baseGraph = fixture.getDocumentGraph();
+		assertEquals(4, baseGraph.getTokens().size());
+		assertEquals(4, baseGraph.getTextualRelations().size());
+		List<SLayer> baseLayers = baseGraph.getLayerByName("morphology");
+		assertEquals(1, baseLayers.size());
+		assertEquals(4, baseLayers.get(0).getNodes().size());
+		Set<String> baseTokenTexts = new HashSet<>();
+		for (SToken baseToken : baseGraph.getTokens()) {
+			assertEquals(1, baseToken.getAnnotations().size());
+			assertTrue(baseLayers.get(0).getNodes().contains(baseToken));
+			baseTokenTexts.add(baseGraph.getText(baseToken));
+		}
+		assertEquals(new HashSet<>(Arrays.asList("Is", "this", "example", "more")), baseTokenTexts);
+		assertEquals("VBZ", baseToken1.getAnnotations().iterator().next().getValue());
+		assertEquals("DT", baseToken2.getAnnotations().iterator().next().getValue());
+	}
+
+	/**
+	 * Tests that merging a token-only document moves the annotations and
+	 * layers of the textual relation of a token, which already has an
+	 * equivalent in the base document.
+	 */
+	@Test
+	public void testMergeTokensInBulk_relationAnnotations() {
+		SDocument fixture = SaltFactory.createSDocument();
+		fixture.setId("sdoc1");
+		fixture.setDocumentGraph(SaltFactory.createSDocumentGraph());
+		MappingSubject sub1 = new MappingSubject();
+		sub1.setIdentifier(fixture.getIdentifier());
+		getFixture().getMappingSubjects().add(sub1);
+		SampleGenerator.createPrimaryData(fixture);
+		STextualDS baseText = fixture.getDocumentGraph().getTextualDSs().get(0);
+		SToken baseToken = fixture.getDocumentGraph().createToken(baseText, 0, 2); // Is
+
+		SDocument other = SaltFactory.createSDocument();
+		other.setId("sdoc2");
+		other.setDocumentGraph(SaltFactory.createSDocumentGraph());
+		MappingSubject sub2 = new MappingSubject();
+		sub2.setIdentifier(other.getIdentifier());
+		getFixture().getMappingSubjects().add(sub2);
+		SampleGenerator.createPrimaryData(other);
+		STextualDS otherText = other.getDocumentGraph().getTextualDSs().get(0);
+		SToken otherToken = other.getDocumentGraph().createToken(otherText, 0, 2); // Is
+		SLayer relationLayer = SaltFactory.createSLayer();
+		relationLayer.setName("relations");
+		other.getDocumentGraph().addLayer(relationLayer);
+		STextualRelation otherRel = getTextualRelation(otherToken);
+		otherRel.createAnnotation(null, "anno", "value");
+		otherRel.createMetaAnnotation(null, "meta", "value");
+		otherRel.addLayer(relationLayer);
+
+		this.isTestMode = true;
+		this.mergeDocumentStructures(sub1);
+
+		SDocumentGraph baseGraph = fixture.getDocumentGraph();
+		assertEquals(1, baseGraph.getTokens().size());
+		STextualRelation baseRel = getTextualRelation(baseToken);
+		assertEquals(1, baseRel.getAnnotations().size());
+		assertEquals("value", baseRel.getAnnotations().iterator().next().getValue());
+		assertEquals(1, baseRel.getMetaAnnotations().size());
+		List<SLayer> baseLayers = baseGraph.getLayerByName("relations");
+		assertEquals(1, baseLayers.size());
+		assertTrue(baseRel.getLayers().contains(baseLayers.get(0)));
+	}
+
+	/**
+	 * @return the first {@link STextualRelation} of the given token
+	 */
+	private static STextualRelation getTextualRelation(SToken token) {
+		for (SRelation<?, ?> relation : token.getOutRelations()) {
+			if (relation instanceof STextualRelation) {
+				return (STextualRelation) relation;
+			}
+		}
+		return null;
+	}
+
 	/**
 	 * Tests the document status after the mapping of three documents containing
 	 * the same primary data and same tokenization, but different annotation
@@ -484,6 +730,57 @@ public class MergerMapper_graphTest extends MergerMapper {
 		assertNotNull(equivalenceMap.get(otherTextToken.get(6)));
 	}
 
+	/**
+	 * Tests the method
+	 * {@link #mergeTokens(STextualDS, STextualDS, java.util.Map)} for an
+	 * approximate alignment of a smaller other text containing a token, which
+	 * was deleted from the base text:
+	 * 
+	 * <ol>
+	 * <li>say hello world now</li>
+	 * <li>hello XY world</li>
+	 * </ol>
+	 * 
+	 * The deleted token is mapped onto an empty interval of the base text, no
+	 * token must be created for it.
+	 */
+	@Test
+	public void testMergeTokens_deletedToken() {
+		PepperModuleProperty<Integer> prop = (PepperModuleProperty<Integer>) getProperties().getProperty(MergerProperties.PROP_MAX_ALIGNMENT_ERRORS);
+		prop.setValue(2);
+
+		SDocument sDoc1 = SaltFactory.createSDocument();
+		sDoc1.setId("doc1");
+		sDoc1.setDocumentGraph(SaltFactory.createSDocumentGraph());
+		STextualDS otherText = sDoc1.getDocumentGraph().createTextualDS("hello XY world");
+		sDoc1.getDocumentGraph().tokenize();
+
+		SDocument sDoc2 = SaltFactory.createSDocument();
+		sDoc2.setId("doc2");
+		sDoc2.setDocumentGraph(SaltFactory.createSDocumentGraph());
+		STextualDS baseText = sDoc2.getDocumentGraph().createTextualDS("say hello world now");
+		sDoc2.getDocumentGraph().tokenize();
+
+		List<SToken> otherTextToken = sDoc1.getDocumentGraph().getSortedTokenByText();
+
+		this.normalizePrimaryTexts(sDoc1);
+		this.normalizePrimaryTexts(sDoc2);
+		assertEquals(sDoc2, this.container.getBaseDocument());
+
+		HashSet<SToken> nonEquivalentTokenInOtherTexts = new HashSet<SToken>();
+		Hashtable<SNode, SNode> equivalenceMap = new Hashtable<SNode, SNode>();
+		assertTrue(this.alignTexts(baseText, otherText, nonEquivalentTokenInOtherTexts, equivalenceMap));
+		this.mergeTokens(baseText, otherText, equivalenceMap);
+
+		assertEquals(4, sDoc2.getDocumentGraph().getTokens().size());
+		for (SToken baseToken : sDoc2.getDocumentGraph().getTokens()) {
+			assertTrue(sDoc2.getDocumentGraph().getText(baseToken).length() > 0);
+		}
+		assertNull(equivalenceMap.get(otherTextToken.get(1)));
+		assertEquals("hello", sDoc2.getDocumentGraph().getText(equivalenceMap.get(otherTextToken.get(0))));
+		assertEquals("world", sDoc2.getDocumentGraph().getText(equivalenceMap.get(otherTextToken.get(2))));
+	}
+
 	/**
 	 * Merges 2 documents by merging texts and tokens, but not spans and
 	 * structures, they should be copied.
@@ -789,4 +1086,245 @@ public class MergerMapper_graphTest extends MergerMapper {
 		assertNotNull(fixSLayer.getRelations());
 		assertEquals(3, fixSLayer.getRelations().size());
 	}
+
+	/**
+	 * Tests merging pointing relations, which are contained twice in the
+	 * other document or are already contained in the base document. Each of
+	 * them must be contained only once afterwards. A relation pointing to a
+	 * token of a text, which could not be aligned, is skipped without failing
+	 * the merge.
+	 */
+	@Test
+	public void testMergePointingRelations_duplicates() {
+		MappingSubject baseSubj = addSampleDocument(this, "sdoc1");
+		SDocumentGraph baseGraph = ((SDocument) baseSubj.getIdentifier().getIdentifiableElement()).getDocumentGraph();
+		List<SToken> baseTokens = baseGraph.getSortedTokenByText();
+		SPointingRelation existing = createPointingRelation(baseGraph, baseTokens.get(0), baseTokens.get(1));
+		existing.createAnnotation(null, "anno", "base");
+
+		MappingSubject otherSubj = addSampleDocument(this, "sdoc2");
+		SDocumentGraph otherGraph = ((SDocument) otherSubj.getIdentifier().getIdentifiableElement()).getDocumentGraph();
+		List<SToken> otherTokens = otherGraph.getSortedTokenByText();
+		createPointingRelation(otherGraph, otherTokens.get(0), otherTokens.get(1));
+		createPointingRelation(otherGraph, otherTokens.get(1), otherTokens.get(2)).createAnnotation(null, "anno", "first");
+		createPointingRelation(otherGraph, otherTokens.get(1), otherTokens.get(2)).createAnnotation(null, "anno", "second");
+		STextualDS unalignedText = otherGraph.createTextualDS("xyz");
+		SToken unalignedToken = otherGraph.createToken(unalignedText, 0, 3);
+		createPointingRelation(otherGraph, otherTokens.get(2), unalignedToken);
+
+		this.isTestMode = true;
+		this.mergeDocumentStructures(baseSubj);
+
+		assertEquals(2, baseGraph.getPointingRelations().size());
+		SPointingRelation created = null;
+		for (SPointingRelation rel : baseGraph.getPointingRelations()) {
+			if (rel != existing) {
+				created = rel;
+			}
+		}
+		assertNotNull(created);
+		assertEquals(baseTokens.get(1), created.getSource());
+		assertEquals(baseTokens.get(2), created.getTarget());
+		// annotations are taken from the first of the duplicates
+		assertEquals("first", created.getAnnotation("anno").getValue());
+		assertEquals("base", existing.getAnnotation("anno").getValue());
+	}
+
+	/**
+	 * Tests moving the annotations and layers of several relations between the
+	 * same tokens. Each relation of the other token must be matched to the
+	 * base relation of its class, the pointing relation must not be created
+	 * again.
+	 */
+	@Test
+	public void testMoveAnnosForRelations_sameTarget() {
+		MappingSubject baseSubj = addSampleDocument(this, "sdoc1");
+		SDocumentGraph baseGraph = ((SDocument) baseSubj.getIdentifier().getIdentifiableElement()).getDocumentGraph();
+		List<SToken> baseTokens = baseGraph.getSortedTokenByText();
+		SPointingRelation basePointingRel = createPointingRelation(baseGraph, baseTokens.get(0), baseTokens.get(1));
+		SOrderRelation baseOrderRel = SaltFactory.createSOrderRelation();
+		baseOrderRel.setSource(baseTokens.get(0));
+		baseOrderRel.setTarget(baseTokens.get(1));
+		baseGraph.addRelation(baseOrderRel);
+
+		MappingSubject otherSubj = addSampleDocument(this, "sdoc2");
+		SDocumentGraph otherGraph = ((SDocument) otherSubj.getIdentifier().getIdentifiableElement()).getDocumentGraph();
+		List<SToken> otherTokens = otherGraph.getSortedTokenByText();
+		SLayer corefLayer = SaltFactory.createSLayer();
+		corefLayer.setName("coref");
+		otherGraph.addLayer(corefLayer);
+		SOrderRelation otherOrderRel = SaltFactory.createSOrderRelation();
+		otherOrderRel.setSource(otherTokens.get(0));
+		otherOrderRel.setTarget(otherTokens.get(1));
+		otherOrderRel.setType("seg");
+		otherOrderRel.createAnnotation(null, "order", "value");
+		otherGraph.addRelation(otherOrderRel);
+		SPointingRelation otherPointingRel = createPointingRelation(otherGraph, otherTokens.get(0), otherTokens.get(1));
+		otherPointingRel.createAnnotation(null, "pointing", "value");
+		otherPointingRel.createMetaAnnotation(null, "meta", "value");
+		otherPointingRel.addLayer(corefLayer);
+
+		this.isTestMode = true;
+		this.mergeDocumentStructures(baseSubj);
+
+		assertEquals(1, baseGraph.getPointingRelations().size());
+		assertEquals(1, basePointingRel.getAnnotations().size());
+		assertEquals("value", basePointingRel.getAnnotation("pointing").getValue());
+		assertEquals(1, basePointingRel.getMetaAnnotations().size());
+		assertEquals(1, baseOrderRel.getAnnotations().size());
+		assertEquals("value", baseOrderRel.getAnnotation("order").getValue());
+		assertEquals("seg", baseOrderRel.getType());
+		List<SLayer> baseLayers = baseGraph.getLayerByName("coref");
+		assertEquals(1, baseLayers.size());
+		assertTrue(basePointingRel.getLayers().contains(baseLayers.get(0)));
+		assertFalse(baseOrderRel.getLayers().contains(baseLayers.get(0)));
+	}
+
+	private static SPointingRelation createPointingRelation(SDocumentGraph graph, SToken source, SToken target) {
+		SPointingRelation rel = SaltFactory.createSPointingRelation();
+		rel.setSource(source);
+		rel.setTarget(target);
+		rel.setType("anaphoric");
+		graph.addRelation(rel);
+		return rel;
+	}
+
+	/**
+	 * Tests that the next partner is not prefetched, when the {@link Merger}
+	 * has no permits left for another document in main memory.
+	 */
+	@Test
+	public void testPrefetch_notAdmitted() {
+		final List<Identifier> admissions = new ArrayList<>();
+		Merger merger = new Merger() {
+			@Override
+			public int tryAdmitDocument(Identifier sDocumentId) {
+				admissions.add(sDocumentId);
+				return -1;
+			}
+
+			@Override
+			public synchronized Executor getPrefetchExecutor() {
+				throw new AssertionError("A document was prefetched without permits. ");
+			}
+		};
+		setMerger(merger);
+		PepperModuleProperty<Boolean> prop = (PepperModuleProperty<Boolean>) getProperties().getProperty(MergerProperties.PROP_PREFETCH_DOCUMENTS);
+		prop.setValue(true);
+		addSampleDocument(this, "sdoc1");
+		addSampleDocument(this, "sdoc2");
+		MappingSubject last = addSampleDocument(this, "sdoc3");
+
+		this.isTestMode = true;
+		this.mergeDocumentStructures(chooseBaseDocument());
+
+		assertEquals(Arrays.asList(last.getIdentifier()), admissions);
+		assertEquals(0, merger.getMetrics().getPrefetchedDocuments());
+	}
+
+	/**
+	 * Tests that a partner woken up in advance is sent back to sleep and its
+	 * permits are released, when merging the current partner fails.
+	 */
+	@Test
+	public void testPrefetch_cancelled() {
+		final List<DocumentController> sentToSleep = new ArrayList<>();
+		final List<Integer> released = new ArrayList<>();
+		Merger merger = new Merger() {
+			@Override
+			public int tryAdmitDocument(Identifier sDocumentId) {
+				return 3;
+			}
+
+			@Override
+			public synchronized Executor getPrefetchExecutor() {
+				// prefetch in the current thread
+				return new Executor() {
+					@Override
+					public void execute(Runnable command) {
+						command.run();
+					}
+				};
+			}
+
+			@Override
+			public void sendToSleep(DocumentController documentController) {
+				sentToSleep.add(documentController);
+				documentController.sendToSleep_FORCE();
+			}
+
+			@Override
+			public void releaseMergerMapper(int cost) {
+				released.add(cost);
+			}
+		};
+		MergerMapper_graphTest mapper = new MergerMapper_graphTest() {
+			@Override
+			protected boolean alignTexts(STextualDS baseText, STextualDS otherText, Set<SToken> nonEquivalentTokenInOtherTexts, NodeMapping equivalenceMap) {
+				throw new PepperModuleException("Merging failed. ");
+			}
+		};
+		mapper.setUp();
+		mapper.setMerger(merger);
+		mapper.setPepperMapperController((PepperMapperController) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { PepperMapperController.class }, new InvocationHandler() {
+			@Override
+			public Object invoke(Object proxy, Method method, Object[] args) {
+				return null;
+			}
+		}));
+		PepperModuleProperty<Boolean> prop = (PepperModuleProperty<Boolean>) mapper.getProperties().getProperty(MergerProperties.PROP_PREFETCH_DOCUMENTS);
+		prop.setValue(true);
+		addSampleDocument(mapper, "sdoc1");
+		addSampleDocument(mapper, "sdoc2");
+		MappingSubject sleeping = addSampleDocument(mapper, "sdoc3");
+		final boolean[] asleep = { true };
+		DocumentController controller = (DocumentController) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { DocumentController.class }, new InvocationHandler() {
+			@Override
+			public Object invoke(Object proxy, Method method, Object[] args) {
+				switch (method.getName()) {
+				case "isAsleep":
+					return asleep[0];
+				case "awake":
+					asleep[0] = false;
+					return null;
+				case "sendToSleep_FORCE":
+					asleep[0] = true;
+					return null;
+				case "getGlobalId":
+					return "sdoc3";
+				default:
+					return null;
+				}
+			}
+		});
+		sleeping.setDocumentController(controller);
+
+		mapper.isTestMode = true;
+		try {
+			mapper.mergeDocumentStructures(mapper.chooseBaseDocument());
+			fail("Merging should have failed. ");
+		} catch (PepperModuleException e) {
+			// expected
+		}
+
+		assertEquals(Arrays.asList(controller), sentToSleep);
+		assertTrue(asleep[0]);
+		assertEquals(Arrays.asList(3), released);
+	}
+
+	/**
+	 * Adds a document containing the sample text and its tokens to the given
+	 * mapper.
+	 */
+	private static MappingSubject addSampleDocument(MergerMapper mapper, String id) {
+		SDocument document = SaltFactory.createSDocument();
+		document.setId(id);
+		document.setDocumentGraph(SaltFactory.createSDocumentGraph());
+		SampleGenerator.createPrimaryData(document);
+		SampleGenerator.createTokens(document);
+		MappingSubject subj = new MappingSubject();
+		subj.setIdentifier(document.getIdentifier());
+		mapper.getMappingSubjects().add(subj);
+		return subj;
+	}
 }
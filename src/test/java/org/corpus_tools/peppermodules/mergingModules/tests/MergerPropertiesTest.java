@@ -18,12 +18,19 @@
 package org.corpus_tools.peppermodules.mergingModules.tests;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.Hashtable;
+import java.util.Set;
 
+import org.corpus_tools.pepper.modules.PepperModuleProperty;
 import org.corpus_tools.peppermodules.mergingModules.MergerProperties;
+import org.corpus_tools.peppermodules.mergingModules.OmitChars;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -54,6 +61,53 @@ public class MergerPropertiesTest {
 		}
 	}
 
+	@Test
+	public void testGetOmitChars() {
+		char[] punctuations = { '.', ',', ':', ';', '!', '?', '(', ')', '{', '}', '<', '>' };
+		assertEquals(punctuations.length, getFixture().getOmitChars().size());
+		for (int i = 0; i < punctuations.length; i++) {
+			assertTrue(getFixture().getOmitChars().isOmitted(punctuations[i]));
+		}
+		assertFalse(getFixture().getOmitChars().isOmitted('a'));
+		assertFalse(getFixture().getOmitChars().isOmitted('\u00BF'));
+	}
+
+	/**
+	 * Checks that the punctuations are compiled only once, while other sets
+	 * of characters are compiled on each call.
+	 */
+	@Test
+	public void testGetOmitCharsOfSet() {
+		OmitChars punctuations = getFixture().getOmitChars(getFixture().getPunctuations());
+		assertSame(punctuations, getFixture().getOmitChars(getFixture().getPunctuations()));
+		assertEquals(getFixture().getPunctuations().size(), punctuations.size());
+		assertTrue(punctuations.isOmitted('?'));
+
+		Set<Character> chars = new HashSet<>(Arrays.asList('a'));
+		OmitChars other = getFixture().getOmitChars(chars);
+		assertTrue(other.isOmitted('a'));
+		assertFalse(other.isOmitted('?'));
+	}
+
+	/**
+	 * Checks that a Unicode category given as shorthand is compiled into the
+	 * omitted characters, but not into the punctuations.
+	 */
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testGetOmitCharsWithCategory() {
+		PepperModuleProperty<String> prop = (PepperModuleProperty<String>) getFixture().getProperty(MergerProperties.PROP_PUNCTUATIONS);
+		prop.setValue("'\\p{P}','<'");
+		assertTrue(getFixture().getPunctuations().contains('<'));
+		assertFalse(getFixture().getPunctuations().contains('p'));
+		assertFalse(getFixture().getPunctuations().contains('\\'));
+		assertTrue(getFixture().getOmitChars().isOmitted('<'));
+		assertTrue(getFixture().getOmitChars().isOmitted('.'));
+		assertTrue(getFixture().getOmitChars().isOmitted('\u00BF'));
+		assertTrue(getFixture().getOmitChars().isOmitted('\u201E'));
+		assertFalse(getFixture().getOmitChars().isOmitted('a'));
+	}
+
 	@Test
 	public void testGetEscapeMapping() {
 		assertNotNull(getFixture().getEscapeMapping());
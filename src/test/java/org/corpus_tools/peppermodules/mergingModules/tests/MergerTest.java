@@ -18,15 +18,20 @@
 package org.corpus_tools.peppermodules.mergingModules.tests;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 
 import java.io.File;
 
+import org.corpus_tools.pepper.modules.PepperModuleProperty;
 import org.corpus_tools.pepper.testFramework.PepperManipulatorTest;
 import org.corpus_tools.peppermodules.mergingModules.Merger;
+import org.corpus_tools.peppermodules.mergingModules.MergerProperties;
 import org.corpus_tools.salt.SaltFactory;
 import org.corpus_tools.salt.common.SCorpus;
 import org.corpus_tools.salt.common.SCorpusGraph;
 import org.corpus_tools.salt.common.SDocument;
+import org.corpus_tools.salt.common.SToken;
+import org.corpus_tools.salt.samples.SampleGenerator;
 import org.eclipse.emf.common.util.URI;
 import org.junit.Before;
 import org.junit.Test;
@@ -292,4 +297,69 @@ public class MergerTest extends PepperManipulatorTest {
 		assertEquals("all meta-annotations: " + d2_1.getMetaAnnotations(), 2, d2_1.getMetaAnnotations().size());
 		assertEquals("all meta-annotations: " + d3_1.getMetaAnnotations(), 2, d3_1.getMetaAnnotations().size());
 	}
+
+	/**
+	 * Tests merging documents progressively, when one of the documents to be
+	 * merged never arrives, for instance since its import failed. The arrived
+	 * documents must be merged anyway, instead of waiting for the missing one.
+	 */
+	@Test(timeout = 60000)
+	public void test_progressiveMerge_missingPartner() {
+		setFixture(new Merger() {
+			private boolean isMissingAdded = false;
+
+			@Override
+			protected synchronized void createMapping() {
+				if (!isMissingAdded) {
+					isMissingAdded = true;
+					// the mapping contains a third document, which is not
+					// imported
+					SCorpusGraph missing = createCorpusGraph(false);
+					getSaltProject().addCorpusGraph(missing);
+					super.createMapping();
+					getSaltProject().removeCorpusGraph(missing);
+				}
+			}
+		});
+		getFixture().setSaltProject(SaltFactory.createSaltProject());
+		PepperModuleProperty<Boolean> prop = (PepperModuleProperty<Boolean>) getFixture().getProperties().getProperty(MergerProperties.PROP_PROGRESSIVE_MERGE);
+		prop.setValue(true);
+
+		SCorpusGraph graph1 = createCorpusGraph(false);
+		SCorpusGraph graph2 = createCorpusGraph(true);
+		getFixture().getSaltProject().addCorpusGraph(graph1);
+		getFixture().getSaltProject().addCorpusGraph(graph2);
+
+		this.start();
+
+		SDocument base = graph1.getDocuments().get(0);
+		assertEquals(1, getFixture().getSaltProject().getCorpusGraphs().size());
+		assertFalse(base.getDocumentGraph().getTokens().isEmpty());
+		for (SToken token : base.getDocumentGraph().getTokens()) {
+			assertFalse(token.getAnnotations().isEmpty());
+		}
+	}
+
+	/**
+	 * Creates a corpus graph containing a corpus 'c1' with a document 'd1'.
+	 * 
+	 * @param annotated
+	 *            if true, the tokens of the document are annotated
+	 */
+	private static SCorpusGraph createCorpusGraph(boolean annotated) {
+		SCorpusGraph graph = SaltFactory.createSCorpusGraph();
+		SCorpus c1 = SaltFactory.createSCorpus();
+		c1.setName("c1");
+		SDocument d1 = SaltFactory.createSDocument();
+		d1.setName("d1");
+		graph.addNode(c1);
+		graph.addDocument(c1, d1);
+		d1.setDocumentGraph(SaltFactory.createSDocumentGraph());
+		SampleGenerator.createPrimaryData(d1);
+		SampleGenerator.createTokens(d1);
+		if (annotated) {
+			SampleGenerator.createMorphologyAnnotations(d1);
+		}
+		return graph;
+	}
 }
@@ -0,0 +1,56 @@
+/**
+ * Copyright 2015 Humboldt-Universität zu Berlin.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.mergingModules.tests;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.corpus_tools.peppermodules.mergingModules.MergerProperties;
+import org.corpus_tools.peppermodules.mergingModules.NormalizedTextIndex;
+import org.junit.Test;
+
+public class NormalizedTextIndexTest {
+
+	/**
+	 * Checks that the index finds the same positions as
+	 * {@link org.corpus_tools.peppermodules.mergingModules.MergerMapper#indexOfOmitChars}
+	 * , ignoring case and punctuations.
+	 */
+	@Test
+	public void testIndexOf() {
+		NormalizedTextIndex index = new NormalizedTextIndex("Is,this.example.more,complicated,than,it,supposed,to,be?", new MergerProperties().getOmitChars());
+		assertEquals(0, index.indexOf("is"));
+		assertEquals(3, index.indexOf("THIS"));
+		assertEquals(8, index.indexOf("example"));
+		assertEquals(8, index.indexOf("examplemore"));
+		assertEquals(8, index.indexOf("example.more"));
+		assertEquals(-1, index.indexOf("examples"));
+	}
+
+	/**
+	 * Checks that all occurrences are reported in ascending order.
+	 */
+	@Test
+	public void testFindAll() {
+		NormalizedTextIndex index = new NormalizedTextIndex("abc.abcab,c", new MergerProperties().getOmitChars());
+		assertArrayEquals(new int[] { 0, 4, 7 }, index.findAll("abc"));
+		assertArrayEquals(new int[] { 1, 5, 8 }, index.findAll("bc"));
+		assertArrayEquals(new int[] { 0, 4 }, index.findAll("abcabc"));
+		assertArrayEquals(new int[0], index.findAll("cc"));
+	}
+}
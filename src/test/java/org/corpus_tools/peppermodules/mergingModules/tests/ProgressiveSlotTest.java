@@ -0,0 +1,109 @@
+/**
+ * Copyright 2015 Humboldt-Universität zu Berlin.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.mergingModules.tests;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.corpus_tools.pepper.modules.MappingSubject;
+import org.corpus_tools.peppermodules.mergingModules.ProgressiveSlot;
+import org.junit.Test;
+
+public class ProgressiveSlotTest {
+
+	/**
+	 * Checks that partners are taken in the order they were offered and that
+	 * no partner is expected after the last one.
+	 */
+	@Test
+	public void testTakeInOrder() throws InterruptedException {
+		ProgressiveSlot slot = new ProgressiveSlot(2);
+		MappingSubject first = new MappingSubject();
+		MappingSubject second = new MappingSubject();
+		slot.offer(first);
+		slot.offer(second);
+		assertSame(first, slot.take());
+		assertSame(second, slot.take());
+		assertNull(slot.take());
+	}
+
+	/**
+	 * Checks that the mapper waits for a partner, which arrives later, and
+	 * that it is marked as waiting meanwhile.
+	 */
+	@Test
+	public void testWaitForPartner() throws InterruptedException {
+		final ProgressiveSlot slot = new ProgressiveSlot(1);
+		final MappingSubject[] taken = new MappingSubject[1];
+		Thread mapper = new Thread() {
+			@Override
+			public void run() {
+				try {
+					taken[0] = slot.take();
+				} catch (InterruptedException e) {
+					// test fails below
+				}
+			}
+		};
+		mapper.start();
+		long deadline = System.currentTimeMillis() + 10000;
+		while (!slot.isWaiting() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertTrue(slot.isWaiting());
+		MappingSubject partner = new MappingSubject();
+		slot.offer(partner);
+		mapper.join(10000);
+		assertSame(partner, taken[0]);
+		assertFalse(slot.isWaiting());
+	}
+
+	/**
+	 * Checks that a mapper waiting for a missing partner stops waiting, when
+	 * the slot is closed, and that partners offered before are still taken.
+	 */
+	@Test
+	public void testClose() throws InterruptedException {
+		final ProgressiveSlot slot = new ProgressiveSlot(3);
+		final MappingSubject first = new MappingSubject();
+		slot.offer(first);
+		assertSame(first, slot.take());
+		final boolean[] finished = new boolean[1];
+		Thread mapper = new Thread() {
+			@Override
+			public void run() {
+				try {
+					finished[0] = slot.take() == null;
+				} catch (InterruptedException e) {
+					// test fails below
+				}
+			}
+		};
+		mapper.start();
+		long deadline = System.currentTimeMillis() + 10000;
+		while (!slot.isWaiting() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		slot.close();
+		mapper.join(10000);
+		assertTrue(finished[0]);
+		assertNull(slot.take());
+	}
+}
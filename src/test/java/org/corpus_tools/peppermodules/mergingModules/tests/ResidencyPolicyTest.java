@@ -0,0 +1,80 @@
+/**
+ * Copyright 2015 Humboldt-Universität zu Berlin.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.mergingModules.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.corpus_tools.peppermodules.mergingModules.ResidencyPolicy;
+import org.junit.Test;
+
+public class ResidencyPolicyTest {
+
+	/**
+	 * Checks that without arrival statistics only a document waiting for a
+	 * single further document is kept and that nothing is kept, when the
+	 * policy is disabled.
+	 */
+	@Test
+	public void testShouldKeepWithoutStatistics() {
+		ResidencyPolicy policy = new ResidencyPolicy(1000, 10);
+		assertEquals(-1, policy.getExpectedWait(1));
+		assertTrue(policy.shouldKeep(1));
+		assertFalse(policy.shouldKeep(2));
+		assertFalse(new ResidencyPolicy(0, 10).shouldKeep(1));
+	}
+
+	/**
+	 * Checks that the expected wait is computed from the time between arrivals
+	 * of documents of the same slot.
+	 */
+	@Test
+	public void testShouldKeepWithStatistics() {
+		ResidencyPolicy policy = new ResidencyPolicy(1000, 10);
+		policy.arrived("doc1", 0);
+		policy.arrived("doc2", 50);
+		policy.arrived("doc1", 400);
+		assertEquals(400, policy.getExpectedWait(1));
+		assertTrue(policy.shouldKeep(2));
+		assertFalse(policy.shouldKeep(3));
+	}
+
+	/**
+	 * Checks that kept documents are returned on completion of their slot,
+	 * that expired documents are evicted and that the number of kept documents
+	 * is limited.
+	 */
+	@Test
+	public void testKeepAndEvict() {
+		ResidencyPolicy policy = new ResidencyPolicy(100, 2);
+		policy.keep("doc1", null, 1, 0);
+		policy.keep("doc2", null, 3, 50);
+		assertEquals(2, policy.getNumberOfResidents());
+		assertFalse(policy.shouldKeep(1));
+
+		assertEquals(1, policy.evictExpired(120).size());
+		assertEquals(1, policy.getNumberOfResidents());
+		assertTrue(policy.shouldKeep(1));
+
+		assertEquals(3, policy.complete("doc2").get(0).getPermits());
+		assertEquals(0, policy.complete("doc1").size());
+		assertEquals(0, policy.getNumberOfResidents());
+		assertEquals(0, policy.evictAll().size());
+	}
+}
@@ -0,0 +1,85 @@
+/**
+ * Copyright 2015 Humboldt-Universität zu Berlin.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.mergingModules.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.corpus_tools.peppermodules.mergingModules.MergerProperties;
+import org.corpus_tools.peppermodules.mergingModules.OmitChars;
+import org.corpus_tools.peppermodules.mergingModules.TextFingerprint;
+import org.junit.Test;
+
+public class TextFingerprintTest {
+	private final OmitChars punctuations = new MergerProperties().getOmitChars();
+
+	/**
+	 * Checks that punctuations are ignored.
+	 */
+	@Test
+	public void testLength() {
+		assertEquals(13, new TextFingerprint("Is,this.example?", punctuations).getLength());
+		assertEquals(0, new TextFingerprint("", punctuations).getLength());
+	}
+
+	/**
+	 * Checks that contained texts are never rejected, ignoring case and
+	 * punctuations.
+	 */
+	@Test
+	public void testMayContain() {
+		TextFingerprint bigger = new TextFingerprint("Is,this.example.more,complicated?", punctuations);
+		assertTrue(bigger.mayContain(new TextFingerprint("THIS,example", punctuations)));
+		assertTrue(bigger.mayContain(new TextFingerprint("", punctuations)));
+		assertTrue(bigger.mayContain(bigger));
+	}
+
+	/**
+	 * Checks that texts with unknown characters or too many characters are
+	 * rejected.
+	 */
+	@Test
+	public void testMayNotContain() {
+		TextFingerprint bigger = new TextFingerprint("Is,this.example?", punctuations);
+		assertFalse(bigger.mayContain(new TextFingerprint("word", punctuations)));
+		assertFalse(bigger.mayContain(new TextFingerprint("isthisexamplexx", punctuations)));
+	}
+
+	/**
+	 * Checks that texts containing the same characters in a different order
+	 * are rejected by their k-grams.
+	 */
+	@Test
+	public void testMayNotContainGrams() {
+		TextFingerprint bigger = new TextFingerprint("abcdefgh", punctuations);
+		assertFalse(bigger.mayContain(new TextFingerprint("dcbahgfe", punctuations)));
+		assertTrue(bigger.mayContain(new TextFingerprint("bcdefg", punctuations)));
+	}
+
+	/**
+	 * Checks that the allowed number of edits is tolerated.
+	 */
+	@Test
+	public void testMayContainWithErrors() {
+		TextFingerprint bigger = new TextFingerprint("Thisisanexampletext,whichcontainsafewerrors.", punctuations);
+		TextFingerprint smaller = new TextFingerprint("anexannletextwhich", punctuations);
+		assertFalse(bigger.mayContain(smaller, 0));
+		assertTrue(bigger.mayContain(smaller, 2));
+	}
+}
@@ -0,0 +1,87 @@
+/**
+ * Copyright 2015 Humboldt-Universität zu Berlin.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.mergingModules.tests;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.corpus_tools.peppermodules.mergingModules.MergerProperties;
+import org.corpus_tools.peppermodules.mergingModules.TextNormalizer;
+import org.corpus_tools.peppermodules.mergingModules.TextNormalizer.NormalizedText;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TextNormalizerTest {
+
+	private TextNormalizer fixture = null;
+
+	public TextNormalizer getFixture() {
+		return fixture;
+	}
+
+	public void setFixture(TextNormalizer fixture) {
+		this.fixture = fixture;
+	}
+
+	@Before
+	public void setUp() {
+		setFixture(new MergerProperties().getTextNormalizer());
+	}
+
+	/**
+	 * Checks that an empty text results in tables containing only the position
+	 * after the last character.
+	 */
+	@Test
+	public void testNormalizeEmpty() {
+		NormalizedText normalized = getFixture().normalize("");
+		assertEquals("", normalized.getText());
+		assertArrayEquals(new int[] { 0 }, normalized.getOriginalToNormalized());
+		assertArrayEquals(new int[] { 0 }, normalized.getNormalizedToOriginal());
+	}
+
+	/**
+	 * Checks removed and expanded characters in both offset tables.
+	 * 
+	 * <pre>
+	 * orig: " thäs is"
+	 *        01234567
+	 * norm: "thaesis"
+	 *        0123456
+	 * </pre>
+	 */
+	@Test
+	public void testNormalize() {
+		NormalizedText normalized = getFixture().normalize(" thäs is");
+		assertEquals("thaesis", normalized.getText());
+		assertArrayEquals(new int[] { 0, 0, 1, 2, 4, 5, 5, 6, 7 }, normalized.getOriginalToNormalized());
+		assertArrayEquals(new int[] { 1, 2, 3, 3, 4, 6, 7, 8 }, normalized.getNormalizedToOriginal());
+	}
+
+	/**
+	 * Checks that a text made of expanding characters only grows the buffers
+	 * correctly.
+	 */
+	@Test
+	public void testNormalizeExpanding() {
+		NormalizedText normalized = getFixture().normalize("ßßß");
+		assertEquals("ssssss", normalized.getText());
+		assertArrayEquals(new int[] { 0, 2, 4, 6 }, normalized.getOriginalToNormalized());
+		assertArrayEquals(new int[] { 0, 0, 1, 1, 2, 2, 3 }, normalized.getNormalizedToOriginal());
+	}
+}
@@ -0,0 +1,91 @@
+/**
+ * Copyright 2015 Humboldt-Universität zu Berlin.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.mergingModules.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.corpus_tools.peppermodules.mergingModules.TextualRelationIndex;
+import org.corpus_tools.salt.SaltFactory;
+import org.corpus_tools.salt.common.SDocumentGraph;
+import org.corpus_tools.salt.common.STextualDS;
+import org.corpus_tools.salt.common.STextualRelation;
+import org.corpus_tools.salt.common.SToken;
+import org.corpus_tools.salt.core.SRelation;
+import org.junit.Test;
+
+public class TextualRelationIndexTest {
+
+	/**
+	 * Checks that the tokens are grouped by their text and keep their order.
+	 */
+	@Test
+	public void testGetTokens() {
+		SDocumentGraph graph = SaltFactory.createSDocumentGraph();
+		STextualDS text1 = graph.createTextualDS("a b");
+		STextualDS text2 = graph.createTextualDS("c");
+		STextualDS text3 = graph.createTextualDS("d");
+		SToken tok1 = graph.createToken(text1, 0, 1);
+		SToken tok2 = graph.createToken(text2, 0, 1);
+		SToken tok3 = graph.createToken(text1, 2, 3);
+
+		TextualRelationIndex index = new TextualRelationIndex(graph);
+		assertEquals(Arrays.asList(tok1, tok3), index.getTokens(text1));
+		assertEquals(Arrays.asList(tok2), index.getTokens(text2));
+		assertTrue(index.getTokens(text3).isEmpty());
+		assertEquals(2, index.getRelations(text1).size());
+		assertEquals(text1, index.getText(tok3));
+		assertEquals(text2, index.getText(tok2));
+		assertNull(index.getText(SaltFactory.createSToken()));
+	}
+
+	/**
+	 * Checks that relations added after creating the index are appended to
+	 * their text, while lists returned before stay unchanged.
+	 */
+	@Test
+	public void testAddRelation() {
+		SDocumentGraph graph = SaltFactory.createSDocumentGraph();
+		STextualDS text1 = graph.createTextualDS("a b c");
+		STextualDS text2 = graph.createTextualDS("d");
+		SToken tok1 = graph.createToken(text1, 0, 1);
+
+		TextualRelationIndex index = new TextualRelationIndex(graph);
+		List<SToken> before = index.getTokens(text1);
+		SToken tok2 = graph.createToken(text1, 2, 3);
+		SToken tok3 = graph.createToken(text1, 4, 5);
+		SToken tok4 = graph.createToken(text2, 0, 1);
+		for (SToken tok : Arrays.asList(tok2, tok3, tok4)) {
+			for (SRelation<?, ?> relation : tok.getOutRelations()) {
+				if (relation instanceof STextualRelation) {
+					index.addRelation((STextualRelation) relation);
+				}
+			}
+		}
+		assertEquals(Arrays.asList(tok1), before);
+		assertEquals(Arrays.asList(tok1, tok2, tok3), index.getTokens(text1));
+		assertEquals(Arrays.asList(tok4), index.getTokens(text2));
+		assertEquals(text1, index.getText(tok3));
+		assertEquals(text2, index.getText(tok4));
+		assertEquals(index.getRelations(text1), new TextualRelationIndex(graph).getRelations(text1));
+	}
+}
@@ -0,0 +1,206 @@
+/**
+ * Copyright 2015 Humboldt-Universität zu Berlin.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.mergingModules.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.corpus_tools.peppermodules.mergingModules.TokenMergeContainer;
+import org.corpus_tools.peppermodules.mergingModules.TokenMergeContainer.AlignedTokensMap;
+import org.corpus_tools.salt.SaltFactory;
+import org.corpus_tools.salt.common.SDocument;
+import org.corpus_tools.salt.common.SDocumentGraph;
+import org.corpus_tools.salt.common.STextualDS;
+import org.corpus_tools.salt.common.SToken;
+import org.junit.Test;
+
+public class TokenMergeContainerTest {
+
+	/**
+	 * Checks the lookup of aligned tokens by their start and of the
+	 * boundaries by the token, also for tokens added out of order.
+	 */
+	@Test
+	public void testAlignedTokensMap() {
+		AlignedTokensMap map = new TokenMergeContainer().new AlignedTokensMap();
+		SToken tok1 = SaltFactory.createSToken();
+		SToken tok2 = SaltFactory.createSToken();
+		SToken tok3 = SaltFactory.createSToken();
+		map.addToken(tok2, 4, 7);
+		map.addToken(tok1, 0, 4);
+		map.addToken(tok3, 7, 9);
+
+		assertEquals(tok1, map.getTokenByStart(0));
+		assertEquals(tok2, map.getTokenByStart(4));
+		assertEquals(tok3, map.getTokenByStart(7));
+		assertNull(map.getTokenByStart(5));
+		assertEquals(4, map.getStart(tok2));
+		assertEquals(3, map.getLength(tok2));
+		assertEquals(9, map.getEnd(tok3));
+		assertEquals(-1, map.getStart(SaltFactory.createSToken()));
+		assertEquals(-1, map.getLength(SaltFactory.createSToken()));
+		assertEquals(3, map.getTokens().size());
+	}
+
+	/**
+	 * Checks that the token added last wins, when several tokens have the
+	 * same start.
+	 */
+	@Test
+	public void testAlignedTokensMapSameStart() {
+		AlignedTokensMap map = new TokenMergeContainer().new AlignedTokensMap();
+		SToken tok1 = SaltFactory.createSToken();
+		SToken tok2 = SaltFactory.createSToken();
+		map.addToken(tok1, 2, 4);
+		map.addToken(tok2, 2, 3);
+		assertEquals(tok2, map.getTokenByStart(2));
+		// adding a token again updates its boundaries
+		map.addToken(tok1, 2, 5);
+		assertEquals(tok1, map.getTokenByStart(2));
+		assertEquals(3, map.getLength(tok1));
+		assertEquals(2, map.getTokens().size());
+	}
+
+	/**
+	 * Checks that all tokens overlapping an interval are found in the order
+	 * of their start.
+	 */
+	@Test
+	public void testGetTokensOverlapping() {
+		AlignedTokensMap map = new TokenMergeContainer().new AlignedTokensMap();
+		SToken tok1 = SaltFactory.createSToken();
+		SToken tok2 = SaltFactory.createSToken();
+		SToken tok3 = SaltFactory.createSToken();
+		map.addToken(tok3, 7, 9);
+		map.addToken(tok1, 0, 4);
+		map.addToken(tok2, 4, 7);
+
+		assertEquals(Arrays.asList(tok1), map.getTokensOverlapping(1, 3));
+		assertEquals(Arrays.asList(tok1, tok2), map.getTokensOverlapping(3, 5));
+		assertEquals(Arrays.asList(tok2), map.getTokensOverlapping(4, 7));
+		assertEquals(Arrays.asList(tok1, tok2, tok3), map.getTokensOverlapping(0, 9));
+		assertTrue(map.getTokensOverlapping(9, 12).isEmpty());
+	}
+
+	/**
+	 * Checks that the tokens of maps with the same boundaries correspond
+	 * pairwise by their start.
+	 */
+	@Test
+	public void testHasSameBoundaries() {
+		AlignedTokensMap map = new TokenMergeContainer().new AlignedTokensMap();
+		AlignedTokensMap otherMap = new TokenMergeContainer().new AlignedTokensMap();
+		SToken tok1 = SaltFactory.createSToken();
+		SToken tok2 = SaltFactory.createSToken();
+		SToken otherTok1 = SaltFactory.createSToken();
+		SToken otherTok2 = SaltFactory.createSToken();
+		map.addToken(tok2, 4, 7);
+		map.addToken(tok1, 0, 4);
+		otherMap.addToken(otherTok1, 0, 4);
+		otherMap.addToken(otherTok2, 4, 7);
+
+		assertTrue(map.hasSameBoundaries(otherMap));
+		assertEquals(Arrays.asList(tok1, tok2), map.getTokensByStart());
+		assertEquals(Arrays.asList(otherTok1, otherTok2), otherMap.getTokensByStart());
+
+		otherMap.addToken(otherTok2, 4, 6);
+		assertFalse(map.hasSameBoundaries(otherMap));
+	}
+
+	/**
+	 * Checks that the first mapping of a base token to a token of an other
+	 * text wins, also for base tokens added after the first mapping.
+	 */
+	@Test
+	public void testTokenMapping() {
+		TokenMergeContainer container = new TokenMergeContainer();
+		SDocumentGraph graph = SaltFactory.createSDocumentGraph();
+		STextualDS baseText = graph.createTextualDS("a b");
+		STextualDS otherText = graph.createTextualDS("a b");
+		SToken base1 = SaltFactory.createSToken();
+		SToken base2 = SaltFactory.createSToken();
+		SToken other1 = SaltFactory.createSToken();
+		SToken other2 = SaltFactory.createSToken();
+		container.addAlignedToken(baseText, base1, 0, 1);
+		container.addAlignedToken(otherText, other1, 0, 1);
+		container.addAlignedToken(otherText, other2, 1, 2);
+
+		container.addTokenMapping(base1, other1, otherText);
+		container.addTokenMapping(base1, other2, otherText);
+		assertEquals(other1, container.getTokenMapping(base1, otherText));
+		assertNull(container.getTokenMapping(base1, baseText));
+
+		container.addAlignedToken(baseText, base2, 1, 2);
+		container.addTokenMapping(base2, other2, otherText);
+		assertEquals(other2, container.getTokenMapping(base2, otherText));
+		assertEquals(2, container.getEquivalenceMap().size());
+	}
+
+	/**
+	 * Checks that the columns of a finished document are reused for the next
+	 * one without its mappings, and that only as many columns are kept as the
+	 * finished document needed.
+	 */
+	@Test
+	public void testFinishDocument() {
+		TokenMergeContainer container = new TokenMergeContainer();
+		SToken base1 = SaltFactory.createSToken();
+		SToken base2 = SaltFactory.createSToken();
+		STextualDS baseText = SaltFactory.createSDocumentGraph().createTextualDS("a b");
+		container.addAlignedToken(baseText, base1, 0, 1);
+		container.addAlignedToken(baseText, base2, 1, 2);
+
+		// the first document needs two columns
+		SDocument doc1 = SaltFactory.createSDocument();
+		doc1.setId("doc1");
+		doc1.setDocumentGraph(SaltFactory.createSDocumentGraph());
+		STextualDS otherText1 = doc1.getDocumentGraph().createTextualDS("a b");
+		STextualDS otherText2 = doc1.getDocumentGraph().createTextualDS("a b");
+		SToken other1 = SaltFactory.createSToken();
+		SToken other2 = SaltFactory.createSToken();
+		container.addAlignedToken(otherText1, other1, 0, 1);
+		container.addAlignedToken(otherText2, other2, 1, 2);
+		container.addTokenMapping(base1, other1, otherText1);
+		container.addTokenMapping(base2, other2, otherText2);
+		container.finishDocument(doc1);
+		assertEquals(2, container.getFreeColumnCount());
+		assertNull(container.getTokenMapping(base1, otherText1));
+
+		// the second document reuses a column, the former mapping of base1
+		// is gone
+		SDocument doc2 = SaltFactory.createSDocument();
+		doc2.setId("doc2");
+		doc2.setDocumentGraph(SaltFactory.createSDocumentGraph());
+		STextualDS otherText3 = doc2.getDocumentGraph().createTextualDS("a b");
+		SToken other3 = SaltFactory.createSToken();
+		container.addAlignedToken(otherText3, other3, 1, 2);
+		container.addTokenMapping(base2, other3, otherText3);
+		assertEquals(1, container.getFreeColumnCount());
+		assertNull(container.getTokenMapping(base1, otherText3));
+		assertEquals(other3, container.getTokenMapping(base2, otherText3));
+		assertEquals(1, container.getEquivalenceMap().size());
+
+		// only one column is kept for the next document
+		container.finishDocument(doc2);
+		assertEquals(1, container.getFreeColumnCount());
+	}
+}